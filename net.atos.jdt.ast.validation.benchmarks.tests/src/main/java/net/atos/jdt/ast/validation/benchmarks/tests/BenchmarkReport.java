@@ -0,0 +1,253 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Machine-readable report of a benchmark: its settings, a list of results,
+ * and their summary, written as JSON.
+ * 
+ * @since 1.2
+ */
+public class BenchmarkReport {
+
+	/**
+	 * Nanoseconds in a microsecond, the unit of the latencies
+	 */
+	private static final long NANOS_PER_MICRO = 1000L;
+
+	/**
+	 * Name of the benchmark
+	 */
+	private final String name;
+
+	/**
+	 * Settings of the benchmark
+	 */
+	private final Map<String, Object> settings = new LinkedHashMap<String, Object>();
+
+	/**
+	 * Results of the benchmark
+	 */
+	private final List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+
+	/**
+	 * Summary of the results
+	 */
+	private final Map<String, Object> summary = new LinkedHashMap<String, Object>();
+
+	/**
+	 * Creates new report
+	 * 
+	 * @param name
+	 */
+	public BenchmarkReport(final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Adds a setting to the report
+	 * 
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public BenchmarkReport withSetting(final String key, final Object value) {
+		this.settings.put(key, value);
+		return this;
+	}
+
+	/**
+	 * Adds an entry to the summary of the results
+	 * 
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public BenchmarkReport withSummary(final String key, final Object value) {
+		this.summary.put(key, value);
+		return this;
+	}
+
+	/**
+	 * Adds a result to the report
+	 * 
+	 * @return the result, to fill
+	 */
+	public Map<String, Object> addResult() {
+		final Map<String, Object> result = new LinkedHashMap<String, Object>();
+		this.results.add(result);
+		return result;
+	}
+
+	/**
+	 * Returns the percentiles of the latencies provided, in microseconds, by
+	 * name (p50, p99...)
+	 * 
+	 * @param latencies
+	 *            latencies, in nanoseconds
+	 * @param percentiles
+	 * @return
+	 */
+	public static Map<String, Object> getPercentiles(final Collection<Long> latencies, final int... percentiles) {
+		final long[] values = new long[latencies.size()];
+		int index = 0;
+		for (final Long latency : latencies) {
+			values[index++] = latency.longValue();
+		}
+		Arrays.sort(values);
+		final Map<String, Object> result = new LinkedHashMap<String, Object>();
+		for (final int percentile : percentiles) {
+			long value = 0;
+			if (values.length > 0) {
+				// Nearest rank
+				final int rank = (int) Math.ceil((percentile / 100.0) * values.length);
+				value = values[Math.max(0, rank - 1)];
+			}
+			result.put("p" + percentile, Long.valueOf(value / BenchmarkReport.NANOS_PER_MICRO));
+		}
+		result.put("max", Long.valueOf(values.length > 0 ? values[values.length - 1] / BenchmarkReport.NANOS_PER_MICRO
+				: 0));
+		return result;
+	}
+
+	/**
+	 * Writes the report in the directory provided, as
+	 * <code>name.json</code>
+	 * 
+	 * @param directory
+	 * @return the file written
+	 * @throws IOException
+	 */
+	public File write(final File directory) throws IOException {
+		directory.mkdirs();
+		final File file = new File(directory, this.name + ".json");
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(this.toString());
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		final Map<String, Object> report = new LinkedHashMap<String, Object>();
+		report.put("benchmark", this.name);
+		report.put("timestamp", Long.valueOf(System.currentTimeMillis()));
+		report.put("java", System.getProperty("java.version"));
+		report.put("processors", Integer.valueOf(Runtime.getRuntime().availableProcessors()));
+		report.put("settings", this.settings);
+		report.put("results", this.results);
+		if (!this.summary.isEmpty()) {
+			report.put("summary", this.summary);
+		}
+		final StringBuilder builder = new StringBuilder(1024);
+		BenchmarkReport.append(builder, report, "");
+		return builder.append('\n').toString();
+	}
+
+	/**
+	 * Appends a value as JSON: maps, collections, numbers, booleans, and
+	 * strings for the other values
+	 * 
+	 * @param builder
+	 * @param value
+	 * @param indent
+	 */
+	private static void append(final StringBuilder builder, final Object value, final String indent) {
+		if (value instanceof Map<?, ?>) {
+			builder.append("{");
+			final Iterator<? extends Entry<?, ?>> iterator = ((Map<?, ?>) value).entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Entry<?, ?> entry = iterator.next();
+				builder.append('\n').append(indent).append('\t');
+				BenchmarkReport.appendString(builder, String.valueOf(entry.getKey()));
+				builder.append(": ");
+				BenchmarkReport.append(builder, entry.getValue(), indent + '\t');
+				if (iterator.hasNext()) {
+					builder.append(',');
+				}
+			}
+			builder.append('\n').append(indent).append('}');
+		} else if (value instanceof Collection<?>) {
+			builder.append('[');
+			final Iterator<?> iterator = ((Collection<?>) value).iterator();
+			while (iterator.hasNext()) {
+				builder.append('\n').append(indent).append('\t');
+				BenchmarkReport.append(builder, iterator.next(), indent + '\t');
+				if (iterator.hasNext()) {
+					builder.append(',');
+				}
+			}
+			builder.append('\n').append(indent).append(']');
+		} else if ((value instanceof Number) || (value instanceof Boolean)) {
+			builder.append(value);
+		} else {
+			BenchmarkReport.appendString(builder, value == null ? null : String.valueOf(value));
+		}
+	}
+
+	/**
+	 * Appends a string, as a JSON literal, or null
+	 * 
+	 * @param builder
+	 * @param value
+	 */
+	private static void appendString(final StringBuilder builder, final String value) {
+		if (value == null) {
+			builder.append("null");
+			return;
+		}
+		builder.append('"');
+		for (int index = 0; index < value.length(); index++) {
+			final char character = value.charAt(index);
+			if ((character == '"') || (character == '\\')) {
+				builder.append('\\').append(character);
+			} else if (character < ' ') {
+				builder.append(String.format("\\u%04x", Integer.valueOf(character)));
+			} else {
+				builder.append(character);
+			}
+		}
+		builder.append('"');
+	}
+}
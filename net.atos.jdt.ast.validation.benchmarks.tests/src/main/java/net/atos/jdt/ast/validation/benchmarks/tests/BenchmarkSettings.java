@@ -0,0 +1,123 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import java.io.File;
+
+/**
+ * Settings of the benchmarks, read from the system properties, prefixed by
+ * {@value #PREFIX}. They are set from the properties of the Maven build, and
+ * can be overridden from the command line.
+ * 
+ * @since 1.2
+ */
+public final class BenchmarkSettings {
+
+	/**
+	 * Prefix of the system properties
+	 */
+	public static final String PREFIX = "net.atos.jdt.ast.validation.benchmarks.";
+
+	/**
+	 * Private constructor
+	 */
+	private BenchmarkSettings() {
+	}
+
+	/**
+	 * @return number of files of the generated project
+	 */
+	public static int getFiles() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "files", 500).intValue();
+	}
+
+	/**
+	 * @return number of methods of each generated file, that drives its size
+	 */
+	public static int getMethods() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "methods", 20).intValue();
+	}
+
+	/**
+	 * @return depth of the packages of the generated files
+	 */
+	public static int getDepth() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "depth", 3).intValue();
+	}
+
+	/**
+	 * @return number of rules executed
+	 */
+	public static int getRules() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "rules", 10).intValue();
+	}
+
+	/**
+	 * @return percentage of the files changed before the incremental build
+	 */
+	public static int getChanged() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "changed", 10).intValue();
+	}
+
+	/**
+	 * @return number of validation threads, 0 to rely on preferences
+	 */
+	public static int getThreads() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "threads", 0).intValue();
+	}
+
+	/**
+	 * @return number of edits replayed on the working copy, for each number
+	 *         of rules
+	 */
+	public static int getEdits() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "edits", 100).intValue();
+	}
+
+	/**
+	 * @return numbers of rules for which the reconcile latency is measured
+	 */
+	public static int[] getReconcileRules() {
+		final String[] values = System.getProperty(BenchmarkSettings.PREFIX + "reconcile.rules", "0,5,10,25,50")
+				.split(",");
+		final int[] rules = new int[values.length];
+		for (int index = 0; index < values.length; index++) {
+			rules[index] = Integer.parseInt(values[index].trim());
+		}
+		return rules;
+	}
+
+	/**
+	 * @return reconcile latency, in milliseconds, above which the editor is
+	 *         considered as lagging
+	 */
+	public static int getLatencyBudget() {
+		return Integer.getInteger(BenchmarkSettings.PREFIX + "budget", 100).intValue();
+	}
+
+	/**
+	 * @return directory where the reports are written
+	 */
+	public static File getOutputDirectory() {
+		return new File(System.getProperty(BenchmarkSettings.PREFIX + "output", "target/benchmarks"));
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceDescription;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.JavaRuntime;
+
+/**
+ * Java project generated in the workspace, whose only builder is the
+ * validation builder.
+ * 
+ * Files are spread over a tree of packages, of the depth provided, each
+ * package having up to {@value #FAN_OUT} sub-packages.
+ * 
+ * @since 1.2
+ */
+public class BenchmarkWorkspace {
+
+	/**
+	 * Prefix of the names of the generated projects, to which the benchmark
+	 * rules apply
+	 */
+	public static final String PROJECT_PREFIX = "benchmark.";
+
+	/**
+	 * Identifier of the validation builder
+	 */
+	public static final String BUILDER_ID = "net.atos.jdt.ast.validation.engine.ASTValidableBuilder";
+
+	/**
+	 * Marker type of the problems raised by the benchmark rules
+	 */
+	public static final String MARKER_ID = "net.atos.jdt.ast.validation.engine.diagnostic";
+
+	/**
+	 * Root package of the generated files
+	 */
+	private static final String ROOT_PACKAGE = "net.atos.synthetic";
+
+	/**
+	 * Maximum number of sub-packages of a package
+	 */
+	private static final int FAN_OUT = 4;
+
+	/**
+	 * Charset of the generated files
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Generated project
+	 */
+	private final IProject project;
+
+	/**
+	 * Generated files
+	 */
+	private final List<IFile> files = new ArrayList<IFile>();
+
+	/**
+	 * Package of each generated file
+	 */
+	private final List<String> packages = new ArrayList<String>();
+
+	/**
+	 * Number of methods of the generated files
+	 */
+	private final int methods;
+
+	/**
+	 * Number of times the files have been changed
+	 */
+	private int revision;
+
+	/**
+	 * Creates new workspace, for the project provided
+	 * 
+	 * @param project
+	 * @param methods
+	 */
+	private BenchmarkWorkspace(final IProject project, final int methods) {
+		this.project = project;
+		this.methods = methods;
+	}
+
+	/**
+	 * Enables or disables the automatic builds, so that builds are only
+	 * triggered by the benchmarks
+	 * 
+	 * @param autoBuilding
+	 * @throws CoreException
+	 */
+	public static void setAutoBuilding(final boolean autoBuilding) throws CoreException {
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		final IWorkspaceDescription description = workspace.getDescription();
+		description.setAutoBuilding(autoBuilding);
+		workspace.setDescription(description);
+	}
+
+	/**
+	 * Generates a Java project, within a single workspace operation
+	 * 
+	 * @param name
+	 *            name of the project, appended to {@value #PROJECT_PREFIX}
+	 * @param files
+	 *            number of files
+	 * @param methods
+	 *            number of methods of each file
+	 * @param depth
+	 *            depth of the packages
+	 * @param monitor
+	 * @return
+	 * @throws CoreException
+	 */
+	public static BenchmarkWorkspace create(final String name, final int files, final int methods, final int depth,
+			final IProgressMonitor monitor) throws CoreException {
+		final IProject project = ResourcesPlugin.getWorkspace().getRoot()
+				.getProject(BenchmarkWorkspace.PROJECT_PREFIX + name);
+		final BenchmarkWorkspace workspace = new BenchmarkWorkspace(project, methods);
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				workspace.createProject(monitor);
+				for (int index = 0; index < files; index++) {
+					workspace.createFile(index, depth, monitor);
+				}
+			}
+		}, monitor);
+		return workspace;
+	}
+
+	/**
+	 * Creates the project, as a Java project built by the validation builder
+	 * only
+	 * 
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	private void createProject(final IProgressMonitor monitor) throws CoreException {
+		if (this.project.exists()) {
+			this.project.delete(true, true, monitor);
+		}
+		this.project.create(monitor);
+		this.project.open(monitor);
+		IProjectDescription description = this.project.getDescription();
+		description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+		this.project.setDescription(description, monitor);
+		// Java nature adds the Java builder: it is replaced, so that the
+		// validation participant does not run
+		description = this.project.getDescription();
+		final ICommand command = description.newCommand();
+		command.setBuilderName(BenchmarkWorkspace.BUILDER_ID);
+		description.setBuildSpec(new ICommand[] { command });
+		this.project.setDescription(description, monitor);
+		final IFolder sourceFolder = this.project.getFolder("src");
+		sourceFolder.create(true, true, monitor);
+		final IJavaProject javaProject = JavaCore.create(this.project);
+		javaProject.setRawClasspath(new IClasspathEntry[] { JavaCore.newSourceEntry(sourceFolder.getFullPath()),
+				JavaRuntime.getDefaultJREContainerEntry() }, this.project.getFullPath().append("bin"), monitor);
+	}
+
+	/**
+	 * Creates the file at index, and its package
+	 * 
+	 * @param index
+	 * @param depth
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	private void createFile(final int index, final int depth, final IProgressMonitor monitor) throws CoreException {
+		final StringBuilder packageName = new StringBuilder(BenchmarkWorkspace.ROOT_PACKAGE);
+		int position = index;
+		for (int level = 0; level < depth; level++) {
+			packageName.append(".level").append(level).append('_').append(position % BenchmarkWorkspace.FAN_OUT);
+			position /= BenchmarkWorkspace.FAN_OUT;
+		}
+		IFolder folder = this.project.getFolder("src");
+		for (final String segment : packageName.toString().split("\\.")) {
+			folder = folder.getFolder(segment);
+			if (!folder.exists()) {
+				folder.create(true, true, monitor);
+			}
+		}
+		final IFile file = folder.getFile("Synthetic" + index + ".java");
+		file.create(this.getContents(packageName.toString(), index), true, monitor);
+		this.files.add(file);
+		this.packages.add(packageName.toString());
+	}
+
+	/**
+	 * Returns the contents of the file at index, at the current revision
+	 * 
+	 * @param packageName
+	 * @param index
+	 * @return
+	 */
+	private ByteArrayInputStream getContents(final String packageName, final int index) {
+		return new ByteArrayInputStream(SyntheticSources.generate(packageName, "Synthetic" + index,
+				this.methods + this.revision).getBytes(BenchmarkWorkspace.UTF8));
+	}
+
+	/**
+	 * Changes a percentage of the files, evenly spread over the project,
+	 * within a single workspace operation
+	 * 
+	 * @param percentage
+	 * @param monitor
+	 * @return the changed files
+	 * @throws CoreException
+	 */
+	public List<IFile> change(final int percentage, final IProgressMonitor monitor) throws CoreException {
+		final List<IFile> changedFiles = new ArrayList<IFile>();
+		if (percentage <= 0) {
+			return changedFiles;
+		}
+		this.revision++;
+		final int step = Math.max(1, 100 / percentage);
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				for (int index = 0; index < BenchmarkWorkspace.this.files.size(); index += step) {
+					final IFile file = BenchmarkWorkspace.this.files.get(index);
+					file.setContents(BenchmarkWorkspace.this.getContents(BenchmarkWorkspace.this.packages.get(index),
+							index), true, false, monitor);
+					changedFiles.add(file);
+				}
+			}
+		}, monitor);
+		return changedFiles;
+	}
+
+	/**
+	 * @return the number of validation markers in the project
+	 * @throws CoreException
+	 */
+	public int countMarkers() throws CoreException {
+		return this.project.findMarkers(BenchmarkWorkspace.MARKER_ID, true, IResource.DEPTH_INFINITE).length;
+	}
+
+	/**
+	 * @return the generated project
+	 */
+	public IProject getProject() {
+		return this.project;
+	}
+
+	/**
+	 * @return the generated files
+	 */
+	public List<IFile> getFiles() {
+		return Collections.unmodifiableList(this.files);
+	}
+
+	/**
+	 * Deletes the project, and its contents
+	 * 
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	public void delete(final IProgressMonitor monitor) throws CoreException {
+		this.project.delete(true, true, monitor);
+	}
+}
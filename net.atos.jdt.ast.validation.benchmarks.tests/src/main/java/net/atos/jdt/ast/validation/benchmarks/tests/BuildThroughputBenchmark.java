@@ -0,0 +1,225 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.benchmarks.tests.rules.BenchmarkRules;
+import net.atos.jdt.ast.validation.engine.ASTRulesPreferences;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Throughput of the validation builder, on a generated project: a full
+ * build, then an incremental build after a part of the files changed.
+ * 
+ * For each build, the report holds the number of files validated per
+ * second, the percentiles of the time spent on each file, the peak heap, and
+ * the number of markers in the project. Throughput, heap and markers are
+ * measured on an untraced build. As tracing slows the rules down, the time
+ * spent on each file is read from the trace of a second build of the same
+ * kind, run after the same files changed again. The report is written to
+ * <code>build-throughput.json</code>, in the output directory of
+ * {@link BenchmarkSettings}.
+ * 
+ * @since 1.2
+ */
+public class BuildThroughputBenchmark {
+
+	/**
+	 * Name of the report
+	 */
+	private static final String REPORT_NAME = "build-throughput";
+
+	/**
+	 * Generated workspace
+	 */
+	private static BenchmarkWorkspace workspace;
+
+	/**
+	 * Number of rules executed
+	 */
+	private static int rules;
+
+	/**
+	 * Generates the workspace, and sets the rules up
+	 * 
+	 * @throws CoreException
+	 */
+	@BeforeClass
+	public static void setUp() throws CoreException {
+		BenchmarkWorkspace.setAutoBuilding(false);
+		ASTRulesPreferences.disableValidationParticipant();
+		if (BenchmarkSettings.getThreads() > 0) {
+			ASTRulesPreferences.setValidationThreads(BenchmarkSettings.getThreads());
+		}
+		BuildThroughputBenchmark.rules = BenchmarkRules.setRules(BenchmarkSettings.getRules());
+		BuildThroughputBenchmark.workspace = BenchmarkWorkspace.create("build", BenchmarkSettings.getFiles(),
+				BenchmarkSettings.getMethods(), BenchmarkSettings.getDepth(), new NullProgressMonitor());
+	}
+
+	/**
+	 * Deletes the workspace
+	 * 
+	 * @throws CoreException
+	 */
+	@AfterClass
+	public static void tearDown() throws CoreException {
+		BenchmarkRules.setRules(0);
+		if (BuildThroughputBenchmark.workspace != null) {
+			BuildThroughputBenchmark.workspace.delete(new NullProgressMonitor());
+		}
+	}
+
+	/**
+	 * Runs a full build, then an incremental build, and writes the report
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void fullAndIncrementalBuilds() throws Exception {
+		final BenchmarkReport report = new BenchmarkReport(BuildThroughputBenchmark.REPORT_NAME)
+				.withSetting("files", Integer.valueOf(BenchmarkSettings.getFiles()))
+				.withSetting("methods", Integer.valueOf(BenchmarkSettings.getMethods()))
+				.withSetting("depth", Integer.valueOf(BenchmarkSettings.getDepth()))
+				.withSetting("rules", Integer.valueOf(BuildThroughputBenchmark.rules))
+				.withSetting("bindings",
+						Boolean.valueOf(BenchmarkRules.resolveBindings(BuildThroughputBenchmark.rules)))
+				.withSetting("changed", Integer.valueOf(BenchmarkSettings.getChanged()))
+				.withSetting("threads", Integer.valueOf(ASTRulesPreferences.getValidationThreads()));
+
+		// Without rule, units are neither parsed nor visited, so none is
+		// counted as validated
+		final int files = BuildThroughputBenchmark.workspace.getFiles().size();
+		final Map<String, Object> full = this.build(report, "full", IncrementalProjectBuilder.FULL_BUILD, files, 100);
+		Assert.assertEquals("All the files are validated by the full build",
+				Integer.valueOf(BuildThroughputBenchmark.rules > 0 ? files : 0), full.get("validatedFiles"));
+
+		final int changedFiles = BuildThroughputBenchmark.workspace.change(BenchmarkSettings.getChanged(),
+				new NullProgressMonitor()).size();
+		final Map<String, Object> incremental = this.build(report, "incremental",
+				IncrementalProjectBuilder.INCREMENTAL_BUILD, changedFiles, BenchmarkSettings.getChanged());
+		Assert.assertEquals("Only the changed files are validated by the incremental build",
+				Integer.valueOf(BuildThroughputBenchmark.rules > 0 ? changedFiles : 0),
+				incremental.get("validatedFiles"));
+
+		report.write(BenchmarkSettings.getOutputDirectory());
+	}
+
+	/**
+	 * Runs an untraced build of the project, then a traced build of the same
+	 * kind after the files changed again, and adds their result to the report
+	 * 
+	 * @param report
+	 * @param name
+	 * @param kind
+	 * @param files
+	 *            number of files expected to be validated
+	 * @param changed
+	 *            percentage of the files to change before the traced build, so
+	 *            that it validates the same files
+	 * @return the result
+	 * @throws Exception
+	 */
+	private Map<String, Object> build(final BenchmarkReport report, final String name, final int kind,
+			final int files, final int changed) throws Exception {
+		System.gc();
+		BuildThroughputBenchmark.resetPeakHeap();
+		final long start = System.nanoTime();
+		BuildThroughputBenchmark.workspace.getProject().build(kind, BenchmarkWorkspace.BUILDER_ID, null,
+				new NullProgressMonitor());
+		final long elapsed = System.nanoTime() - start;
+		final long peakHeap = BuildThroughputBenchmark.getPeakHeap();
+		final int markers = BuildThroughputBenchmark.workspace.countMarkers();
+
+		BuildThroughputBenchmark.workspace.change(changed, new NullProgressMonitor());
+		final Map<String, Long> latencies = this.trace(name, kind);
+
+		final Map<String, Object> result = report.addResult();
+		result.put("build", name);
+		result.put("files", Integer.valueOf(files));
+		result.put("validatedFiles", Integer.valueOf(latencies.size()));
+		result.put("durationMillis", Long.valueOf(elapsed / 1000000L));
+		result.put("filesPerSecond", Double.valueOf(Math.round((files * 1e10) / elapsed) / 10.0));
+		result.put("fileLatencyMicros", BenchmarkReport.getPercentiles(latencies.values(), 50, 99));
+		result.put("peakHeapBytes", Long.valueOf(peakHeap));
+		result.put("markers", Integer.valueOf(markers));
+		return result;
+	}
+
+	/**
+	 * Runs a build of the project, traced into a directory of its own, and
+	 * returns the time spent on each file
+	 * 
+	 * @param name
+	 * @param kind
+	 * @return time spent, in nanoseconds, by path of file validated
+	 * @throws Exception
+	 */
+	private Map<String, Long> trace(final String name, final int kind) throws Exception {
+		final File traceDirectory = new File(BenchmarkSettings.getOutputDirectory(), "traces/" + name);
+		traceDirectory.mkdirs();
+		System.setProperty(TraceSummary.TRACE_DIRECTORY_PROPERTY, traceDirectory.getAbsolutePath());
+		try {
+			BuildThroughputBenchmark.workspace.getProject().build(kind, BenchmarkWorkspace.BUILDER_ID, null,
+					new NullProgressMonitor());
+		} finally {
+			System.clearProperty(TraceSummary.TRACE_DIRECTORY_PROPERTY);
+		}
+		return TraceSummary.getUnitLatencies(traceDirectory);
+	}
+
+	/**
+	 * Resets the peak usage of the heap memory pools
+	 */
+	private static void resetPeakHeap() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * @return the peak usage of the heap memory pools, since the last reset,
+	 *         in bytes
+	 */
+	private static long getPeakHeap() {
+		long peak = 0;
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+}
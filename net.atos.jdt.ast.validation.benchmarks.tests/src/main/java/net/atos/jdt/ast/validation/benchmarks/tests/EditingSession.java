@@ -0,0 +1,143 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import org.eclipse.jdt.core.IBuffer;
+
+/**
+ * Scripted editing session, replayed on the buffer of a working copy
+ * generated by {@link SyntheticSources}. Edits are deterministic, and go
+ * through cycles of {@value #EDITS_PER_CYCLE} edits, each of them on another
+ * method:
+ * <ol>
+ * <li>a statement is partially typed, leaving the source broken,</li>
+ * <li>the statement is completed,</li>
+ * <li>a condition, on which rules raise problems, is pasted,</li>
+ * <li>the condition is deleted,</li>
+ * <li>the statement is deleted, restoring the source.</li>
+ * </ol>
+ * 
+ * @since 1.2
+ */
+public class EditingSession {
+
+	/**
+	 * Number of edits of a cycle
+	 */
+	public static final int EDITS_PER_CYCLE = 5;
+
+	/**
+	 * Beginning of the statement, typed first
+	 */
+	private static final String STATEMENT_START = "\t\tthis.values.add(";
+
+	/**
+	 * Number of methods of the edited source
+	 */
+	private final int methods;
+
+	/**
+	 * Number of edits replayed
+	 */
+	private int edits;
+
+	/**
+	 * Creates new session, on a source with the number of methods provided
+	 * 
+	 * @param methods
+	 */
+	public EditingSession(final int methods) {
+		this.methods = Math.max(1, methods);
+	}
+
+	/**
+	 * Replays the next edit on the buffer
+	 * 
+	 * @param buffer
+	 */
+	public void next(final IBuffer buffer) {
+		final int cycle = this.edits / EditingSession.EDITS_PER_CYCLE;
+		final String anchor = "public int method" + (cycle % this.methods) + "(final String value) {\n";
+		final String statementEnd = "\"edit" + cycle + "\");\n";
+		final String condition = "\t\tif (value.isEmpty()) {\n\t\t\treturn " + cycle
+				+ ";\n\t\t} else {\n\t\t\tthis.counter = Integer.parseInt(value);\n\t\t}\n";
+		switch (this.edits % EditingSession.EDITS_PER_CYCLE) {
+		case 0:
+			EditingSession.insert(buffer, anchor, EditingSession.STATEMENT_START);
+			break;
+		case 1:
+			EditingSession.insert(buffer, anchor + EditingSession.STATEMENT_START, statementEnd);
+			break;
+		case 2:
+			EditingSession.insert(buffer, anchor, condition);
+			break;
+		case 3:
+			EditingSession.delete(buffer, anchor, condition);
+			break;
+		default:
+			EditingSession.delete(buffer, anchor, EditingSession.STATEMENT_START + statementEnd);
+			break;
+		}
+		this.edits++;
+	}
+
+	/**
+	 * Inserts text after the anchor
+	 * 
+	 * @param buffer
+	 * @param anchor
+	 * @param text
+	 */
+	private static void insert(final IBuffer buffer, final String anchor, final String text) {
+		buffer.replace(EditingSession.indexAfter(buffer, anchor), 0, text);
+	}
+
+	/**
+	 * Deletes text, located after the anchor
+	 * 
+	 * @param buffer
+	 * @param anchor
+	 * @param text
+	 */
+	private static void delete(final IBuffer buffer, final String anchor, final String text) {
+		final int offset = EditingSession.indexAfter(buffer, anchor);
+		if (!buffer.getContents().startsWith(text, offset)) {
+			throw new IllegalStateException("Edited text not found after: " + anchor);
+		}
+		buffer.replace(offset, text.length(), "");
+	}
+
+	/**
+	 * Returns the offset following the anchor
+	 * 
+	 * @param buffer
+	 * @param anchor
+	 * @return
+	 */
+	private static int indexAfter(final IBuffer buffer, final String anchor) {
+		final int index = buffer.getContents().indexOf(anchor);
+		if (index < 0) {
+			throw new IllegalStateException("Anchor not found: " + anchor);
+		}
+		return index + anchor.length();
+	}
+}
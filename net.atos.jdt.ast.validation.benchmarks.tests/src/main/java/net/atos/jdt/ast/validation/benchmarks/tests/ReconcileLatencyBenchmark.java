@@ -0,0 +1,221 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.benchmarks.tests.rules.BenchmarkRules;
+import net.atos.jdt.ast.validation.engine.ASTRulesPreferences;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Latency of the validation of a working copy, as the editor reconciles it:
+ * a scripted editing session (see {@link EditingSession}) is replayed on a
+ * working copy of a generated file, for growing numbers of rules, and the
+ * time from the start of each reconcile to the end of the reconcile, and to
+ * the update of the markers, is measured.
+ * 
+ * Rules are executed synchronously by the validation participant, on the
+ * thread that reconciles. The report gives, for each number of rules, the
+ * p50/p95/p99 latencies, and the smallest number of rules for which the p95
+ * reconcile latency exceeds the budget of {@link BenchmarkSettings}, from
+ * which typing is considered to lag. It is written to
+ * <code>reconcile-latency.json</code>, in the output directory of
+ * {@link BenchmarkSettings}.
+ * 
+ * @since 1.2
+ */
+public class ReconcileLatencyBenchmark {
+
+	/**
+	 * Name of the report
+	 */
+	private static final String REPORT_NAME = "reconcile-latency";
+
+	/**
+	 * Number of edits replayed before measuring, for each number of rules
+	 */
+	private static final int WARM_UP_EDITS = 2 * EditingSession.EDITS_PER_CYCLE;
+
+	/**
+	 * Generated workspace
+	 */
+	private static BenchmarkWorkspace workspace;
+
+	/**
+	 * Edited file
+	 */
+	private static IFile file;
+
+	/**
+	 * Time of the last update of the markers of the edited file, from
+	 * {@link System#nanoTime()}, or 0
+	 */
+	private static volatile long markersUpdate;
+
+	/**
+	 * Listener of the updates of the markers of the edited file
+	 */
+	private static final IResourceChangeListener MARKERS_LISTENER = new IResourceChangeListener() {
+		@Override
+		public void resourceChanged(final IResourceChangeEvent event) {
+			final IResourceDelta delta = event.getDelta() != null ? event.getDelta().findMember(
+					ReconcileLatencyBenchmark.file.getFullPath()) : null;
+			if ((delta != null) && ((delta.getFlags() & IResourceDelta.MARKERS) != 0)
+					&& (ReconcileLatencyBenchmark.markersUpdate == 0)) {
+				ReconcileLatencyBenchmark.markersUpdate = System.nanoTime();
+			}
+		}
+	};
+
+	/**
+	 * Generates the workspace, and enables the validation participant
+	 * 
+	 * @throws CoreException
+	 */
+	@BeforeClass
+	public static void setUp() throws CoreException {
+		BenchmarkWorkspace.setAutoBuilding(false);
+		ReconcileLatencyBenchmark.workspace = BenchmarkWorkspace.create("reconcile", BenchmarkSettings.getFiles(),
+				BenchmarkSettings.getMethods(), BenchmarkSettings.getDepth(), new NullProgressMonitor());
+		ReconcileLatencyBenchmark.file = ReconcileLatencyBenchmark.workspace.getFiles().get(0);
+		ASTRulesPreferences.enableValidationParticipant();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(ReconcileLatencyBenchmark.MARKERS_LISTENER,
+				IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Disables the validation participant, and deletes the workspace
+	 * 
+	 * @throws CoreException
+	 */
+	@AfterClass
+	public static void tearDown() throws CoreException {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(ReconcileLatencyBenchmark.MARKERS_LISTENER);
+		ASTRulesPreferences.disableValidationParticipant();
+		BenchmarkRules.setRules(0);
+		if (ReconcileLatencyBenchmark.workspace != null) {
+			ReconcileLatencyBenchmark.workspace.delete(new NullProgressMonitor());
+		}
+	}
+
+	/**
+	 * Replays the editing session for each number of rules, and writes the
+	 * report
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void reconcileLatency() throws Exception {
+		final int budget = BenchmarkSettings.getLatencyBudget();
+		final BenchmarkReport report = new BenchmarkReport(ReconcileLatencyBenchmark.REPORT_NAME)
+				.withSetting("files", Integer.valueOf(BenchmarkSettings.getFiles()))
+				.withSetting("methods", Integer.valueOf(BenchmarkSettings.getMethods()))
+				.withSetting("edits", Integer.valueOf(BenchmarkSettings.getEdits()))
+				.withSetting("budgetMillis", Integer.valueOf(budget));
+
+		Integer laggingRules = null;
+		for (final int requestedRules : BenchmarkSettings.getReconcileRules()) {
+			final int rules = BenchmarkRules.setRules(requestedRules);
+			final Map<String, Object> result = this.replay(report, rules);
+			if ((laggingRules == null) && (Boolean.TRUE.equals(result.get("lagging")))) {
+				laggingRules = Integer.valueOf(rules);
+			}
+			if (rules > 0) {
+				Assert.assertTrue("Markers are created by the participant", ReconcileLatencyBenchmark.file.findMarkers(
+						BenchmarkWorkspace.MARKER_ID, true, IResource.DEPTH_ZERO).length > 0);
+			}
+		}
+		report.withSummary("laggingFromRules", laggingRules);
+
+		report.write(BenchmarkSettings.getOutputDirectory());
+	}
+
+	/**
+	 * Replays the editing session on a new working copy of the file, and adds
+	 * the result to the report
+	 * 
+	 * @param report
+	 * @param rules
+	 *            number of rules executed
+	 * @return the result
+	 * @throws CoreException
+	 */
+	private Map<String, Object> replay(final BenchmarkReport report, final int rules) throws CoreException {
+		final List<Long> reconcileLatencies = new ArrayList<Long>();
+		final List<Long> markersLatencies = new ArrayList<Long>();
+		final EditingSession session = new EditingSession(BenchmarkSettings.getMethods());
+		final int edits = ReconcileLatencyBenchmark.WARM_UP_EDITS + BenchmarkSettings.getEdits();
+		final ICompilationUnit workingCopy = (ICompilationUnit) JavaCore.create(ReconcileLatencyBenchmark.file);
+		workingCopy.becomeWorkingCopy(new NullProgressMonitor());
+		try {
+			for (int edit = 0; edit < edits; edit++) {
+				session.next(workingCopy.getBuffer());
+				ReconcileLatencyBenchmark.markersUpdate = 0;
+				final long start = System.nanoTime();
+				// As the Java editor does
+				workingCopy.reconcile(AST.JLS4, true, null, new NullProgressMonitor());
+				final long end = System.nanoTime();
+				if (edit >= ReconcileLatencyBenchmark.WARM_UP_EDITS) {
+					reconcileLatencies.add(Long.valueOf(end - start));
+					if (ReconcileLatencyBenchmark.markersUpdate != 0) {
+						markersLatencies.add(Long.valueOf(ReconcileLatencyBenchmark.markersUpdate - start));
+					}
+				}
+			}
+		} finally {
+			workingCopy.discardWorkingCopy();
+		}
+
+		final Map<String, Object> reconcilePercentiles = BenchmarkReport.getPercentiles(reconcileLatencies, 50, 95,
+				99);
+		final long p95 = ((Long) reconcilePercentiles.get("p95")).longValue();
+		final Map<String, Object> result = report.addResult();
+		result.put("rules", Integer.valueOf(rules));
+		result.put("reconcileMicros", reconcilePercentiles);
+		result.put("markersUpdates", Integer.valueOf(markersLatencies.size()));
+		result.put("markersMicros", BenchmarkReport.getPercentiles(markersLatencies, 50, 95, 99));
+		result.put("markers", Integer.valueOf(ReconcileLatencyBenchmark.file.findMarkers(BenchmarkWorkspace.MARKER_ID,
+				true, IResource.DEPTH_ZERO).length));
+		result.put("lagging", Boolean.valueOf(p95 > (BenchmarkSettings.getLatencyBudget() * 1000L)));
+		return result;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+/**
+ * Generates synthetic Java sources. Sources are deterministic: the same size
+ * always produces the same source. They have the same shape as the ones of
+ * the JMH micro-benchmarks, so that all the benchmarks measure the same code.
+ * 
+ * @since 1.2
+ */
+public final class SyntheticSources {
+
+	/**
+	 * Private constructor
+	 */
+	private SyntheticSources() {
+	}
+
+	/**
+	 * Generates the source of a class, with the number of methods provided.
+	 * Each method holds fields accesses, invocations, loops, conditions and
+	 * string literals, documented with Javadoc.
+	 * 
+	 * @param packageName
+	 * @param className
+	 * @param methods
+	 * @return
+	 */
+	public static String generate(final String packageName, final String className, final int methods) {
+		final StringBuilder builder = new StringBuilder(methods * 512);
+		builder.append("package ").append(packageName).append(";\n\n");
+		builder.append("import java.util.ArrayList;\nimport java.util.List;\n\n");
+		builder.append("/**\n * Synthetic class\n */\n");
+		builder.append("public class ").append(className).append(" {\n\n");
+		builder.append("\tprivate final List<String> values = new ArrayList<String>();\n\n");
+		builder.append("\tprivate int counter;\n\n");
+		for (int method = 0; method < methods; method++) {
+			builder.append("\t/**\n\t * Method ").append(method).append("\n\t * \n\t * @param value\n");
+			builder.append("\t * @return\n\t */\n");
+			builder.append("\tpublic int method").append(method).append("(final String value) {\n");
+			builder.append("\t\tint result = this.counter + ").append(method).append(";\n");
+			builder.append("\t\tfor (int index = 0; index < value.length(); index++) {\n");
+			builder.append("\t\t\tif (value.charAt(index) == 'a') {\n");
+			builder.append("\t\t\t\tresult += index * 2;\n");
+			builder.append("\t\t\t} else {\n");
+			builder.append("\t\t\t\tthis.values.add(\"value\" + index);\n");
+			builder.append("\t\t\t}\n\t\t}\n");
+			builder.append("\t\ttry {\n");
+			builder.append("\t\t\tresult += Integer.parseInt(value);\n");
+			builder.append("\t\t} catch (final NumberFormatException e) {\n");
+			builder.append("\t\t\tthis.counter++;\n");
+			builder.append("\t\t}\n");
+			builder.append("\t\treturn result + this.values.size();\n");
+			builder.append("\t}\n\n");
+		}
+		builder.append("}\n");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the trace files written by the engine while the builds run, to
+ * compute the time spent on each compilation unit: evaluation of the
+ * contexts, parsing, and visit of the rules. Time spent writing the markers
+ * is shared by all the units of a run, and is not included. Units that are
+ * neither parsed nor visited, e.g. because no rule runs on them, are not
+ * included either, though their contexts are evaluated.
+ * 
+ * The engine writes one event per line, so that the files are read line by
+ * line, without JSON parser.
+ * 
+ * @since 1.2
+ */
+public final class TraceSummary {
+
+	/**
+	 * System property naming the directory where the engine writes the
+	 * traces
+	 */
+	public static final String TRACE_DIRECTORY_PROPERTY = "net.atos.jdt.ast.validation.trace";
+
+	/**
+	 * Span of a unit: category, duration in microseconds, and unit
+	 */
+	private static final Pattern UNIT_SPAN = Pattern
+			.compile("\"cat\":\"(context|parse|visit)\".*\"dur\":([0-9.]+).*\"unit\":\"([^\"]*)\"");
+
+	/**
+	 * Argument only held by the spans of each rule, that are included in the
+	 * span of the visit of the unit
+	 */
+	private static final String RULE_SPAN_ARGUMENT = "\"repository\":";
+
+	/**
+	 * Category of the spans of the units that are only evaluated
+	 */
+	private static final String CONTEXT_CATEGORY = "context";
+
+	/**
+	 * Private constructor
+	 */
+	private TraceSummary() {
+	}
+
+	/**
+	 * Returns the time spent on each unit parsed or visited, in the trace
+	 * files of the directory
+	 * 
+	 * @param directory
+	 * @return time spent, in nanoseconds, by path of unit
+	 * @throws IOException
+	 */
+	public static Map<String, Long> getUnitLatencies(final File directory) throws IOException {
+		final Map<String, Long> latencies = new LinkedHashMap<String, Long>();
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return latencies;
+		}
+		final Set<String> validatedUnits = new HashSet<String>();
+		for (final File file : files) {
+			if (file.getName().endsWith(".json")) {
+				TraceSummary.read(file, latencies, validatedUnits);
+			}
+		}
+		for (final Iterator<String> iterator = latencies.keySet().iterator(); iterator.hasNext();) {
+			if (!validatedUnits.contains(iterator.next())) {
+				iterator.remove();
+			}
+		}
+		return latencies;
+	}
+
+	/**
+	 * Adds the time spent on each unit in the trace file to the latencies
+	 * 
+	 * @param file
+	 * @param latencies
+	 * @param validatedUnits
+	 *            units parsed or visited, filled while reading
+	 * @throws IOException
+	 */
+	private static void read(final File file, final Map<String, Long> latencies, final Set<String> validatedUnits)
+			throws IOException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.contains(TraceSummary.RULE_SPAN_ARGUMENT)) {
+					continue;
+				}
+				final Matcher matcher = TraceSummary.UNIT_SPAN.matcher(line);
+				if (matcher.find()) {
+					final long nanos = Math.round(Double.parseDouble(matcher.group(2)) * 1000);
+					final String unit = matcher.group(3);
+					if (!TraceSummary.CONTEXT_CATEGORY.equals(matcher.group(1))) {
+						validatedUnits.add(unit);
+					}
+					final Long latency = latencies.get(unit);
+					latencies.put(unit, Long.valueOf(latency != null ? latency.longValue() + nanos : nanos));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests.rules;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.atos.jdt.ast.validation.engine.rules.ASTRuleRequirements;
+
+import org.eclipse.core.runtime.ContributorFactoryOSGi;
+import org.eclipse.core.runtime.IContributor;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Contributes the benchmark rules to the validation engine, at runtime,
+ * through the extension registry, so that any number of rules can be
+ * benchmarked.
+ * 
+ * Rules are contributed in repositories of up to
+ * {@value #RULES_PER_REPOSITORY} rules, that only apply to the generated
+ * projects (see {@link BenchmarkRulesContext}). Each rule is an instance of one of
+ * the benchmark rule classes, taken in turn. Rule classes declare their real
+ * needs: none of them resolves bindings, so that the units they run on are
+ * parsed without bindings, and cached.
+ * 
+ * Contributions are made without registry token, which requires the
+ * <code>eclipse.registry.nulltoken</code> system property to be true, as set
+ * by the build of the benchmarks.
+ * 
+ * @since 1.2
+ */
+public final class BenchmarkRules {
+
+	/**
+	 * Maximum number of rules in a repository
+	 */
+	public static final int RULES_PER_REPOSITORY = 25;
+
+	/**
+	 * Identifier of the extension point of the rules
+	 */
+	private static final String EXTENSION_POINT_ID = "net.atos.jdt.ast.validation.engine.ASTValidationRules";
+
+	/**
+	 * Simple identifier of the contributed extension
+	 */
+	private static final String EXTENSION_ID = "benchmarkRules";
+
+	/**
+	 * Time to wait for the engine to be notified of a contribution change, in
+	 * seconds
+	 */
+	private static final long NOTIFICATION_TIMEOUT = 60;
+
+	/**
+	 * Rule classes, instantiated in turn
+	 */
+	private static final Class<?>[] RULE_CLASSES = { MethodDeclarationRule.class, MethodInvocationRule.class,
+			SimpleNameRule.class, IfStatementRule.class, StringLiteralRule.class };
+
+	/**
+	 * Private constructor
+	 */
+	private BenchmarkRules() {
+	}
+
+	/**
+	 * Replaces the contributed rules by the number of rules provided. Returns
+	 * once the engine has been notified of the change.
+	 * 
+	 * @param rules
+	 *            number of rules, 0 to remove all of them
+	 * @return the number of rules contributed
+	 */
+	public static int setRules(final int rules) {
+		final IExtensionRegistry registry = Platform.getExtensionRegistry();
+		final IContributor contributor = ContributorFactoryOSGi.createContributor(FrameworkUtil
+				.getBundle(BenchmarkRules.class));
+		final IExtension extension = registry.getExtension(contributor.getName() + "."
+				+ BenchmarkRules.EXTENSION_ID);
+		if (extension != null) {
+			final ChangeListener listener = new ChangeListener();
+			registry.addListener(listener, BenchmarkRules.EXTENSION_POINT_ID);
+			try {
+				registry.removeExtension(extension, null);
+				listener.await();
+			} finally {
+				registry.removeListener(listener);
+			}
+		}
+		if (rules <= 0) {
+			return 0;
+		}
+		final ChangeListener listener = new ChangeListener();
+		registry.addListener(listener, BenchmarkRules.EXTENSION_POINT_ID);
+		try {
+			final byte[] contribution;
+			try {
+				contribution = BenchmarkRules.toXml(contributor.getName(), rules).getBytes("UTF-8");
+			} catch (final UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+			if (!registry.addContribution(new ByteArrayInputStream(contribution), contributor, false,
+					BenchmarkRules.EXTENSION_ID, null, null)) {
+				throw new IllegalStateException("Benchmark rules could not be contributed");
+			}
+			listener.await();
+		} finally {
+			registry.removeListener(listener);
+		}
+		return rules;
+	}
+
+	/**
+	 * Returns whether at least one of the rules contributed for the number of
+	 * rules provided resolves bindings
+	 * 
+	 * @param rules
+	 *            number of rules
+	 * @return
+	 */
+	public static boolean resolveBindings(final int rules) {
+		for (int rule = 0; (rule < rules) && (rule < BenchmarkRules.RULE_CLASSES.length); rule++) {
+			final ASTRuleRequirements requirements = BenchmarkRules.RULE_CLASSES[rule]
+					.getAnnotation(ASTRuleRequirements.class);
+			if ((requirements == null) || requirements.bindings()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the contribution of the rules, as plugin.xml contents
+	 * 
+	 * @param namespace
+	 *            namespace of the contributor
+	 * @param rules
+	 *            number of rules
+	 * @return
+	 */
+	private static String toXml(final String namespace, final int rules) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<?eclipse version=\"3.4\"?>\n<plugin>\n");
+		builder.append("   <extension id=\"").append(BenchmarkRules.EXTENSION_ID).append("\" point=\"")
+				.append(BenchmarkRules.EXTENSION_POINT_ID).append("\">\n");
+		for (int rule = 0; rule < rules; rule++) {
+			final int repository = rule / BenchmarkRules.RULES_PER_REPOSITORY;
+			if ((rule % BenchmarkRules.RULES_PER_REPOSITORY) == 0) {
+				if (rule > 0) {
+					builder.append("      </repository>\n");
+				}
+				builder.append("      <repository id=\"").append(namespace).append(".repository").append(repository)
+						.append("\" name=\"Benchmark rules ").append(repository).append("\">\n");
+				builder.append("         <context implementation=\"").append(BenchmarkRulesContext.class.getName())
+						.append("\"/>\n");
+			}
+			final Class<?> ruleClass = BenchmarkRules.RULE_CLASSES[rule % BenchmarkRules.RULE_CLASSES.length];
+			builder.append("         <rule description=\"").append(ruleClass.getSimpleName()).append(' ')
+					.append(rule).append("\" implementation=\"").append(ruleClass.getName())
+					.append("\" mandatory=\"true\"/>\n");
+		}
+		builder.append("      </repository>\n   </extension>\n</plugin>\n");
+		return builder.toString();
+	}
+
+	/**
+	 * Listener of the changes of the contributions to the extension point of
+	 * the rules. Listeners are notified in the order of their registration:
+	 * the engine, if it listened before, has been notified when this listener
+	 * is, and reads the new contributions otherwise.
+	 */
+	private static final class ChangeListener implements IRegistryEventListener {
+
+		/**
+		 * Released when a change is notified
+		 */
+		private final CountDownLatch notified = new CountDownLatch(1);
+
+		/**
+		 * Waits for a change to be notified
+		 */
+		public void await() {
+			try {
+				if (!this.notified.await(BenchmarkRules.NOTIFICATION_TIMEOUT, TimeUnit.SECONDS)) {
+					throw new IllegalStateException("Change of the benchmark rules has not been notified");
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.eclipse.core.runtime.IRegistryEventListener#added(org.eclipse
+		 * .core.runtime.IExtension[])
+		 */
+		@Override
+		public void added(final IExtension[] extensions) {
+			this.notified.countDown();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.eclipse.core.runtime.IRegistryEventListener#removed(org.eclipse
+		 * .core.runtime.IExtension[])
+		 */
+		@Override
+		public void removed(final IExtension[] extensions) {
+			this.notified.countDown();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.eclipse.core.runtime.IRegistryEventListener#added(org.eclipse
+		 * .core.runtime.IExtensionPoint[])
+		 */
+		@Override
+		public void added(final IExtensionPoint[] extensionPoints) {
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.eclipse.core.runtime.IRegistryEventListener#removed(org.eclipse
+		 * .core.runtime.IExtensionPoint[])
+		 */
+		@Override
+		public void removed(final IExtensionPoint[] extensionPoints) {
+		}
+	}
+}
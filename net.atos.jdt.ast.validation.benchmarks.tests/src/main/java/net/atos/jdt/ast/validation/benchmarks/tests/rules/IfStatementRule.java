@@ -0,0 +1,49 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks.tests.rules;
+
+import net.atos.jdt.ast.validation.engine.rules.ASTRuleRequirements;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.jdt.core.dom.IfStatement;
+
+/**
+ * Raises a warning on the conditions with else clause
+ * 
+ * @since 1.2
+ */
+@ASTRuleRequirements
+public class IfStatementRule extends AbstractASTRule {
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom.IfStatement)
+	 */
+	@Override
+	public boolean visit(final IfStatement node) {
+		if (node.getElseStatement() != null) {
+			this.addWarningMarker(node, "Else clause");
+		}
+		return true;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
+import net.atos.jdt.ast.validation.engine.rules.ASTMessageTemplate;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Creation of the problems raised by a rule, through addMarker, and
+ * construction of the attributes of the matching markers. The rule raises a
+ * problem on each name of the AST.
+ * 
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProblemsBenchmark {
+
+	/**
+	 * True to raise the problems from a message template, false from a plain
+	 * message
+	 */
+	@Param({ "false", "true" })
+	private boolean template;
+
+	/**
+	 * AST the problems are raised on
+	 */
+	private CompilationUnit compilationUnit;
+
+	/**
+	 * Rule raising the problems
+	 */
+	private ProblemRule rule;
+
+	/**
+	 * Problems raised by the rule, for the construction of the attributes
+	 */
+	private List<ASTValidationProblem> problems;
+
+	/**
+	 * Parses the source, and raises the problems once
+	 */
+	@Setup
+	public void setUp() {
+		this.compilationUnit = SyntheticSources.parse("Checked", SyntheticSources.generate("Checked", 50), false);
+		this.rule = new ProblemRule(this.template);
+		this.compilationUnit.accept(this.rule);
+		this.problems = this.rule.getProblems();
+	}
+
+	/**
+	 * Raises the problems, without materializing them
+	 * 
+	 * @return the rule, holding the problems raised
+	 */
+	@Benchmark
+	public AbstractASTRule addMarker() {
+		this.compilationUnit.accept(this.rule);
+		return this.rule;
+	}
+
+	/**
+	 * Raises the problems, and materializes them, as done before publishing
+	 * the markers
+	 * 
+	 * @return the problems raised
+	 */
+	@Benchmark
+	public List<ASTValidationProblem> addMarkerAndGetProblems() {
+		this.compilationUnit.accept(this.rule);
+		return this.rule.getProblems();
+	}
+
+	/**
+	 * Builds the attributes of the markers matching the problems
+	 * 
+	 * @param blackhole
+	 */
+	@Benchmark
+	public void markerAttributes(final Blackhole blackhole) {
+		for (final ASTValidationProblem problem : this.problems) {
+			blackhole.consume(problem.getMarkerAttributes());
+		}
+	}
+
+	/**
+	 * Rule raising a warning on each name
+	 */
+	public static class ProblemRule extends AbstractASTRule {
+
+		/**
+		 * Template of the message
+		 */
+		private static final ASTMessageTemplate TEMPLATE = new ASTMessageTemplate(1, "Name {0} is used");
+
+		/**
+		 * True to raise the problems from the template
+		 */
+		private final boolean template;
+
+		/**
+		 * Creates new rule
+		 * 
+		 * @param template
+		 */
+		public ProblemRule(final boolean template) {
+			this.template = template;
+		}
+
+		@Override
+		public boolean visit(final SimpleName node) {
+			if (this.template) {
+				this.addWarningMarker(node, ProblemRule.TEMPLATE, node.getIdentifier());
+			} else {
+				this.addWarningMarker(node, "Name is used");
+			}
+			return true;
+		}
+	}
+}
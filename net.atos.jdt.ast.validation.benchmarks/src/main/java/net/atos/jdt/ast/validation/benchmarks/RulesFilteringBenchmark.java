@@ -0,0 +1,122 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.ASTRulesRepository;
+import net.atos.jdt.ast.validation.engine.rules.AbstractProjectContext;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Selection of the rules of a repository that apply to a compilation unit.
+ * 
+ * Rules are mandatory, as the enablement of the optional ones is read from
+ * the preferences, that are not available outside of the platform. The
+ * compilation unit is a stub, outside of any project.
+ * 
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesFilteringBenchmark {
+
+	/**
+	 * Number of rules of the repository
+	 */
+	@Param({ "10", "100" })
+	private int rules;
+
+	/**
+	 * True if the context of the repository accepts the unit
+	 */
+	@Param({ "true", "false" })
+	private boolean accepted;
+
+	/**
+	 * Repository whose rules are selected
+	 */
+	private ASTRulesRepository repository;
+
+	/**
+	 * Compilation unit the rules are selected for
+	 */
+	private ICompilationUnit compilationUnit;
+
+	/**
+	 * Creates the repository, and the compilation unit
+	 */
+	@Setup
+	public void setUp() {
+		this.repository = new ASTRulesRepository("synthetic", "net.atos.synthetic.marker");
+		this.repository.setContext(new AbstractProjectContext() {
+			@Override
+			public boolean validate(final ICompilationUnit compilationUnit) {
+				return RulesFilteringBenchmark.this.accepted;
+			}
+		});
+		for (final ASTRuleDescriptor descriptor : SyntheticRules.createDescriptors(this.rules)) {
+			this.repository.registerRule(descriptor);
+		}
+		this.compilationUnit = (ICompilationUnit) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+				new Class<?>[] { ICompilationUnit.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] args) {
+						if ("hashCode".equals(method.getName())) {
+							return System.identityHashCode(proxy);
+						} else if ("equals".equals(method.getName())) {
+							return proxy == args[0];
+						}
+						return null;
+					}
+				});
+	}
+
+	/**
+	 * @return the rules that apply to the unit
+	 */
+	@Benchmark
+	public Set<ASTRuleDescriptor> getRules() {
+		return this.repository.getRules(this.compilationUnit);
+	}
+}
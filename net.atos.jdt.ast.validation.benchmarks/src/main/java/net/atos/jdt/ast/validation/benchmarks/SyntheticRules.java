@@ -0,0 +1,166 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.AbstractASTRuleFactory;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.jdt.core.dom.IfStatement;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.StringLiteral;
+
+/**
+ * Synthetic rules, representative of the real ones: each of them visits a
+ * kind of node, and raises a problem on some of them.
+ * 
+ * @since 1.2
+ */
+public final class SyntheticRules {
+
+	/**
+	 * Private constructor
+	 */
+	private SyntheticRules() {
+	}
+
+	/**
+	 * Creates rules, cycling through the synthetic rule classes
+	 * 
+	 * @param count
+	 * @return
+	 */
+	public static AbstractASTRule[] createRules(final int count) {
+		final AbstractASTRule[] rules = new AbstractASTRule[count];
+		for (int index = 0; index < count; index++) {
+			rules[index] = SyntheticRules.createRule(index);
+		}
+		return rules;
+	}
+
+	/**
+	 * Creates rule descriptors, mandatory so that they are not filtered by
+	 * the preferences, cycling through the synthetic rule classes
+	 * 
+	 * @param count
+	 * @return
+	 */
+	public static ASTRuleDescriptor[] createDescriptors(final int count) {
+		final ASTRuleDescriptor[] descriptors = new ASTRuleDescriptor[count];
+		for (int index = 0; index < count; index++) {
+			final int ruleIndex = index;
+			descriptors[index] = new ASTRuleDescriptor("Synthetic rule " + index, new AbstractASTRuleFactory() {
+				@Override
+				public AbstractASTRule create() {
+					return SyntheticRules.createRule(ruleIndex);
+				}
+			}, true);
+		}
+		return descriptors;
+	}
+
+	/**
+	 * Creates the rule at index, cycling through the synthetic rule classes
+	 * 
+	 * @param index
+	 * @return
+	 */
+	private static AbstractASTRule createRule(final int index) {
+		switch (index % 5) {
+		case 0:
+			return new MethodDeclarationRule();
+		case 1:
+			return new MethodInvocationRule();
+		case 2:
+			return new SimpleNameRule();
+		case 3:
+			return new IfStatementRule();
+		default:
+			return new StringLiteralRule();
+		}
+	}
+
+	/**
+	 * Raises a warning on the public methods
+	 */
+	public static class MethodDeclarationRule extends AbstractASTRule {
+		@Override
+		public boolean visit(final MethodDeclaration node) {
+			if ((node.getModifiers() & Modifier.PUBLIC) != 0) {
+				this.addWarningMarker(node.getName(), "Public method");
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Raises an error on the invocations of a given method
+	 */
+	public static class MethodInvocationRule extends AbstractASTRule {
+		@Override
+		public boolean visit(final MethodInvocation node) {
+			if ("parseInt".equals(node.getName().getIdentifier())) {
+				this.addErrorMarker(node, "Unchecked parsing");
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Raises an info on a given name
+	 */
+	public static class SimpleNameRule extends AbstractASTRule {
+		@Override
+		public boolean visit(final SimpleName node) {
+			if ("counter".equals(node.getIdentifier())) {
+				this.addInfoMarker(node, "Counter used");
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Raises a warning on the conditions with else clause
+	 */
+	public static class IfStatementRule extends AbstractASTRule {
+		@Override
+		public boolean visit(final IfStatement node) {
+			if (node.getElseStatement() != null) {
+				this.addWarningMarker(node, "Else clause");
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Does not raise any problem, only visits the literals
+	 */
+	public static class StringLiteralRule extends AbstractASTRule {
+		@Override
+		public boolean visit(final StringLiteral node) {
+			return node.getLiteralValue().isEmpty();
+		}
+	}
+}
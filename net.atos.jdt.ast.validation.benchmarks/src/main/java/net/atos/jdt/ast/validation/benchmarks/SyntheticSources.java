@@ -0,0 +1,120 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Generates synthetic Java sources, and parses them in memory, without
+ * workspace, so that the benchmarks run headless on any machine.
+ * 
+ * Sources are deterministic: the same size always produces the same source.
+ * They have the same shape as the ones of the workspace benchmarks, so that
+ * both measure the same code, while this module stays a plain jar.
+ * 
+ * @since 1.2
+ */
+public final class SyntheticSources {
+
+	/**
+	 * Package of the generated classes
+	 */
+	public static final String PACKAGE_NAME = "net.atos.synthetic";
+
+	/**
+	 * Private constructor
+	 */
+	private SyntheticSources() {
+	}
+
+	/**
+	 * Generates the source of a class, with the number of methods provided.
+	 * Each method holds fields accesses, invocations, loops, conditions and
+	 * string literals, documented with Javadoc.
+	 * 
+	 * @param className
+	 * @param methods
+	 * @return
+	 */
+	public static String generate(final String className, final int methods) {
+		final StringBuilder builder = new StringBuilder(methods * 512);
+		builder.append("package ").append(SyntheticSources.PACKAGE_NAME).append(";\n\n");
+		builder.append("import java.util.ArrayList;\nimport java.util.List;\n\n");
+		builder.append("/**\n * Synthetic class\n */\n");
+		builder.append("public class ").append(className).append(" {\n\n");
+		builder.append("\tprivate final List<String> values = new ArrayList<String>();\n\n");
+		builder.append("\tprivate int counter;\n\n");
+		for (int method = 0; method < methods; method++) {
+			builder.append("\t/**\n\t * Method ").append(method).append("\n\t * \n\t * @param value\n");
+			builder.append("\t * @return\n\t */\n");
+			builder.append("\tpublic int method").append(method).append("(final String value) {\n");
+			builder.append("\t\tint result = this.counter + ").append(method).append(";\n");
+			builder.append("\t\tfor (int index = 0; index < value.length(); index++) {\n");
+			builder.append("\t\t\tif (value.charAt(index) == 'a') {\n");
+			builder.append("\t\t\t\tresult += index * 2;\n");
+			builder.append("\t\t\t} else {\n");
+			builder.append("\t\t\t\tthis.values.add(\"value\" + index);\n");
+			builder.append("\t\t\t}\n\t\t}\n");
+			builder.append("\t\ttry {\n");
+			builder.append("\t\t\tresult += Integer.parseInt(value);\n");
+			builder.append("\t\t} catch (final NumberFormatException e) {\n");
+			builder.append("\t\t\tthis.counter++;\n");
+			builder.append("\t\t}\n");
+			builder.append("\t\treturn result + this.values.size();\n");
+			builder.append("\t}\n\n");
+		}
+		builder.append("}\n");
+		return builder.toString();
+	}
+
+	/**
+	 * Parses the source of a class generated by
+	 * {@link #generate(String, int)}
+	 * 
+	 * @param className
+	 * @param source
+	 * @param bindings
+	 *            true to resolve the bindings, against the running JVM
+	 * @return
+	 */
+	public static CompilationUnit parse(final String className, final String source, final boolean bindings) {
+		final ASTParser parser = ASTParser.newParser(AST.JLS4);
+		final Map<String, String> options = new HashMap<String, String>();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_6, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		if (bindings) {
+			parser.setUnitName("/synthetic/" + SyntheticSources.PACKAGE_NAME.replace('.', '/') + "/" + className
+					+ ".java");
+			parser.setEnvironment(new String[0], new String[0], null, true);
+			parser.setResolveBindings(true);
+		}
+		return (CompilationUnit) parser.createAST(null);
+	}
+}
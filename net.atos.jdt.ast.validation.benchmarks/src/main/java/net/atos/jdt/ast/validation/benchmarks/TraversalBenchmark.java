@@ -0,0 +1,126 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.atos.jdt.ast.validation.engine.internal.visitor.ASTMultiplexingVisitor;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Execution of one or many rules on an AST: either within a single walk of
+ * the tree, as the engine does, or with one walk per rule.
+ * 
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+
+	/**
+	 * Number of rules executed
+	 */
+	@Param({ "1", "10", "50" })
+	private int rules;
+
+	/**
+	 * Number of methods of the visited class
+	 */
+	@Param({ "200" })
+	private int methods;
+
+	/**
+	 * AST to visit
+	 */
+	private CompilationUnit compilationUnit;
+
+	/**
+	 * Rules to execute
+	 */
+	private AbstractASTRule[] ruleInstances;
+
+	/**
+	 * Parses the source, and creates the rules
+	 */
+	@Setup
+	public void setUp() {
+		this.compilationUnit = SyntheticSources.parse("Visited",
+				SyntheticSources.generate("Visited", this.methods), false);
+		this.ruleInstances = SyntheticRules.createRules(this.rules);
+	}
+
+	/**
+	 * Executes the rules within a single walk of the tree
+	 * 
+	 * @param blackhole
+	 */
+	@Benchmark
+	public void multiplexed(final Blackhole blackhole) {
+		final ASTMultiplexingVisitor visitor = new ASTMultiplexingVisitor(this.ruleInstances);
+		this.compilationUnit.accept(visitor);
+		blackhole.consume(visitor.getVisitedNodes());
+		this.consumeProblems(blackhole);
+	}
+
+	/**
+	 * Executes the rules with one walk of the tree per rule
+	 * 
+	 * @param blackhole
+	 */
+	@Benchmark
+	public void sequential(final Blackhole blackhole) {
+		for (final AbstractASTRule rule : this.ruleInstances) {
+			this.compilationUnit.accept(rule);
+		}
+		this.consumeProblems(blackhole);
+	}
+
+	/**
+	 * Consumes the rules, holding the problems raised, so that the visits are
+	 * not eliminated
+	 * 
+	 * @param blackhole
+	 */
+	private void consumeProblems(final Blackhole blackhole) {
+		for (final AbstractASTRule rule : this.ruleInstances) {
+			blackhole.consume(rule);
+		}
+	}
+}
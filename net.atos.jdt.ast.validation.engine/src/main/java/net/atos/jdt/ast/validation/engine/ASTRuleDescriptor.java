@@ -23,7 +23,16 @@ package net.atos.jdt.ast.validation.engine;
 
 import java.util.UUID;
 
+import net.atos.jdt.ast.validation.engine.internal.visitor.ASTStatelessRuleVisitor;
+import net.atos.jdt.ast.validation.engine.internal.visitor.ASTVisitMethods;
+import net.atos.jdt.ast.validation.engine.rules.ASTRuleRequirements;
+import net.atos.jdt.ast.validation.engine.rules.ASTVisitContext;
 import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+import net.atos.jdt.ast.validation.engine.rules.AbstractStatelessASTRule;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 
 /**
  * Rules Descriptor Contains rule implementation & some information about it...
@@ -48,6 +57,21 @@ public class ASTRuleDescriptor {
 	 */
 	private final AbstractASTRule singletonRule;
 
+	/**
+	 * Stateless rule implementation, shared by all the executions, or null
+	 */
+	private final AbstractStatelessASTRule statelessRule;
+
+	/**
+	 * Node types visited by the stateless rule, as flags indexed by node type
+	 */
+	private final boolean[] statelessNodeTypes;
+
+	/**
+	 * Rule implementation class
+	 */
+	private final Class<?> ruleClass;
+
 	/**
 	 * Rule implementation
 	 */
@@ -63,6 +87,21 @@ public class ASTRuleDescriptor {
 	 */
 	private final boolean mandatory;
 
+	/**
+	 * Requirements declared by the rule, or null if rule needs everything
+	 */
+	private final ASTRuleRequirements requirements;
+
+	/**
+	 * Version of the bundle providing the rule
+	 */
+	private final String ruleVersion;
+
+	/**
+	 * Rule instances owned by the threads, in pooled mode
+	 */
+	private final ThreadLocal<AbstractASTRule> pooledRules = new ThreadLocal<AbstractASTRule>();
+
 	/**
 	 * Create Rule Descriptor
 	 * 
@@ -77,7 +116,51 @@ public class ASTRuleDescriptor {
 		this.ruleFactory = ruleFactory;
 		this.singletonRule = this.createRule();
 		this.singletonRule.setRuleDescriptor(this);
+		this.statelessRule = null;
+		this.statelessNodeTypes = null;
+		this.ruleClass = this.singletonRule.getClass();
+		this.mandatory = mandatory;
+		// Rule class is introspected once, at load time, for the dispatching
+		// of the visits and the parser configuration
+		ASTVisitMethods.forClass(this.singletonRule.getClass());
+		this.requirements = this.ruleClass.getAnnotation(ASTRuleRequirements.class);
+		this.ruleVersion = ASTRuleDescriptor.getVersion(this.ruleClass);
+	}
+
+	/**
+	 * Create Rule Descriptor, for a stateless rule, whose instance is shared by
+	 * all the executions
+	 * 
+	 * @param description
+	 * @param statelessRule
+	 * @param mandatory
+	 * @since 1.2
+	 */
+	public ASTRuleDescriptor(final String description, final AbstractStatelessASTRule statelessRule,
+			final boolean mandatory) {
+		this.id = UUID.randomUUID().toString();
+		this.description = description != null ? description : "";
+		this.ruleFactory = null;
+		this.singletonRule = null;
+		this.statelessRule = statelessRule;
+		// Declared node types are read once, at load time
+		this.statelessNodeTypes = ASTStatelessRuleVisitor.toFlags(statelessRule.getNodeTypes());
+		this.ruleClass = statelessRule.getClass();
 		this.mandatory = mandatory;
+		this.requirements = this.ruleClass.getAnnotation(ASTRuleRequirements.class);
+		this.ruleVersion = ASTRuleDescriptor.getVersion(this.ruleClass);
+	}
+
+	/**
+	 * Returns the version of the bundle that provides the class, or an empty
+	 * string
+	 * 
+	 * @param ruleClass
+	 * @return
+	 */
+	private static String getVersion(final Class<?> ruleClass) {
+		final Bundle bundle = FrameworkUtil.getBundle(ruleClass);
+		return bundle != null ? bundle.getVersion().toString() : "";
 	}
 
 	/**
@@ -95,16 +178,88 @@ public class ASTRuleDescriptor {
 	}
 
 	/**
-	 * @return rule
+	 * @return rule, or null if the rule is stateless (see
+	 *         {@link #getStatelessRule()})
 	 */
 	public AbstractASTRule getRule() {
-		if (ASTRulesPreferences.areRulesSingletons()) {
+		return this.getRule(ASTRulesPreferences.areRulesPooled(), ASTRulesPreferences.areRulesSingletons());
+	}
+
+	/**
+	 * @param pooled
+	 *            true to return the instance owned by the current thread
+	 * @param singleton
+	 *            true to return the instance shared by all the executions,
+	 *            if not pooled
+	 * @return rule, or null if the rule is stateless (see
+	 *         {@link #getStatelessRule()})
+	 * @since 1.2
+	 */
+	public AbstractASTRule getRule(final boolean pooled, final boolean singleton) {
+		if (pooled) {
+			return this.getPooledRule();
+		} else if (singleton) {
 			return this.singletonRule;
 		} else {
-			AbstractASTRule createdRule = this.createRule();
+			return this.newRule();
+		}
+	}
+
+	/**
+	 * @return true if the rule is a stateless rule
+	 */
+	public boolean isStateless() {
+		return this.statelessRule != null;
+	}
+
+	/**
+	 * @return stateless rule, shared by all the executions, or null if the rule
+	 *         is not stateless
+	 */
+	public AbstractStatelessASTRule getStatelessRule() {
+		return this.statelessRule;
+	}
+
+	/**
+	 * Creates the visitor that executes the stateless rule, for one visit
+	 * 
+	 * @param context
+	 * @return
+	 */
+	public ASTVisitor newStatelessVisitor(final ASTVisitContext context) {
+		return ASTStatelessRuleVisitor.create(this.statelessRule, context, this.statelessNodeTypes);
+	}
+
+	/**
+	 * Returns a new rule instance, whatever the singleton preference. Used
+	 * when the caller needs to own the instance, e.g. to run it concurrently.
+	 * 
+	 * @return rule, or null if it could not be instantiated
+	 */
+	public AbstractASTRule newRule() {
+		final AbstractASTRule createdRule = this.createRule();
+		if (createdRule != null) {
 			createdRule.setRuleDescriptor(this);
-			return createdRule;
 		}
+		return createdRule;
+	}
+
+	/**
+	 * Returns the rule instance owned by the current thread, created the first
+	 * time the thread requests it. The instance is then reused for all the
+	 * units validated by the thread, and is never shared with other threads.
+	 * 
+	 * @return rule, or null if it could not be instantiated
+	 */
+	public AbstractASTRule getPooledRule() {
+		AbstractASTRule pooledRule = this.pooledRules.get();
+		if (pooledRule == null) {
+			pooledRule = this.newRule();
+			if (pooledRule != null) {
+				this.pooledRules.set(pooledRule);
+			}
+		}
+		return pooledRule;
 	}
 
 	/**
@@ -164,13 +319,52 @@ public class ASTRuleDescriptor {
 		return this.mandatory;
 	}
 
+	/**
+	 * @return true if the rule needs bindings to be resolved
+	 */
+	public boolean requiresBindings() {
+		return this.requirements == null || this.requirements.bindings();
+	}
+
+	/**
+	 * @return true if the rule needs method bodies to be parsed
+	 */
+	public boolean requiresMethodBodies() {
+		return this.requirements == null || this.requirements.methodBodies();
+	}
+
+	/**
+	 * @return true if the rule needs Javadoc comments to be parsed
+	 */
+	public boolean requiresJavadoc() {
+		return this.requirements == null || this.requirements.javadoc();
+	}
+
+	/**
+	 * @return true if the rule needs statements to be recovered
+	 */
+	public boolean requiresStatementsRecovery() {
+		return this.requirements == null || this.requirements.statementsRecovery();
+	}
+
 	/**
 	 * Returns the class name of the rule. This is mainly an utility method
 	 * 
 	 * @return
 	 */
 	public String getRuleClassName() {
-		return this.singletonRule.getClass().getName();
+		return this.ruleClass.getName();
+	}
+
+	/**
+	 * Returns the version of the bundle that provides the rule, or an empty
+	 * string if the rule is not provided by a bundle. Results computed by a
+	 * previous version of the rule should not be reused.
+	 * 
+	 * @return
+	 */
+	public String getRuleVersion() {
+		return this.ruleVersion;
 	}
 
 }
@@ -47,6 +47,77 @@ public class ASTRulesPreferences {
 	 */
 	private static final String RULES_ARE_SINGLETONS = "rules.are.singletons";
 
+	/**
+	 * Key for rules pooling enablement/disablement
+	 */
+	private static final String RULES_ARE_POOLED = "rules.are.pooled";
+
+	/**
+	 * Key for the number of validation threads
+	 */
+	private static final String VALIDATION_THREADS = "validation.threads";
+
+	/**
+	 * Key for the size of the parsing batches
+	 */
+	private static final String PARSING_BATCH_SIZE = "parsing.batch.size";
+
+	/**
+	 * Default size of the parsing batches
+	 */
+	private static final int DEFAULT_PARSING_BATCH_SIZE = 50;
+
+	/**
+	 * Key for the maximum number of entries in the validation cache
+	 */
+	private static final String VALIDATION_CACHE_SIZE = "validation.cache.size";
+
+	/**
+	 * Default maximum number of entries in the validation cache
+	 */
+	private static final int DEFAULT_VALIDATION_CACHE_SIZE = 5000;
+
+	/**
+	 * Key for the maximum number of problems raised by a rule on a unit
+	 */
+	private static final String MAX_PROBLEMS_PER_RULE = "max.problems.per.rule";
+
+	/**
+	 * Key for the maximum number of problems raised by a repository on a unit
+	 */
+	private static final String MAX_PROBLEMS_PER_REPOSITORY = "max.problems.per.repository";
+
+	/**
+	 * Key for the time a rule can spend on a unit, in milliseconds
+	 */
+	private static final String RULE_TIME_BUDGET = "rule.time.budget";
+
+	/**
+	 * Key for the time all the rules can spend on a unit, in milliseconds
+	 */
+	private static final String UNIT_TIME_BUDGET = "unit.time.budget";
+
+	/**
+	 * Key for the number of failures after which a rule is quarantined
+	 */
+	private static final String CIRCUIT_BREAKER_THRESHOLD = "circuit.breaker.threshold";
+
+	/**
+	 * Default number of failures after which a rule is quarantined
+	 */
+	private static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 5;
+
+	/**
+	 * Key for the window in which the failures of a rule are counted, in
+	 * seconds
+	 */
+	private static final String CIRCUIT_BREAKER_WINDOW = "circuit.breaker.window";
+
+	/**
+	 * Default window in which the failures of a rule are counted, in seconds
+	 */
+	private static final int DEFAULT_CIRCUIT_BREAKER_WINDOW = 300;
+
 	/**
 	 * Enablement of Validation Participant
 	 */
@@ -151,4 +222,256 @@ public class ASTRulesPreferences {
 		return ASTRulesPreferences.RULES_ARE_SINGLETONS;
 	}
 
+	/**
+	 * returns true if each thread reuses its own rule instance across
+	 * executions. Takes precedence over the singleton option.
+	 * 
+	 * @return
+	 */
+	public static boolean areRulesPooled() {
+		return Activator.getDefault().getPreferenceStore().getBoolean(ASTRulesPreferences.RULES_ARE_POOLED);
+	}
+
+	/**
+	 * 
+	 * @param use
+	 *            true if each thread should reuse its own rule instance across
+	 *            executions.
+	 */
+	public static void setUseRulesPool(final boolean use) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.RULES_ARE_POOLED, use);
+	}
+
+	/**
+	 * Returns the number of worker threads used by the validation engine. 0 or
+	 * 1 means that compilation units are validated sequentially.
+	 * 
+	 * @return
+	 */
+	public static int getValidationThreads() {
+		return Activator.getDefault().getPreferenceStore().getInt(ASTRulesPreferences.VALIDATION_THREADS);
+	}
+
+	/**
+	 * 
+	 * @param threads
+	 *            number of worker threads used by the validation engine. 0 or
+	 *            1 for sequential validation.
+	 */
+	public static void setValidationThreads(final int threads) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.VALIDATION_THREADS, threads);
+	}
+
+	/**
+	 * Returns the maximum number of compilation units, from the same project,
+	 * parsed at once by the validation engine.
+	 * 
+	 * @return
+	 */
+	public static int getParsingBatchSize() {
+		final int batchSize = Activator.getDefault().getPreferenceStore()
+				.getInt(ASTRulesPreferences.PARSING_BATCH_SIZE);
+		return batchSize > 0 ? batchSize : ASTRulesPreferences.DEFAULT_PARSING_BATCH_SIZE;
+	}
+
+	/**
+	 * 
+	 * @param batchSize
+	 *            maximum number of compilation units, from the same project,
+	 *            parsed at once by the validation engine. 0 for default.
+	 */
+	public static void setParsingBatchSize(final int batchSize) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.PARSING_BATCH_SIZE, batchSize);
+	}
+
+	/**
+	 * Returns the maximum number of compilation units whose problems are kept
+	 * in the validation cache. 0 or less means that the cache is disabled.
+	 * 
+	 * Only units whose rules all declare, with
+	 * {@link net.atos.jdt.ast.validation.engine.rules.ASTRuleRequirements},
+	 * that they do not resolve bindings are cached. Rules that are not
+	 * annotated are considered as resolving bindings.
+	 * 
+	 * @return
+	 */
+	public static int getValidationCacheSize() {
+		final int cacheSize = Activator.getDefault().getPreferenceStore()
+				.getInt(ASTRulesPreferences.VALIDATION_CACHE_SIZE);
+		if (cacheSize == 0) {
+			return ASTRulesPreferences.DEFAULT_VALIDATION_CACHE_SIZE;
+		}
+		return cacheSize > 0 ? cacheSize : 0;
+	}
+
+	/**
+	 * 
+	 * @param cacheSize
+	 *            maximum number of compilation units whose problems are kept
+	 *            in the validation cache. 0 for default, negative value to
+	 *            disable the cache. Units on which rules not annotated with
+	 *            {@link net.atos.jdt.ast.validation.engine.rules.ASTRuleRequirements}
+	 *            run are never cached.
+	 */
+	public static void setValidationCacheSize(final int cacheSize) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.VALIDATION_CACHE_SIZE, cacheSize);
+	}
+
+	/**
+	 * Returns the maximum number of problems a rule can raise on a
+	 * compilation unit. Problems over that number are summarized by a single
+	 * problem. Negative value means there is no limit, which is the default.
+	 * 
+	 * @return
+	 */
+	public static int getMaxProblemsPerRule() {
+		final int maxProblems = Activator.getDefault().getPreferenceStore()
+				.getInt(ASTRulesPreferences.MAX_PROBLEMS_PER_RULE);
+		return maxProblems > 0 ? maxProblems : -1;
+	}
+
+	/**
+	 * 
+	 * @param maxProblems
+	 *            maximum number of problems a rule can raise on a compilation
+	 *            unit. 0 or negative value for no limit.
+	 */
+	public static void setMaxProblemsPerRule(final int maxProblems) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.MAX_PROBLEMS_PER_RULE, maxProblems);
+	}
+
+	/**
+	 * Returns the maximum number of problems the rules of a repository can
+	 * raise on a compilation unit. Problems over that number are summarized by
+	 * a single problem. Negative value means there is no limit, which is the
+	 * default.
+	 * 
+	 * @return
+	 */
+	public static int getMaxProblemsPerRepository() {
+		final int maxProblems = Activator.getDefault().getPreferenceStore()
+				.getInt(ASTRulesPreferences.MAX_PROBLEMS_PER_REPOSITORY);
+		return maxProblems > 0 ? maxProblems : -1;
+	}
+
+	/**
+	 * 
+	 * @param maxProblems
+	 *            maximum number of problems the rules of a repository can
+	 *            raise on a compilation unit. 0 or negative value for no
+	 *            limit.
+	 */
+	public static void setMaxProblemsPerRepository(final int maxProblems) {
+		Activator.getDefault().getPreferenceStore()
+				.setValue(ASTRulesPreferences.MAX_PROBLEMS_PER_REPOSITORY, maxProblems);
+	}
+
+	/**
+	 * Returns true if the preference changes the problems kept on the
+	 * compilation units, and not only the way they are computed
+	 * 
+	 * @param key
+	 *            key of the preference
+	 * @return
+	 * @since 1.2
+	 */
+	public static boolean changesProblems(final String key) {
+		return ASTRulesPreferences.MAX_PROBLEMS_PER_RULE.equals(key)
+				|| ASTRulesPreferences.MAX_PROBLEMS_PER_REPOSITORY.equals(key);
+	}
+
+	/**
+	 * Returns the time a rule can spend on a compilation unit, in
+	 * milliseconds. A rule that exceeds it is aborted on that unit. 0 means
+	 * there is no limit, which is the default: rules are then not timed,
+	 * unless metrics or traces are recorded.
+	 * 
+	 * @return
+	 */
+	public static int getRuleTimeBudget() {
+		final int budget = Activator.getDefault().getPreferenceStore().getInt(ASTRulesPreferences.RULE_TIME_BUDGET);
+		return budget > 0 ? budget : 0;
+	}
+
+	/**
+	 * 
+	 * @param budget
+	 *            time a rule can spend on a compilation unit, in
+	 *            milliseconds. 0 or negative value for no limit.
+	 */
+	public static void setRuleTimeBudget(final int budget) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.RULE_TIME_BUDGET, budget);
+	}
+
+	/**
+	 * Returns the time all the rules can spend on a compilation unit, in
+	 * milliseconds. Rules still running when it is exceeded are aborted on
+	 * that unit. 0 means there is no limit, which is the default.
+	 * 
+	 * @return
+	 */
+	public static int getUnitTimeBudget() {
+		final int budget = Activator.getDefault().getPreferenceStore().getInt(ASTRulesPreferences.UNIT_TIME_BUDGET);
+		return budget > 0 ? budget : 0;
+	}
+
+	/**
+	 * 
+	 * @param budget
+	 *            time all the rules can spend on a compilation unit, in
+	 *            milliseconds. 0 or negative value for no limit.
+	 */
+	public static void setUnitTimeBudget(final int budget) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.UNIT_TIME_BUDGET, budget);
+	}
+
+	/**
+	 * Returns the number of failures, within the window, after which a rule is
+	 * quarantined. 0 means that rules are never quarantined.
+	 * 
+	 * @return
+	 */
+	public static int getCircuitBreakerThreshold() {
+		final int threshold = Activator.getDefault().getPreferenceStore()
+				.getInt(ASTRulesPreferences.CIRCUIT_BREAKER_THRESHOLD);
+		if (threshold == 0) {
+			return ASTRulesPreferences.DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+		}
+		return threshold > 0 ? threshold : 0;
+	}
+
+	/**
+	 * 
+	 * @param threshold
+	 *            number of failures, within the window, after which a rule is
+	 *            quarantined. 0 for default, negative value to never
+	 *            quarantine rules.
+	 */
+	public static void setCircuitBreakerThreshold(final int threshold) {
+		Activator.getDefault().getPreferenceStore()
+				.setValue(ASTRulesPreferences.CIRCUIT_BREAKER_THRESHOLD, threshold);
+	}
+
+	/**
+	 * Returns the window in which the failures of a rule are counted, in
+	 * seconds
+	 * 
+	 * @return
+	 */
+	public static int getCircuitBreakerWindow() {
+		final int window = Activator.getDefault().getPreferenceStore()
+				.getInt(ASTRulesPreferences.CIRCUIT_BREAKER_WINDOW);
+		return window > 0 ? window : ASTRulesPreferences.DEFAULT_CIRCUIT_BREAKER_WINDOW;
+	}
+
+	/**
+	 * 
+	 * @param window
+	 *            window in which the failures of a rule are counted, in
+	 *            seconds. 0 for default.
+	 */
+	public static void setCircuitBreakerWindow(final int window) {
+		Activator.getDefault().getPreferenceStore().setValue(ASTRulesPreferences.CIRCUIT_BREAKER_WINDOW, window);
+	}
+
 }
@@ -132,9 +132,13 @@ public class ASTRulesRepository {
 	 */
 	public Set<ASTRuleDescriptor> getRules(final ICompilationUnit compilationUnit) {
 		final Set<ASTRuleDescriptor> rules = new HashSet<ASTRuleDescriptor>();
+		// Context is evaluated once for all the rules
+		if (!this.isEnabled(compilationUnit)) {
+			return rules;
+		}
 		for (final ASTRuleDescriptor rule : this.rules) {
 			final boolean ruleEnabled = rule.isMandatory() || ASTRulesPreferences.isEnabled(rule);
-			if (ruleEnabled && this.context.validate(compilationUnit)) {
+			if (ruleEnabled) {
 				rules.add(rule);
 			}
 		}
@@ -190,7 +194,7 @@ public class ASTRulesRepository {
 	 * @return
 	 */
 	public boolean isEnabled(final ICompilationUnit compilationUnit) {
-		return this.context.validate(compilationUnit);
+		return this.context.accept(compilationUnit);
 	}
 
 }
@@ -21,31 +21,67 @@
  */
 package net.atos.jdt.ast.validation.engine;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.atos.jdt.ast.validation.engine.internal.Activator;
 import net.atos.jdt.ast.validation.engine.internal.ValidationEngineMessages;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTCircuitBreaker;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTExecutionPlan;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTMarkersWriter;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTParserConfiguration;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesRunner;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTValidationCache;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTValidationResult;
 import net.atos.jdt.ast.validation.engine.internal.extpt.ASTRulesExtensionPoint;
-import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTFlightEvent;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetrics;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTTracer;
 
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
 /**
  * Process that execute validation rules on ICompilationUnits
  * 
+ * Compilation units of the same project are parsed in batches (see
+ * {@link #withBatchSize(int)}), so that bindings are resolved within a shared
+ * environment. Batches can be validated on a pool of worker threads (see
+ * {@link #withThreads(int)}). In that case, parsing and rules execution are
+ * performed by the workers, each of them owning its rules instances, while
+ * markers are still created sequentially, in the order of the compilation
+ * units, so that the outcome is the same as for the sequential validation.
+ * All the markers of a run are written within a single workspace operation.
+ * 
+ * The timeline of a run can be traced into a trace-event file (see
+ * {@link #withTrace(File)}).
+ * 
  * @author mvanbesien
  * @since 1.0
  */
@@ -53,7 +89,7 @@ public class ASTValidationEngine {
 	/**
 	 * List of Compilation Units to be managed by this process
 	 */
-	private final Collection<ICompilationUnit> compilationUnits = new ArrayList<ICompilationUnit>();;
+	private final Collection<ICompilationUnit> compilationUnits = new ArrayList<ICompilationUnit>();
 
 	/**
 	 * Valid Repositories for this engine
@@ -66,9 +102,37 @@ public class ASTValidationEngine {
 	private IASTRulesDataSource dataSource;
 
 	/**
-	 * Session to send to the executed rules
+	 * Session to send to the executed rules. Immutable snapshot, shared by
+	 * reference by all the rules and threads of the run.
+	 */
+	private Map<String, Object> session = Collections.emptyMap();
+
+	/**
+	 * Number of worker threads. 0 to rely on preferences.
+	 */
+	private int threads;
+
+	/**
+	 * Maximum number of compilation units parsed at once. 0 to rely on
+	 * preferences.
+	 */
+	private int batchSize;
+
+	/**
+	 * Markers to write at the end of the run
+	 */
+	private final ASTMarkersWriter markersWriter = new ASTMarkersWriter();
+
+	/**
+	 * File where the timeline of the run is traced, or null to rely on the
+	 * system property
 	 */
-	private final Map<String, Object> session = new HashMap<String, Object>();
+	private File traceFile;
+
+	/**
+	 * Tracer of the current run, or null if the run is not traced
+	 */
+	private ASTTracer tracer;
 
 	/**
 	 * Replaces the session by the one provided as a parameter.
@@ -77,8 +141,50 @@ public class ASTValidationEngine {
 	 * @return
 	 */
 	public ASTValidationEngine withSession(final Map<String, Object> session) {
-		this.session.clear();
-		this.session.putAll(session);
+		this.session = Collections.unmodifiableMap(new HashMap<String, Object>(session));
+		return this;
+	}
+
+	/**
+	 * Sets the number of worker threads used to validate the compilation
+	 * units. 1 means sequential validation, on the calling thread. If not
+	 * set, value is read from preferences.
+	 * 
+	 * @param threads
+	 * @return
+	 */
+	public ASTValidationEngine withThreads(final int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of compilation units, from the same project,
+	 * parsed at once. Bigger batches share more binding resolution work, but
+	 * hold more memory. If not set, value is read from preferences.
+	 * 
+	 * @param batchSize
+	 * @return
+	 */
+	public ASTValidationEngine withBatchSize(final int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Traces the timeline of the run into the file provided, as trace-event
+	 * JSON, that can be loaded in chrome://tracing or Perfetto: parsing of
+	 * each unit, contexts evaluation, rules visits and markers writing, by
+	 * thread and project. If not set, the run is only traced if the
+	 * {@value ASTTracer#TRACE_DIRECTORY_PROPERTY} system property names a
+	 * directory to write the traces to.
+	 * 
+	 * @param traceFile
+	 * @return
+	 * @since 1.2
+	 */
+	public ASTValidationEngine withTrace(final File traceFile) {
+		this.traceFile = traceFile;
 		return this;
 	}
 
@@ -112,69 +218,399 @@ public class ASTValidationEngine {
 	}
 
 	/**
-	 * Runs the validation
+	 * Runs the validation. The cancellation of the monitor is checked before
+	 * each compilation unit, and while the rules are executed.
 	 * 
 	 * @param monitor
 	 * @throws CoreException
+	 * @throws OperationCanceledException
+	 *             if the monitor has been canceled. Markers of the units
+	 *             validated so far are written anyway.
 	 */
 	public void execute(final IProgressMonitor monitor) throws CoreException {
+		final int threads = this.threads > 0 ? this.threads : ASTRulesPreferences.getValidationThreads();
+		final List<List<ICompilationUnit>> batches = this.getBatches();
+		final ASTExecutionPlan executionPlan = ASTExecutionPlan.forDataSource(this.dataSource, this.validRepositories);
+		ASTCircuitBreaker.getInstance().startRun();
+		this.tracer = this.traceFile != null ? ASTTracer.open(this.traceFile) : ASTTracer.openFromSystemProperty();
+		this.markersWriter.setTracer(this.tracer);
+		try {
+			if ((threads <= 1) || (batches.size() <= 1)) {
+				for (final List<ICompilationUnit> batch : batches) {
+					ASTValidationEngine.checkCanceled(monitor);
+					this.publish(this.validate(batch, executionPlan, false, monitor), monitor);
+				}
+			} else {
+				this.execute(batches, executionPlan, threads, monitor);
+			}
+		} finally {
+			// Markers of the whole run are written at once, even if the run
+			// has been canceled
+			try {
+				this.markersWriter.write(monitor.isCanceled() ? new NullProgressMonitor() : monitor);
+			} finally {
+				ASTCircuitBreaker.getInstance().endRun();
+				if (this.tracer != null) {
+					this.tracer.close();
+					this.tracer = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the validation on a pool of worker threads, one batch per task.
+	 * Results are published in the order of the batches, and the number of
+	 * pending batches is bounded, so that memory does not grow with the
+	 * number of units.
+	 * 
+	 * @param batches
+	 * @param executionPlan
+	 * @param threads
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	private void execute(final List<List<ICompilationUnit>> batches, final ASTExecutionPlan executionPlan,
+			final int threads, final IProgressMonitor monitor) throws CoreException {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+		final LinkedList<Future<List<ASTValidationResult>>> pending =
+				new LinkedList<Future<List<ASTValidationResult>>>();
+		try {
+			for (final List<ICompilationUnit> batch : batches) {
+				ASTValidationEngine.checkCanceled(monitor);
+				pending.add(executor.submit(new Callable<List<ASTValidationResult>>() {
+					@Override
+					public List<ASTValidationResult> call() throws Exception {
+						return ASTValidationEngine.this.validate(batch, executionPlan, true, monitor);
+					}
+				}));
+				if (pending.size() >= (threads * 2)) {
+					this.publish(pending.removeFirst(), monitor);
+				}
+			}
+			while (!pending.isEmpty()) {
+				this.publish(pending.removeFirst(), monitor);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Splits the compilation units into batches of units that belong to the
+	 * same Java project, so that each batch can be parsed at once, within a
+	 * shared binding environment.
+	 * 
+	 * @return
+	 */
+	private List<List<ICompilationUnit>> getBatches() {
+		final int batchSize = this.batchSize > 0 ? this.batchSize : ASTRulesPreferences.getParsingBatchSize();
+		final Map<IJavaProject, List<ICompilationUnit>> unitsByProject =
+				new LinkedHashMap<IJavaProject, List<ICompilationUnit>>();
 		for (final ICompilationUnit compilationUnit : this.compilationUnits) {
-			this.execute(compilationUnit, monitor);
+			if (compilationUnit != null) {
+				List<ICompilationUnit> units = unitsByProject.get(compilationUnit.getJavaProject());
+				if (units == null) {
+					units = new ArrayList<ICompilationUnit>();
+					unitsByProject.put(compilationUnit.getJavaProject(), units);
+				}
+				units.add(compilationUnit);
+			}
+		}
+		final List<List<ICompilationUnit>> batches = new ArrayList<List<ICompilationUnit>>();
+		for (final List<ICompilationUnit> units : unitsByProject.values()) {
+			for (int index = 0; index < units.size(); index += batchSize) {
+				batches.add(units.subList(index, Math.min(index + batchSize, units.size())));
+			}
 		}
+		return batches;
 	}
 
 	/**
-	 * Runs the validation on one specific compilation unit
+	 * Waits for the results of a worker, and publishes them
 	 * 
-	 * @param compilationUnit
+	 * @param future
 	 * @param monitor
 	 * @throws CoreException
 	 */
-	private void execute(final ICompilationUnit compilationUnit, final IProgressMonitor monitor) throws CoreException {
+	private void publish(final Future<List<ASTValidationResult>> future, final IProgressMonitor monitor)
+			throws CoreException {
+		try {
+			this.publish(future.get(), monitor);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Activator.logException(e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof CoreException) {
+				throw (CoreException) e.getCause();
+			}
+			if (e.getCause() instanceof OperationCanceledException) {
+				throw (OperationCanceledException) e.getCause();
+			}
+			Activator.getDefault().getLog()
+					.log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, e.getCause().getMessage(), e.getCause()));
+		}
+	}
 
-		if ((compilationUnit == null) || !compilationUnit.exists()) {
-			return;
+	/**
+	 * Publishes the results of a batch
+	 * 
+	 * @param results
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	private void publish(final List<ASTValidationResult> results, final IProgressMonitor monitor)
+			throws CoreException {
+		for (final ASTValidationResult result : results) {
+			monitor.subTask(ValidationEngineMessages.VALIDATING_UNIT.value(result.getCompilationUnit()
+					.getElementName()));
+			this.publish(result);
 		}
+	}
 
-		final List<ASTRulesRepository> repositories = this.dataSource.getRepositories(this.validRepositories);
-		// At first remove the previous markers
-		final IResource resource = compilationUnit.getResource();
+	/**
+	 * Runs the validation on a batch of compilation units, from the same
+	 * project. Does not modify the workspace, so that it can be called from
+	 * worker threads.
+	 * 
+	 * Units whose rules have the same needs are parsed together, and each of
+	 * them is validated as soon as its AST is produced. The AST is not referenced anymore once the last rule
+	 * has been executed on it.
+	 * 
+	 * @param batch
+	 * @param executionPlan
+	 * @param worker
+	 *            true if called from a worker thread
+	 * @param monitor
+	 *            monitor whose cancellation stops the validation
+	 * @return the validation results, for the units that exist
+	 */
+	private List<ASTValidationResult> validate(final List<ICompilationUnit> batch,
+			final ASTExecutionPlan executionPlan, final boolean worker, final IProgressMonitor monitor) {
+		// At first collect the markers to replace, and the rules to run
+		final List<ASTValidationResult> results = new ArrayList<ASTValidationResult>(batch.size());
+		final Map<ICompilationUnit, ASTValidationResult> resultsToFill =
+				new HashMap<ICompilationUnit, ASTValidationResult>();
+		final Map<ICompilationUnit, ASTRuleDescriptor[]> rulesToRun =
+				new HashMap<ICompilationUnit, ASTRuleDescriptor[]>();
+		final ASTTracer tracer = this.tracer;
+		for (final ICompilationUnit compilationUnit : batch) {
+			if (compilationUnit.exists()) {
+				final ASTValidationResult result = new ASTValidationResult(compilationUnit);
+				for (final String markerId : executionPlan.getMarkerIds()) {
+					result.addMarkerId(markerId);
+				}
+				final long contextsStart = System.nanoTime();
+				final ASTRuleDescriptor[] ruleDescriptors = executionPlan.getRules(compilationUnit);
+				if (tracer != null) {
+					tracer.span(compilationUnit.getElementName(), ASTTracer.CONTEXT, contextsStart, System.nanoTime()
+							- contextsStart, compilationUnit.getJavaProject().getElementName(), "unit", compilationUnit
+							.getPath().toString(), "rules", String.valueOf(ruleDescriptors.length));
+				}
+				results.add(result);
+				// No need to parse the unit if there is no rule to run on it,
+				// or if its contents have already been validated by the rules
+				final String cacheKey = ruleDescriptors.length == 0 ? null : ASTValidationCache.getInstance().getKey(
+						executionPlan, compilationUnit, ruleDescriptors, this.session);
+				final List<ASTValidationProblem> cachedProblems = cacheKey != null ? ASTValidationCache
+						.getInstance().get(cacheKey) : null;
+				if (cachedProblems != null) {
+					result.addProblems(cachedProblems);
+				} else if (ruleDescriptors.length > 0) {
+					result.setCacheKey(cacheKey);
+					resultsToFill.put(compilationUnit, result);
+					rulesToRun.put(compilationUnit, ruleDescriptors);
+				}
+			}
+		}
 
-		for (final ASTRulesRepository ruleRepository : repositories) {
-			resource.deleteMarkers(ruleRepository.getMarkerId(), true, IResource.DEPTH_ZERO);
+		// Units are parsed with the cheapest configuration that meets the needs
+		// of their own rules, so that their problems, that may be cached, do
+		// not depend on the other units of the batch. Units sharing the same
+		// configuration are parsed together.
+		final Map<ASTParserConfiguration, List<ICompilationUnit>> unitsByConfiguration =
+				new LinkedHashMap<ASTParserConfiguration, List<ICompilationUnit>>();
+		for (final Map.Entry<ICompilationUnit, ASTRuleDescriptor[]> entry : rulesToRun.entrySet()) {
+			final ASTParserConfiguration configuration = new ASTParserConfiguration();
+			for (final ASTRuleDescriptor ruleDescriptor : entry.getValue()) {
+				configuration.require(ruleDescriptor);
+			}
+			List<ICompilationUnit> units = unitsByConfiguration.get(configuration);
+			if (units == null) {
+				units = new ArrayList<ICompilationUnit>();
+				unitsByConfiguration.put(configuration, units);
+			}
+			units.add(entry.getKey());
+		}
+		for (final Map.Entry<ASTParserConfiguration, List<ICompilationUnit>> entry : unitsByConfiguration
+				.entrySet()) {
+			this.parse(entry.getValue(), entry.getKey(), executionPlan, resultsToFill, rulesToRun, worker, monitor);
+		}
+		return results;
+	}
 
-			for (final ASTRuleDescriptor ruleDescriptor : ruleRepository.getRules(compilationUnit)) {
-				monitor.subTask(ValidationEngineMessages.VALIDATING_CU.value(compilationUnit.getElementName(),
-						ruleDescriptor.getDescription()));
-				final ASTParser parser = ASTParser.newParser(AST.JLS4);
-				parser.setSource(compilationUnit);
-				parser.setStatementsRecovery(true);
-				parser.setResolveBindings(true);
-				parser.setBindingsRecovery(false);
-				final CompilationUnit domCompilationUnit = (CompilationUnit) parser
-						.createAST(new NullProgressMonitor());
+	/**
+	 * Parses compilation units of the same project together, with the
+	 * configuration provided, and validates each of them as soon as its AST
+	 * is produced
+	 * 
+	 * @param units
+	 * @param configuration
+	 *            configuration meeting the needs of the rules of all the units
+	 * @param executionPlan
+	 * @param resultsToFill
+	 *            results of the units
+	 * @param rulesToRun
+	 *            rules to run on the units
+	 * @param worker
+	 *            true if called from a worker thread
+	 * @param monitor
+	 *            monitor whose cancellation stops the validation
+	 */
+	private void parse(final List<ICompilationUnit> units, final ASTParserConfiguration configuration,
+			final ASTExecutionPlan executionPlan, final Map<ICompilationUnit, ASTValidationResult> resultsToFill,
+			final Map<ICompilationUnit, ASTRuleDescriptor[]> rulesToRun, final boolean worker,
+			final IProgressMonitor monitor) {
+		final ICompilationUnit[] compilationUnits = units.toArray(new ICompilationUnit[units.size()]);
+		final Set<String> markerIds = new LinkedHashSet<String>();
+		for (final ICompilationUnit compilationUnit : compilationUnits) {
+			for (final ASTRuleDescriptor ruleDescriptor : rulesToRun.get(compilationUnit)) {
+				markerIds.add(ruleDescriptor.getRepository().getMarkerId());
+			}
+		}
+		final ASTTracer tracer = this.tracer;
+		final ASTParser parser = ASTParser.newParser(AST.JLS4);
+		configuration.configure(parser, compilationUnits[0].getJavaProject());
+		// Parsing time is the time of the batch, minus the time spent
+		// running the rules on the ASTs produced. For flight recordings,
+		// the parsing of a unit spans from the previous AST produced.
+		final long[] rulesTime = new long[1];
+		final Object[] parseEvent = { ASTFlightEvent.PARSE.begin() };
+		final long start = System.nanoTime();
+		final long[] parseStart = { start };
+		parser.createASTs(compilationUnits, new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
+				if (parseEvent[0] != null) {
+					ASTFlightEvent.PARSE.commit(parseEvent[0], source.getPath().toString(), source
+							.getJavaProject().getElementName(), configuration.isResolvingBindings());
+				}
+				if (tracer != null) {
+					tracer.span(source.getElementName(), ASTTracer.PARSE, parseStart[0], System.nanoTime()
+							- parseStart[0], source.getJavaProject().getElementName(), "unit", source.getPath()
+							.toString(), "bindings", String.valueOf(configuration.isResolvingBindings()));
+				}
+				ASTValidationEngine.checkCanceled(monitor);
+				final long rulesStart = System.nanoTime();
 				try {
-					final AbstractASTRule rule = ruleDescriptor.getRule();
-					rule.setSession(this.session);
-					domCompilationUnit.accept(rule);
-					for (final ASTValidationProblem problem : rule.getProblems()) {
-						problem.toMarker(resource);
-					}
-				} catch (final Exception e) {
-					String ruleId = ruleDescriptor.getRule() != null ? ruleDescriptor
-							.getRule().getClass().getName()
-							: ruleDescriptor.getId();
-					Activator
-							.getDefault()
-							.getLog()
-							.log(new Status(
-									IStatus.ERROR,
-									Activator.PLUGIN_ID,
-									ValidationEngineMessages.EXCEPTION_DURING_RULEEXEC.value(ruleId,
-											compilationUnit.getElementName()), e));
-					e.printStackTrace();
+					ASTValidationEngine.this.validate(resultsToFill.get(source), executionPlan,
+							rulesToRun.get(source), ast, worker, monitor);
+				} finally {
+					parseStart[0] = System.nanoTime();
+					rulesTime[0] += parseStart[0] - rulesStart;
+					parseEvent[0] = ASTFlightEvent.PARSE.begin();
 				}
 			}
+		}, new NullProgressMonitor());
+		if (ASTMetrics.getInstance().isEnabled()) {
+			ASTMetrics.getInstance().recordParse(markerIds, compilationUnits.length,
+					(System.nanoTime() - start) - rulesTime[0]);
+		}
+	}
+
+	/**
+	 * Runs the rules on the AST of a compilation unit, within a single walk
+	 * of the tree.
+	 * 
+	 * @param result
+	 * @param executionPlan
+	 * @param ruleDescriptors
+	 * @param domCompilationUnit
+	 * @param worker
+	 *            true if called from a worker thread
+	 * @param monitor
+	 *            monitor whose cancellation stops the rules
+	 */
+	private void validate(final ASTValidationResult result, final ASTExecutionPlan executionPlan,
+			final ASTRuleDescriptor[] ruleDescriptors, final CompilationUnit domCompilationUnit, final boolean worker,
+			final IProgressMonitor monitor) {
+		// Workers always own their instances, whatever the preferences, as
+		// rules are not thread safe
+		ASTRulesRunner.run(result, executionPlan, ruleDescriptors, domCompilationUnit, this.session, worker, monitor,
+				this.tracer, ASTCircuitBreaker.getInstance());
+		// Outcome is cached only if all the rules have been executed
+		if ((result.getCacheKey() != null) && result.isComplete()) {
+			ASTValidationCache.getInstance().put(result.getCacheKey(), result.getProblems(),
+					executionPlan.getValidationCacheSize());
+		}
+	}
+
+	/**
+	 * Stops the run, if the monitor has been canceled
+	 * 
+	 * @param monitor
+	 * @throws OperationCanceledException
+	 */
+	private static void checkCanceled(final IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+
+	/**
+	 * Registers the markers of the validated compilation unit, to be replaced
+	 * by the ones matching the problems raised by the rules, at the end of the
+	 * run.
+	 * 
+	 * @param result
+	 */
+	private void publish(final ASTValidationResult result) {
+		if (result == null) {
+			return;
+		}
+		for (int index = 0; index < result.getFailedRules().size(); index++) {
+			this.logRuleException(result.getFailedRules().get(index), result.getCompilationUnit(), result
+					.getFailures().get(index));
+		}
+		if (result.getResource() != null) {
+			this.markersWriter.add(result.getResource(), result.getMarkerIds(), result.getProblems());
+		}
+	}
+
+	/**
+	 * Logs exception raised while executing rule on compilation unit. The
+	 * failure is counted by the circuit breaker, that logs it only if the rule
+	 * has not been quarantined.
+	 * 
+	 * @param ruleId
+	 * @param compilationUnit
+	 * @param e
+	 */
+	private void logRuleException(final String ruleId, final ICompilationUnit compilationUnit, final Throwable e) {
+		ASTCircuitBreaker.getInstance().recordFailure(ruleId, compilationUnit, e);
+	}
+
+	/**
+	 * Creates the worker threads of the validation. Workers are daemon
+	 * threads, so that they never prevent the platform from stopping.
+	 */
+	private static final class WorkerThreadFactory implements ThreadFactory {
+
+		/**
+		 * Counter used to name the threads
+		 */
+		private final AtomicInteger counter = new AtomicInteger();
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+		 */
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "AST Validation Worker #" + this.counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
 		}
 	}
 }
@@ -21,7 +21,13 @@
  */
 package net.atos.jdt.ast.validation.engine;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import net.atos.jdt.ast.validation.engine.internal.Activator;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTMarkersWriter;
+import net.atos.jdt.ast.validation.engine.rules.ASTMessageTemplate;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -38,9 +44,30 @@ import org.eclipse.jdt.core.compiler.CategorizedProblem;
 public class ASTValidationProblem extends CategorizedProblem {
 
 	/**
-	 * Problem message
+	 * Empty arguments
+	 */
+	private static final String[] NO_ARGUMENTS = new String[0];
+
+	/**
+	 * Problem message. Formatted at first request, if the problem has been
+	 * raised from a template
 	 */
-	private final String message;
+	private String message;
+
+	/**
+	 * Identifier of the message template, or 0
+	 */
+	private final int id;
+
+	/**
+	 * Pattern of the message template, or null
+	 */
+	private final String messagePattern;
+
+	/**
+	 * Arguments of the message template
+	 */
+	private final String[] arguments;
 
 	/**
 	 * true if warning, false otherwise
@@ -57,6 +84,11 @@ public class ASTValidationProblem extends CategorizedProblem {
 	 */
 	private final String fileName;
 
+	/**
+	 * Name of the file, as returned to the compiler. Computed at first request
+	 */
+	private char[] originatingFileName;
+
 	/**
 	 * Marker identifier
 	 */
@@ -77,6 +109,11 @@ public class ASTValidationProblem extends CategorizedProblem {
 	 */
 	private final int endChar;
 
+	/**
+	 * Identifier of the rule that raised the problem, or null
+	 */
+	private final String ruleId;
+
 	/**
 	 * Creates a new Validation Problem instance
 	 * 
@@ -99,7 +136,73 @@ public class ASTValidationProblem extends CategorizedProblem {
 	 */
 	public ASTValidationProblem(final String message, final boolean isWarning, final boolean isError,
 			final String fileName, final String markerId, final int lineNumber, final int startChar, final int endChar) {
+		this(message, isWarning, isError, fileName, markerId, lineNumber, startChar, endChar, null);
+	}
+
+	/**
+	 * Creates a new Validation Problem instance, raised by the rule provided
+	 * 
+	 * @param message
+	 *            Problem message
+	 * @param isWarning
+	 *            true if warning, false otherwise
+	 * @param isError
+	 *            true if error, false otherwise
+	 * @param fileName
+	 *            name of the file that holds the problem
+	 * @param markerId
+	 *            identifier of the problem
+	 * @param lineNumber
+	 *            line in the source, where the problem happens
+	 * @param startChar
+	 *            position in the source where starts the problem
+	 * @param endChar
+	 *            position in the source where ends the problem
+	 * @param ruleId
+	 *            identifier of the rule that raised the problem
+	 * @since 1.2
+	 */
+	public ASTValidationProblem(final String message, final boolean isWarning, final boolean isError,
+			final String fileName, final String markerId, final int lineNumber, final int startChar,
+			final int endChar, final String ruleId) {
+		this(0, null, null, isWarning, isError, fileName, markerId, lineNumber, startChar, endChar, ruleId);
 		this.message = message;
+	}
+
+	/**
+	 * Creates a new Validation Problem instance, raised by the rule provided
+	 * from a message template. The message is only formatted when requested.
+	 * 
+	 * @param id
+	 *            identifier of the message template
+	 * @param messagePattern
+	 *            pattern of the message template
+	 * @param arguments
+	 *            arguments of the message
+	 * @param isWarning
+	 *            true if warning, false otherwise
+	 * @param isError
+	 *            true if error, false otherwise
+	 * @param fileName
+	 *            name of the file that holds the problem
+	 * @param markerId
+	 *            identifier of the problem
+	 * @param lineNumber
+	 *            line in the source, where the problem happens
+	 * @param startChar
+	 *            position in the source where starts the problem
+	 * @param endChar
+	 *            position in the source where ends the problem
+	 * @param ruleId
+	 *            identifier of the rule that raised the problem
+	 * @since 1.2
+	 */
+	public ASTValidationProblem(final int id, final String messagePattern, final String[] arguments,
+			final boolean isWarning, final boolean isError, final String fileName, final String markerId,
+			final int lineNumber, final int startChar, final int endChar, final String ruleId) {
+		this.id = id;
+		this.messagePattern = messagePattern;
+		this.arguments = arguments != null ? arguments : ASTValidationProblem.NO_ARGUMENTS;
 		this.isWarning = isWarning;
 		this.isError = isError;
 		this.fileName = fileName;
@@ -107,29 +210,58 @@ public class ASTValidationProblem extends CategorizedProblem {
 		this.lineNumber = lineNumber;
 		this.startChar = startChar;
 		this.endChar = endChar;
+		this.ruleId = ruleId;
 	}
 
 	/**
-	 * Returns arguments of problem. Default empty
+	 * Returns the identifier of the rule that raised the problem, or null if
+	 * unknown
+	 * 
+	 * @return
+	 * @since 1.2
+	 */
+	public String getRuleId() {
+		return this.ruleId;
+	}
+
+	/**
+	 * Returns arguments of problem. Empty if the problem has not been raised
+	 * from a message template
 	 */
 	@Override
 	public String[] getArguments() {
-		return new String[0];
+		return this.arguments;
 	}
 
 	/**
-	 * Returns ID of the problem. default O,
+	 * Returns ID of the problem, which is the identifier of its message
+	 * template. 0 if the problem has not been raised from a template
 	 */
 	@Override
 	public int getID() {
-		return 0;
+		return this.id;
+	}
+
+	/**
+	 * Returns the pattern of the message template, or null if the problem has
+	 * not been raised from a template
+	 * 
+	 * @return
+	 * @since 1.2
+	 */
+	public String getMessagePattern() {
+		return this.messagePattern;
 	}
 
 	/**
-	 * Returns the message of the problem
+	 * Returns the message of the problem, formatted at first call if the
+	 * problem has been raised from a template
 	 */
 	@Override
 	public String getMessage() {
+		if (this.message == null && this.messagePattern != null) {
+			this.message = ASTMessageTemplate.format(this.messagePattern, this.arguments);
+		}
 		return this.message;
 	}
 
@@ -138,7 +270,10 @@ public class ASTValidationProblem extends CategorizedProblem {
 	 */
 	@Override
 	public char[] getOriginatingFileName() {
-		return this.fileName.toCharArray();
+		if (this.originatingFileName == null && this.fileName != null) {
+			this.originatingFileName = this.fileName.toCharArray();
+		}
+		return this.originatingFileName;
 	}
 
 	/**
@@ -241,25 +376,43 @@ public class ASTValidationProblem extends CategorizedProblem {
 
 		try {
 			final IMarker createdMarker = resource.createMarker(this.getMarkerType());
-			createdMarker.setAttribute(IMarker.LINE_NUMBER, this.getSourceLineNumber());
-			createdMarker.setAttribute(IMarker.LOCATION, "line " + this.getSourceLineNumber());
-			createdMarker.setAttribute(IMarker.MESSAGE, this.getMessage());
-			createdMarker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
-
-			int severity = IMarker.SEVERITY_INFO;
-			if (this.isError()) {
-				severity = IMarker.SEVERITY_ERROR;
-			} else if (this.isWarning()) {
-				severity = IMarker.SEVERITY_WARNING;
-			}
-
-			createdMarker.setAttribute(IMarker.SEVERITY, severity);
-			createdMarker.setAttribute(IMarker.TRANSIENT, false);
-			createdMarker.setAttribute(IMarker.CHAR_START, this.getSourceStart());
-			createdMarker.setAttribute(IMarker.CHAR_END, this.getSourceEnd());
+			ASTMarkersWriter.setAttributes(createdMarker, this.getMarkerAttributes());
 		} catch (final CoreException e) {
 			Activator.logException(e);
 		}
 	}
 
+	/**
+	 * Returns the attributes of the marker matching the current problem, so
+	 * that they can be set all at once.
+	 * 
+	 * @return
+	 */
+	public Map<String, Object> getMarkerAttributes() {
+		final Map<String, Object> attributes = new HashMap<String, Object>();
+		attributes.put(IMarker.LINE_NUMBER, this.getSourceLineNumber());
+		attributes.put(IMarker.LOCATION, "line " + this.getSourceLineNumber());
+		attributes.put(IMarker.MESSAGE, this.getMessage());
+		attributes.put(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+
+		int severity = IMarker.SEVERITY_INFO;
+		if (this.isError()) {
+			severity = IMarker.SEVERITY_ERROR;
+		} else if (this.isWarning()) {
+			severity = IMarker.SEVERITY_WARNING;
+		}
+
+		attributes.put(IMarker.SEVERITY, severity);
+		attributes.put(IMarker.TRANSIENT, false);
+		attributes.put(IMarker.CHAR_START, this.getSourceStart());
+		attributes.put(IMarker.CHAR_END, this.getSourceEnd());
+		if (this.ruleId != null) {
+			attributes.put(AbstractASTRule.RULE_ID_KEY, this.ruleId);
+		}
+		if (this.id != 0) {
+			attributes.put(AbstractASTRule.MESSAGE_ID_KEY, this.id);
+		}
+		return attributes;
+	}
+
 }
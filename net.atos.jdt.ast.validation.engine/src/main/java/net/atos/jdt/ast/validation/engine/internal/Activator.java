@@ -21,6 +21,10 @@
  */
 package net.atos.jdt.ast.validation.engine.internal;
 
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTContextsInvalidator;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTValidationCache;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetrics;
+
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.resource.ImageDescriptor;
@@ -56,6 +60,9 @@ public class Activator extends AbstractUIPlugin {
 	public void start(final BundleContext context) throws Exception {
 		super.start(context);
 		Activator.plugin = this;
+		ASTContextsInvalidator.getInstance().install();
+		ASTMetrics.getInstance().register();
+		ASTValidationCache.getInstance().install();
 	}
 
 	/*
@@ -67,6 +74,10 @@ public class Activator extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(final BundleContext context) throws Exception {
+		ASTMetrics.getInstance().unregister();
+		ASTContextsInvalidator.getInstance().uninstall();
+		ASTValidationCache.getInstance().uninstall();
+		ASTValidationCache.getInstance().save();
 		Activator.plugin = null;
 		super.stop(context);
 	}
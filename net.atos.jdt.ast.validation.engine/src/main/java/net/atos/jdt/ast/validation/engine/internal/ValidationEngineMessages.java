@@ -32,7 +32,7 @@ import java.util.ResourceBundle;
  * @since 1.0
  */
 public enum ValidationEngineMessages {
-	RETRIEVING_CU, VALIDATING_SOURCE, VALIDATING_CU, RULE_LOADING_EXCEPTION, CONTEXT_LOADING_EXCEPTION, EXECUTION_EXECPTION, EXCEPTION_DURING_RULE_EXECUTION, EXCEPTION_DURING_RULEEXEC;
+	RETRIEVING_CU, VALIDATING_SOURCE, VALIDATING_CU, RULE_LOADING_EXCEPTION, CONTEXT_LOADING_EXCEPTION, EXECUTION_EXECPTION, EXCEPTION_DURING_RULE_EXECUTION, EXCEPTION_DURING_RULEEXEC, VALIDATING_UNIT, PROBLEMS_SUPPRESSED_BY_RULE, PROBLEMS_SUPPRESSED_BY_REPOSITORY, RULE_TIME_BUDGET_EXCEEDED, RULE_QUARANTINED;
 
 	/*
 	 * ResourceBundle instance
@@ -0,0 +1,236 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.atos.jdt.ast.validation.engine.ASTRulesPreferences;
+import net.atos.jdt.ast.validation.engine.internal.Activator;
+import net.atos.jdt.ast.validation.engine.internal.ValidationEngineMessages;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.ICompilationUnit;
+
+/**
+ * Quarantines the rules that fail repeatedly, so that a broken rule does not
+ * pay the cost of its exceptions, and does not flood the error log, on every
+ * unit of a build.
+ * 
+ * When a rule fails (exception or time budget exceeded) as many times as the
+ * threshold within the window, the breaker trips: the rule is skipped for the
+ * rest of the run, and a single entry summarizing its failures is logged.
+ * Failures before that are logged individually; failures after are not.
+ * 
+ * The rule is retried on a later run, with an exponential backoff: it is
+ * skipped during 1, 2, 4... more runs, each time it trips again. On retry, a
+ * single failure trips the breaker again, while a run without failure closes
+ * it.
+ * 
+ * Runs are delimited by the engine, for the builds, and by the validation
+ * participant, for the reconciles. Builds and reconciles have their own
+ * breakers, so that a rule quarantined while the user is typing is still
+ * retried and closed by the next reconciles. Rules are identified by their
+ * class name, so that the state survives the reload of the rules.
+ * 
+ * @since 1.2
+ */
+public final class ASTCircuitBreaker {
+
+	/**
+	 * Instance of the builds
+	 */
+	private static final ASTCircuitBreaker INSTANCE = new ASTCircuitBreaker();
+
+	/**
+	 * Instance of the reconciles
+	 */
+	private static final ASTCircuitBreaker RECONCILE_INSTANCE = new ASTCircuitBreaker();
+
+	/**
+	 * Maximum exponent of the backoff
+	 */
+	private static final int MAX_BACKOFF_EXPONENT = 10;
+
+	/**
+	 * State of the rules that failed at least once
+	 */
+	private final ConcurrentMap<String, RuleState> states = new ConcurrentHashMap<String, RuleState>();
+
+	/**
+	 * Number of the current run
+	 */
+	private volatile long run;
+
+	/**
+	 * Private constructor
+	 */
+	private ASTCircuitBreaker() {
+	}
+
+	/**
+	 * @return instance of the builds
+	 */
+	public static ASTCircuitBreaker getInstance() {
+		return ASTCircuitBreaker.INSTANCE;
+	}
+
+	/**
+	 * @return instance of the reconciles, whose runs are the reconciles
+	 */
+	public static ASTCircuitBreaker getReconcileInstance() {
+		return ASTCircuitBreaker.RECONCILE_INSTANCE;
+	}
+
+	/**
+	 * Notifies the beginning of a run
+	 */
+	public synchronized void startRun() {
+		this.run++;
+	}
+
+	/**
+	 * Notifies the end of a run. Rules retried during the run, and that did
+	 * not fail again, are not quarantined anymore.
+	 */
+	public synchronized void endRun() {
+		for (final RuleState state : this.states.values()) {
+			synchronized (state) {
+				if (state.probing && (this.run > state.skipUntilRun)) {
+					state.probing = false;
+					state.trips = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the rule can be executed, i.e. whether it is not
+	 * quarantined
+	 * 
+	 * @param ruleId
+	 * @return
+	 */
+	public boolean allows(final String ruleId) {
+		if (this.states.isEmpty()) {
+			return true;
+		}
+		final RuleState state = this.states.get(ruleId);
+		return (state == null) || (this.run > state.skipUntilRun);
+	}
+
+	/**
+	 * Records the failure of the rule on the compilation unit, and logs it,
+	 * unless the rule has already been quarantined. Trips the breaker if the
+	 * threshold is reached.
+	 * 
+	 * @param ruleId
+	 * @param compilationUnit
+	 * @param failure
+	 *            exception raised by the rule, or null if the rule could not
+	 *            be instantiated
+	 */
+	public void recordFailure(final String ruleId, final ICompilationUnit compilationUnit, final Throwable failure) {
+		final int threshold = ASTRulesPreferences.getCircuitBreakerThreshold();
+		if (threshold <= 0) {
+			ASTRulesRunner.logFailure(ruleId, compilationUnit, failure);
+			return;
+		}
+		RuleState state = this.states.get(ruleId);
+		if (state == null) {
+			final RuleState created = new RuleState();
+			state = this.states.putIfAbsent(ruleId, created);
+			if (state == null) {
+				state = created;
+			}
+		}
+		final long now = System.currentTimeMillis();
+		final long window = ASTRulesPreferences.getCircuitBreakerWindow() * 1000L;
+		final int failures;
+		final long skipped;
+		synchronized (state) {
+			if (this.run <= state.skipUntilRun) {
+				// Already quarantined, e.g. by another worker
+				return;
+			}
+			if ((now - state.windowStart) > window) {
+				state.windowStart = now;
+				state.failures = 0;
+			}
+			state.failures++;
+			if (state.failures < (state.probing ? 1 : threshold)) {
+				failures = 0;
+				skipped = 0;
+			} else {
+				state.trips++;
+				final int exponent = Math.min(state.trips - 1, ASTCircuitBreaker.MAX_BACKOFF_EXPONENT);
+				skipped = 1L << exponent;
+				state.skipUntilRun = this.run + skipped;
+				state.probing = true;
+				failures = state.failures;
+				state.failures = 0;
+			}
+		}
+		if (failures == 0) {
+			ASTRulesRunner.logFailure(ruleId, compilationUnit, failure);
+		} else {
+			Activator
+					.getDefault()
+					.getLog()
+					.log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, ValidationEngineMessages.RULE_QUARANTINED
+							.value(ruleId, failures, skipped), failure));
+		}
+	}
+
+	/**
+	 * Failures state of a rule
+	 */
+	private static final class RuleState {
+
+		/**
+		 * Number of failures in the current window
+		 */
+		private int failures;
+
+		/**
+		 * Start of the current window
+		 */
+		private long windowStart;
+
+		/**
+		 * Number of consecutive times the breaker tripped
+		 */
+		private int trips;
+
+		/**
+		 * Last run during which the rule is skipped
+		 */
+		private volatile long skipUntilRun = -1;
+
+		/**
+		 * True if the rule is retried after having been quarantined
+		 */
+		private boolean probing;
+	}
+
+}
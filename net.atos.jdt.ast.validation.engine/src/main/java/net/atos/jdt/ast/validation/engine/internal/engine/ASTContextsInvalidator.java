@@ -0,0 +1,204 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.atos.jdt.ast.validation.engine.rules.AbstractProjectContext;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Listens to the classpath and resource changes, and discards the results
+ * cached by the project contexts for the impacted projects.
+ * 
+ * A project is considered as impacted when its classpath changes, when it is
+ * opened, closed, added or removed, or when one of its files, other than Java
+ * sources and derived resources, is added, removed or modified (e.g. manifest
+ * or project description).
+ * 
+ * @since 1.2
+ */
+public final class ASTContextsInvalidator implements IElementChangedListener, IResourceChangeListener {
+
+	/**
+	 * Singleton instance
+	 */
+	private static final ASTContextsInvalidator INSTANCE = new ASTContextsInvalidator();
+
+	/**
+	 * Classpath related flags of Java project deltas
+	 */
+	private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED
+			| IJavaElementDelta.F_CLOSED;
+
+	/**
+	 * Project contexts, weakly referenced
+	 */
+	private static final Map<AbstractProjectContext, Boolean> CONTEXTS = Collections
+			.synchronizedMap(new WeakHashMap<AbstractProjectContext, Boolean>());
+
+	/**
+	 * Private constructor
+	 */
+	private ASTContextsInvalidator() {
+	}
+
+	/**
+	 * @return singleton instance
+	 */
+	public static ASTContextsInvalidator getInstance() {
+		return ASTContextsInvalidator.INSTANCE;
+	}
+
+	/**
+	 * Registers context, whose cached results are to be invalidated
+	 * 
+	 * @param context
+	 */
+	public static void register(final AbstractProjectContext context) {
+		ASTContextsInvalidator.CONTEXTS.put(context, Boolean.TRUE);
+	}
+
+	/**
+	 * Starts listening to the workspace changes
+	 */
+	public void install() {
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Stops listening to the workspace changes
+	 */
+	public void uninstall() {
+		JavaCore.removeElementChangedListener(this);
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse
+	 * .jdt.core.ElementChangedEvent)
+	 */
+	@Override
+	public void elementChanged(final ElementChangedEvent event) {
+		for (final IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+			if (delta.getElement().getElementType() != IJavaElement.JAVA_PROJECT) {
+				continue;
+			}
+			final boolean classpathChanged = (delta.getFlags() & ASTContextsInvalidator.CLASSPATH_FLAGS) != 0;
+			if ((delta.getKind() != IJavaElementDelta.CHANGED) || classpathChanged) {
+				ASTContextsInvalidator.invalidate((IJavaProject) delta.getElement());
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org
+	 * .eclipse.core.resources.IResourceChangeEvent)
+	 */
+	@Override
+	public void resourceChanged(final IResourceChangeEvent event) {
+		if (event.getDelta() == null) {
+			return;
+		}
+		for (final IResourceDelta delta : event.getDelta().getAffectedChildren()) {
+			if ((delta.getResource() instanceof IProject) && ASTContextsInvalidator.isImpacted(delta)) {
+				ASTContextsInvalidator.invalidate(JavaCore.create((IProject) delta.getResource()));
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the project delta may change the results of the
+	 * contexts
+	 * 
+	 * @param projectDelta
+	 * @return
+	 */
+	private static boolean isImpacted(final IResourceDelta projectDelta) {
+		if ((projectDelta.getKind() != IResourceDelta.CHANGED)
+				|| ((projectDelta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0)) {
+			return true;
+		}
+		final boolean[] impacted = new boolean[1];
+		try {
+			projectDelta.accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(final IResourceDelta delta) throws CoreException {
+					final IResource resource = delta.getResource();
+					if (impacted[0] || resource.isDerived()) {
+						return false;
+					}
+					if ((resource.getType() == IResource.FILE) && !"java".equals(resource.getFileExtension())) {
+						final int contentFlags = IResourceDelta.CONTENT | IResourceDelta.REPLACED;
+						impacted[0] = (delta.getKind() != IResourceDelta.CHANGED)
+								|| ((delta.getFlags() & contentFlags) != 0);
+					}
+					return !impacted[0];
+				}
+			});
+		} catch (final CoreException e) {
+			return true;
+		}
+		return impacted[0];
+	}
+
+	/**
+	 * Discards the results cached by all the contexts for the project
+	 * 
+	 * @param javaProject
+	 */
+	private static void invalidate(final IJavaProject javaProject) {
+		final List<AbstractProjectContext> contexts;
+		synchronized (ASTContextsInvalidator.CONTEXTS) {
+			contexts = new ArrayList<AbstractProjectContext>(ASTContextsInvalidator.CONTEXTS.keySet());
+		}
+		for (final AbstractProjectContext context : contexts) {
+			context.invalidate(javaProject);
+		}
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map that reads through a shared, immutable snapshot, and that copies it
+ * only when it is modified for the first time. This allows the session of a
+ * run to be shared by reference by all the rules, while rules that write in
+ * their session still get their own copy.
+ * 
+ * @since 1.2
+ * 
+ * @param <K>
+ * @param <V>
+ */
+public class ASTCopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+
+	/**
+	 * Shared snapshot. Never modified.
+	 */
+	private Map<K, V> shared = Collections.emptyMap();
+
+	/**
+	 * Local copy of the snapshot, created at first modification, or null
+	 */
+	private Map<K, V> local;
+
+	/**
+	 * View of the entries, created at first request
+	 */
+	private Set<Map.Entry<K, V>> entrySet;
+
+	/**
+	 * Replaces the content of this map by the snapshot provided, without
+	 * copying it
+	 * 
+	 * @param snapshot
+	 *            shared snapshot, that must not be modified afterwards
+	 */
+	public void reset(final Map<K, V> snapshot) {
+		this.shared = snapshot;
+		this.local = null;
+	}
+
+	/**
+	 * @return map to read from
+	 */
+	private Map<K, V> read() {
+		return this.local != null ? this.local : this.shared;
+	}
+
+	/**
+	 * @return map to write to, copied from the snapshot if needed
+	 */
+	private Map<K, V> write() {
+		if (this.local == null) {
+			this.local = new HashMap<K, V>(this.shared);
+		}
+		return this.local;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public V get(final Object key) {
+		return this.read().get(key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(final Object key) {
+		return this.read().containsKey(key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return this.read().size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public V put(final K key, final V value) {
+		return this.write().put(key, value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public V remove(final Object key) {
+		return this.read().containsKey(key) ? this.write().remove(key) : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear() {
+		this.shared = Collections.emptyMap();
+		this.local = null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	/**
+	 * View of the entries, that reads through the snapshot as long as the map
+	 * is not modified. The snapshot is only copied when an entry is removed or
+	 * modified through the view.
+	 */
+	private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.AbstractCollection#iterator()
+		 */
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			if (ASTCopyOnWriteMap.this.local != null) {
+				return ASTCopyOnWriteMap.this.local.entrySet().iterator();
+			}
+			return new EntryIterator(ASTCopyOnWriteMap.this.shared.entrySet().iterator());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return ASTCopyOnWriteMap.this.size();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.AbstractCollection#contains(java.lang.Object)
+		 */
+		@Override
+		public boolean contains(final Object o) {
+			return ASTCopyOnWriteMap.this.read().entrySet().contains(o);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.AbstractCollection#remove(java.lang.Object)
+		 */
+		@Override
+		public boolean remove(final Object o) {
+			return this.contains(o) && ASTCopyOnWriteMap.this.write().entrySet().remove(o);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.AbstractCollection#clear()
+		 */
+		@Override
+		public void clear() {
+			ASTCopyOnWriteMap.this.clear();
+		}
+	}
+
+	/**
+	 * Iterator over the entries of the snapshot, whose modifications are
+	 * applied to the local copy
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+		/**
+		 * Iterator over the snapshot
+		 */
+		private final Iterator<Map.Entry<K, V>> delegate;
+
+		/**
+		 * Entry last returned, or null
+		 */
+		private Map.Entry<K, V> last;
+
+		/**
+		 * @param delegate
+		 */
+		public EntryIterator(final Iterator<Map.Entry<K, V>> delegate) {
+			this.delegate = delegate;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			return this.delegate.hasNext();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public Map.Entry<K, V> next() {
+			this.last = new Entry(this.delegate.next());
+			return this.last;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			if (this.last == null) {
+				throw new IllegalStateException();
+			}
+			ASTCopyOnWriteMap.this.write().remove(this.last.getKey());
+			this.last = null;
+		}
+	}
+
+	/**
+	 * Entry of the snapshot, whose modification is applied to the local copy
+	 */
+	private class Entry extends AbstractMap.SimpleEntry<K, V> {
+
+		/**
+		 * Serial Version UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * @param entry
+		 */
+		public Entry(final Map.Entry<K, V> entry) {
+			super(entry);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.AbstractMap.SimpleEntry#setValue(java.lang.Object)
+		 */
+		@Override
+		public V setValue(final V value) {
+			ASTCopyOnWriteMap.this.write().put(this.getKey(), value);
+			return super.setValue(value);
+		}
+	}
+
+}
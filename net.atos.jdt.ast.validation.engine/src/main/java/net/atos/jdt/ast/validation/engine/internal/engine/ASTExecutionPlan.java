@@ -0,0 +1,309 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.ASTRulesPreferences;
+import net.atos.jdt.ast.validation.engine.ASTRulesRepository;
+import net.atos.jdt.ast.validation.engine.IASTRulesDataSource;
+import net.atos.jdt.ast.validation.engine.internal.extpt.ASTRulesExtensionPoint;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+
+/**
+ * Immutable snapshot of the rules to execute: repositories, the rules of each
+ * of them that are enabled in preferences, and the preferences that drive
+ * their execution. Built once, so that preferences are not read for each
+ * compilation unit.
+ * 
+ * Plans of the extension point are shared across runs, and replaced when the
+ * preferences or the extension registry change.
+ * 
+ * @since 1.2
+ */
+public final class ASTExecutionPlan {
+
+	/**
+	 * Maximum number of repositories for which the rules are precomputed for
+	 * all the combinations of repository contexts
+	 */
+	private static final int MAX_COMBINED_REPOSITORIES = 8;
+
+	/**
+	 * Empty array of rules
+	 */
+	private static final ASTRuleDescriptor[] NONE = new ASTRuleDescriptor[0];
+
+	/**
+	 * Repositories to execute
+	 */
+	private final ASTRulesRepository[] repositories;
+
+	/**
+	 * Enabled rules, by repository
+	 */
+	private final ASTRuleDescriptor[][] rules;
+
+	/**
+	 * Marker types of the repositories
+	 */
+	private final String[] markerIds;
+
+	/**
+	 * Rules to execute, by combination of repositories whose context accepts
+	 * the compilation unit. Lazily filled, and only used if there are few
+	 * repositories.
+	 */
+	private final AtomicReferenceArray<ASTRuleDescriptor[]> combinedRules;
+
+	/**
+	 * Maximum number of problems kept per rule and compilation unit
+	 */
+	private final int maxProblemsPerRule;
+
+	/**
+	 * Maximum number of problems kept per repository and compilation unit
+	 */
+	private final int maxProblemsPerRepository;
+
+	/**
+	 * Time budget of a rule on a compilation unit, in milliseconds
+	 */
+	private final int ruleTimeBudget;
+
+	/**
+	 * Time budget of all the rules on a compilation unit, in milliseconds
+	 */
+	private final int unitTimeBudget;
+
+	/**
+	 * Maximum number of entries of the validation cache
+	 */
+	private final int validationCacheSize;
+
+	/**
+	 * True if rule instances are owned by the threads
+	 */
+	private final boolean rulesPooled;
+
+	/**
+	 * True if rule instances are shared by all the executions
+	 */
+	private final boolean rulesSingletons;
+
+	/**
+	 * Builds the plan for the repositories provided, reading the rules
+	 * enablement and the execution settings in preferences
+	 * 
+	 * @param repositories
+	 */
+	private ASTExecutionPlan(final List<ASTRulesRepository> repositories) {
+		this.repositories = repositories.toArray(new ASTRulesRepository[repositories.size()]);
+		this.rules = new ASTRuleDescriptor[this.repositories.length][];
+		this.markerIds = new String[this.repositories.length];
+		for (int index = 0; index < this.repositories.length; index++) {
+			final List<ASTRuleDescriptor> enabledRules = new ArrayList<ASTRuleDescriptor>();
+			for (final ASTRuleDescriptor rule : this.repositories[index].getRules()) {
+				if (rule.isMandatory() || ASTRulesPreferences.isEnabled(rule)) {
+					enabledRules.add(rule);
+				}
+			}
+			this.rules[index] = enabledRules.toArray(new ASTRuleDescriptor[enabledRules.size()]);
+			this.markerIds[index] = this.repositories[index].getMarkerId();
+		}
+		if (this.repositories.length <= ASTExecutionPlan.MAX_COMBINED_REPOSITORIES) {
+			this.combinedRules = new AtomicReferenceArray<ASTRuleDescriptor[]>(1 << this.repositories.length);
+		} else {
+			this.combinedRules = null;
+		}
+		this.maxProblemsPerRule = ASTRulesPreferences.getMaxProblemsPerRule();
+		this.maxProblemsPerRepository = ASTRulesPreferences.getMaxProblemsPerRepository();
+		this.ruleTimeBudget = ASTRulesPreferences.getRuleTimeBudget();
+		this.unitTimeBudget = ASTRulesPreferences.getUnitTimeBudget();
+		this.validationCacheSize = ASTRulesPreferences.getValidationCacheSize();
+		this.rulesPooled = ASTRulesPreferences.areRulesPooled();
+		this.rulesSingletons = ASTRulesPreferences.areRulesSingletons();
+	}
+
+	/**
+	 * Returns the plan for the repositories of the data source. Plans of the
+	 * extension point are shared, while plans of other data sources, that do
+	 * not notify their changes, are built for each call.
+	 * 
+	 * @param dataSource
+	 * @param validRepositories
+	 * @return
+	 */
+	public static ASTExecutionPlan forDataSource(final IASTRulesDataSource dataSource,
+			final String... validRepositories) {
+		if (dataSource instanceof ASTRulesExtensionPoint) {
+			return ((ASTRulesExtensionPoint) dataSource).getExecutionPlan(validRepositories);
+		}
+		return ASTExecutionPlan.build(dataSource.getRepositories(validRepositories));
+	}
+
+	/**
+	 * Builds the plan for the repositories provided
+	 * 
+	 * @param repositories
+	 * @return
+	 */
+	public static ASTExecutionPlan build(final List<ASTRulesRepository> repositories) {
+		return new ASTExecutionPlan(repositories);
+	}
+
+	/**
+	 * @return marker types of the repositories to execute
+	 */
+	public String[] getMarkerIds() {
+		return this.markerIds;
+	}
+
+	/**
+	 * @return maximum number of problems kept per rule and compilation unit
+	 *         (see {@link ASTRulesPreferences#getMaxProblemsPerRule()})
+	 */
+	public int getMaxProblemsPerRule() {
+		return this.maxProblemsPerRule;
+	}
+
+	/**
+	 * @return maximum number of problems kept per repository and compilation
+	 *         unit (see {@link ASTRulesPreferences#getMaxProblemsPerRepository()})
+	 */
+	public int getMaxProblemsPerRepository() {
+		return this.maxProblemsPerRepository;
+	}
+
+	/**
+	 * @return time budget of a rule on a compilation unit, in milliseconds
+	 *         (see {@link ASTRulesPreferences#getRuleTimeBudget()})
+	 */
+	public int getRuleTimeBudget() {
+		return this.ruleTimeBudget;
+	}
+
+	/**
+	 * @return time budget of all the rules on a compilation unit, in
+	 *         milliseconds (see {@link ASTRulesPreferences#getUnitTimeBudget()})
+	 */
+	public int getUnitTimeBudget() {
+		return this.unitTimeBudget;
+	}
+
+	/**
+	 * @return maximum number of entries of the validation cache (see
+	 *         {@link ASTRulesPreferences#getValidationCacheSize()})
+	 */
+	public int getValidationCacheSize() {
+		return this.validationCacheSize;
+	}
+
+	/**
+	 * Returns the instance of the stateful rule to execute, as set in
+	 * preferences when the plan was built
+	 * 
+	 * @param ruleDescriptor
+	 * @return
+	 */
+	public AbstractASTRule getRule(final ASTRuleDescriptor ruleDescriptor) {
+		return ruleDescriptor.getRule(this.rulesPooled, this.rulesSingletons);
+	}
+
+	/**
+	 * Returns the enabled rules to execute on the compilation unit: the ones
+	 * of the repositories whose context accepts the unit. Returned array is
+	 * shared, and must not be modified.
+	 * 
+	 * @param compilationUnit
+	 * @return
+	 */
+	public ASTRuleDescriptor[] getRules(final ICompilationUnit compilationUnit) {
+		if (this.combinedRules == null) {
+			return this.combine(compilationUnit);
+		}
+		int combination = 0;
+		for (int index = 0; index < this.repositories.length; index++) {
+			if (this.repositories[index].isEnabled(compilationUnit)) {
+				combination |= 1 << index;
+			}
+		}
+		ASTRuleDescriptor[] rules = this.combinedRules.get(combination);
+		if (rules == null) {
+			rules = this.combine(combination);
+			this.combinedRules.set(combination, rules);
+		}
+		return rules;
+	}
+
+	/**
+	 * Concatenates the rules of the repositories matching the combination
+	 * 
+	 * @param combination
+	 * @return
+	 */
+	private ASTRuleDescriptor[] combine(final int combination) {
+		int count = 0;
+		for (int index = 0; index < this.repositories.length; index++) {
+			if ((combination & (1 << index)) != 0) {
+				count += this.rules[index].length;
+			}
+		}
+		if (count == 0) {
+			return ASTExecutionPlan.NONE;
+		}
+		final ASTRuleDescriptor[] rules = new ASTRuleDescriptor[count];
+		count = 0;
+		for (int index = 0; index < this.repositories.length; index++) {
+			if ((combination & (1 << index)) != 0) {
+				System.arraycopy(this.rules[index], 0, rules, count, this.rules[index].length);
+				count += this.rules[index].length;
+			}
+		}
+		return rules;
+	}
+
+	/**
+	 * Concatenates the rules of the repositories whose context accepts the
+	 * compilation unit. Used when there are too many repositories for the
+	 * combinations to be precomputed.
+	 * 
+	 * @param compilationUnit
+	 * @return
+	 */
+	private ASTRuleDescriptor[] combine(final ICompilationUnit compilationUnit) {
+		final List<ASTRuleDescriptor> rules = new ArrayList<ASTRuleDescriptor>();
+		for (int index = 0; index < this.repositories.length; index++) {
+			if (this.repositories[index].isEnabled(compilationUnit)) {
+				for (final ASTRuleDescriptor rule : this.rules[index]) {
+					rules.add(rule);
+				}
+			}
+		}
+		return rules.isEmpty() ? ASTExecutionPlan.NONE : rules.toArray(new ASTRuleDescriptor[rules.size()]);
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
+import net.atos.jdt.ast.validation.engine.internal.Activator;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTFlightEvent;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetrics;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTTracer;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+
+/**
+ * Collects the markers to replace on resources, and writes all of them within
+ * a single workspace operation, so that resource change listeners are
+ * notified only once, with a single delta. Markers matching findings that did
+ * not change are left untouched.
+ * 
+ * Publication time, and the number of markers created, updated and deleted,
+ * are recorded for each marker type, if metrics are enabled (see
+ * {@link ASTMetrics}). Each write is emitted as a flight recorder event, if
+ * a recording is running (see {@link ASTFlightEvent}), and traced if a
+ * tracer has been set.
+ * 
+ * @since 1.2
+ */
+public class ASTMarkersWriter {
+
+	/**
+	 * Marker types to replace, by resource
+	 */
+	private final Map<IResource, Set<String>> markerIds = new LinkedHashMap<IResource, Set<String>>();
+
+	/**
+	 * Problems to turn into markers, by resource
+	 */
+	private final Map<IResource, List<ASTValidationProblem>> problems =
+			new LinkedHashMap<IResource, List<ASTValidationProblem>>();
+
+	/**
+	 * Tracer of the writes, or null
+	 */
+	private ASTTracer tracer;
+
+	/**
+	 * Sets the tracer of the writes
+	 * 
+	 * @param tracer
+	 *            tracer, or null to stop tracing
+	 */
+	public void setTracer(final ASTTracer tracer) {
+		this.tracer = tracer;
+	}
+
+	/**
+	 * Registers the markers to write on resource: the existing markers of the
+	 * types provided are to be replaced by the ones matching the problems.
+	 * 
+	 * @param resource
+	 * @param markerIds
+	 * @param problems
+	 */
+	public void add(final IResource resource, final Collection<String> markerIds,
+			final Collection<ASTValidationProblem> problems) {
+		Set<String> resourceMarkerIds = this.markerIds.get(resource);
+		if (resourceMarkerIds == null) {
+			resourceMarkerIds = new LinkedHashSet<String>();
+			this.markerIds.put(resource, resourceMarkerIds);
+			this.problems.put(resource, new ArrayList<ASTValidationProblem>());
+		}
+		resourceMarkerIds.addAll(markerIds);
+		this.problems.get(resource).addAll(problems);
+	}
+
+	/**
+	 * @return true if there is no marker to write
+	 */
+	public boolean isEmpty() {
+		return this.markerIds.isEmpty();
+	}
+
+	/**
+	 * Writes the registered markers, within a single workspace operation
+	 * holding the marker rules of all the resources. Writer is empty
+	 * afterwards.
+	 * 
+	 * Existing markers are compared with the problems, by rule, range and
+	 * message, so that only the differences are written. The workspace is not
+	 * modified at all if the markers are up to date.
+	 * 
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	public void write(final IProgressMonitor monitor) throws CoreException {
+		final Map<IResource, List<ASTValidationProblem>> markersToCreate =
+				new LinkedHashMap<IResource, List<ASTValidationProblem>>();
+		final Map<IMarker, Map<String, Object>> markersToUpdate = new LinkedHashMap<IMarker, Map<String, Object>>();
+		final List<IMarker> markersToDelete = new ArrayList<IMarker>();
+		final boolean metricsEnabled = ASTMetrics.getInstance().isEnabled();
+		final Object event = ASTFlightEvent.MARKERS.begin();
+		final long start = System.nanoTime();
+		final Map<String, int[]> counts = new LinkedHashMap<String, int[]>();
+		final int resourcesCount = this.markerIds.size();
+		try {
+			for (final IResource resource : this.markerIds.keySet()) {
+				if (metricsEnabled) {
+					for (final String markerId : this.markerIds.get(resource)) {
+						ASTMarkersWriter.getCounts(counts, markerId);
+					}
+				}
+				if (resource.exists()) {
+					this.compare(resource, markersToCreate, markersToUpdate, markersToDelete);
+				}
+			}
+		} finally {
+			this.markerIds.clear();
+			this.problems.clear();
+		}
+		if (markersToCreate.isEmpty() && markersToUpdate.isEmpty() && markersToDelete.isEmpty()) {
+			if (metricsEnabled) {
+				ASTMarkersWriter.recordMetrics(counts, System.nanoTime() - start);
+			}
+			ASTFlightEvent.MARKERS.commit(event, resourcesCount, 0, 0, 0);
+			return;
+		}
+		if (metricsEnabled) {
+			// Markers are counted before being deleted, as their type cannot
+			// be read afterwards
+			ASTMarkersWriter.countMarkers(counts, markersToCreate, markersToUpdate, markersToDelete);
+		}
+
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		final IResourceRuleFactory ruleFactory = workspace.getRuleFactory();
+		final Set<IResource> resources = new LinkedHashSet<IResource>(markersToCreate.keySet());
+		for (final IMarker marker : markersToUpdate.keySet()) {
+			resources.add(marker.getResource());
+		}
+		for (final IMarker marker : markersToDelete) {
+			resources.add(marker.getResource());
+		}
+		final List<ISchedulingRule> rules = new ArrayList<ISchedulingRule>();
+		for (final IResource resource : resources) {
+			final ISchedulingRule rule = ruleFactory.markerRule(resource);
+			if (rule != null) {
+				rules.add(rule);
+			}
+		}
+		final ISchedulingRule rule = rules.isEmpty() ? null : MultiRule.combine(rules
+				.toArray(new ISchedulingRule[rules.size()]));
+		workspace.run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				if (!markersToDelete.isEmpty()) {
+					workspace.deleteMarkers(markersToDelete.toArray(new IMarker[markersToDelete.size()]));
+				}
+				for (final Map.Entry<IMarker, Map<String, Object>> entry : markersToUpdate.entrySet()) {
+					if (entry.getKey().exists()) {
+						ASTMarkersWriter.setAttributes(entry.getKey(), entry.getValue());
+					}
+				}
+				for (final Map.Entry<IResource, List<ASTValidationProblem>> entry : markersToCreate.entrySet()) {
+					for (final ASTValidationProblem problem : entry.getValue()) {
+						try {
+							final IMarker marker = entry.getKey().createMarker(problem.getMarkerType());
+							ASTMarkersWriter.setAttributes(marker, problem.getMarkerAttributes());
+						} catch (final CoreException e) {
+							Activator.logException(e);
+						}
+					}
+				}
+			}
+		}, rule, IWorkspace.AVOID_UPDATE, monitor);
+		if (metricsEnabled) {
+			ASTMarkersWriter.recordMetrics(counts, System.nanoTime() - start);
+		}
+		if ((event != null) || (this.tracer != null)) {
+			int created = 0;
+			for (final List<ASTValidationProblem> problems : markersToCreate.values()) {
+				created += problems.size();
+			}
+			ASTFlightEvent.MARKERS.commit(event, resourcesCount, created, markersToUpdate.size(),
+					markersToDelete.size());
+			if (this.tracer != null) {
+				this.tracer.span("Markers", ASTTracer.MARKERS, start, System.nanoTime() - start, null, "resources",
+						String.valueOf(resourcesCount), "created", String.valueOf(created), "updated",
+						String.valueOf(markersToUpdate.size()), "deleted", String.valueOf(markersToDelete.size()));
+			}
+		}
+	}
+
+	/**
+	 * Counts the markers to create, update and delete, by marker type. Index 0
+	 * of the counts holds the markers created, index 1 the markers updated,
+	 * and index 2 the markers deleted.
+	 * 
+	 * @param counts
+	 * @param markersToCreate
+	 * @param markersToUpdate
+	 * @param markersToDelete
+	 * @throws CoreException
+	 */
+	private static void countMarkers(final Map<String, int[]> counts,
+			final Map<IResource, List<ASTValidationProblem>> markersToCreate,
+			final Map<IMarker, Map<String, Object>> markersToUpdate, final List<IMarker> markersToDelete)
+			throws CoreException {
+		for (final List<ASTValidationProblem> problems : markersToCreate.values()) {
+			for (final ASTValidationProblem problem : problems) {
+				ASTMarkersWriter.getCounts(counts, problem.getMarkerType())[0]++;
+			}
+		}
+		for (final IMarker marker : markersToUpdate.keySet()) {
+			ASTMarkersWriter.getCounts(counts, marker.getType())[1]++;
+		}
+		for (final IMarker marker : markersToDelete) {
+			ASTMarkersWriter.getCounts(counts, marker.getType())[2]++;
+		}
+	}
+
+	/**
+	 * Returns the counts of the marker type, creating them if needed
+	 * 
+	 * @param counts
+	 * @param markerType
+	 * @return
+	 */
+	private static int[] getCounts(final Map<String, int[]> counts, final String markerType) {
+		int[] markerTypeCounts = counts.get(markerType);
+		if (markerTypeCounts == null) {
+			markerTypeCounts = new int[3];
+			counts.put(markerType, markerTypeCounts);
+		}
+		return markerTypeCounts;
+	}
+
+	/**
+	 * Records the publication metrics of each marker type. Time of the whole
+	 * publication is recorded for each of them.
+	 * 
+	 * @param counts
+	 * @param nanos
+	 */
+	private static void recordMetrics(final Map<String, int[]> counts, final long nanos) {
+		for (final Map.Entry<String, int[]> entry : counts.entrySet()) {
+			ASTMetrics.getInstance().recordPublication(entry.getKey(), nanos, entry.getValue()[0],
+					entry.getValue()[1], entry.getValue()[2]);
+		}
+	}
+
+	/**
+	 * Compares the existing markers of the resource with the problems, and
+	 * collects the markers to create, update and delete.
+	 * 
+	 * @param resource
+	 * @param markersToCreate
+	 * @param markersToUpdate
+	 * @param markersToDelete
+	 * @throws CoreException
+	 */
+	private void compare(final IResource resource, final Map<IResource, List<ASTValidationProblem>> markersToCreate,
+			final Map<IMarker, Map<String, Object>> markersToUpdate, final List<IMarker> markersToDelete)
+			throws CoreException {
+		// Marker types may be subtypes of each other
+		final Set<IMarker> existingMarkers = new LinkedHashSet<IMarker>();
+		for (final String markerId : this.markerIds.get(resource)) {
+			existingMarkers.addAll(Arrays.asList(resource.findMarkers(markerId, true, IResource.DEPTH_ZERO)));
+		}
+		final Map<String, LinkedList<IMarker>> markersByKey = new HashMap<String, LinkedList<IMarker>>();
+		for (final IMarker marker : existingMarkers) {
+			final String key = ASTMarkersWriter.getKey(marker.getType(),
+					marker.getAttribute(AbstractASTRule.RULE_ID_KEY, (String) null),
+					marker.getAttribute(IMarker.CHAR_START, -1), marker.getAttribute(IMarker.CHAR_END, -1),
+					marker.getAttribute(IMarker.MESSAGE, (String) null));
+			LinkedList<IMarker> markers = markersByKey.get(key);
+			if (markers == null) {
+				markers = new LinkedList<IMarker>();
+				markersByKey.put(key, markers);
+			}
+			markers.add(marker);
+		}
+		for (final ASTValidationProblem problem : this.problems.get(resource)) {
+			final String key = ASTMarkersWriter.getKey(problem.getMarkerType(), problem.getRuleId(),
+					problem.getSourceStart(), problem.getSourceEnd(), problem.getMessage());
+			final LinkedList<IMarker> markers = markersByKey.get(key);
+			if ((markers != null) && !markers.isEmpty()) {
+				// Same finding: marker is kept, and only updated if for
+				// instance its line or its severity changed
+				final IMarker marker = markers.removeFirst();
+				existingMarkers.remove(marker);
+				final Map<String, Object> attributes = problem.getMarkerAttributes();
+				if (!ASTMarkersWriter.hasAttributes(marker, attributes)) {
+					markersToUpdate.put(marker, attributes);
+				}
+			} else {
+				List<ASTValidationProblem> problems = markersToCreate.get(resource);
+				if (problems == null) {
+					problems = new ArrayList<ASTValidationProblem>();
+					markersToCreate.put(resource, problems);
+				}
+				problems.add(problem);
+			}
+		}
+		markersToDelete.addAll(existingMarkers);
+	}
+
+	/**
+	 * Sets all the attributes provided on the marker, in a single call
+	 * 
+	 * @param marker
+	 * @param attributes
+	 * @throws CoreException
+	 */
+	public static void setAttributes(final IMarker marker, final Map<String, Object> attributes)
+			throws CoreException {
+		marker.setAttributes(attributes.keySet().toArray(new String[attributes.size()]), attributes.values()
+				.toArray());
+	}
+
+	/**
+	 * Returns true if the marker already holds the attributes provided
+	 * 
+	 * @param marker
+	 * @param attributes
+	 * @return
+	 * @throws CoreException
+	 */
+	private static boolean hasAttributes(final IMarker marker, final Map<String, Object> attributes)
+			throws CoreException {
+		final Map<?, ?> existingAttributes = marker.getAttributes();
+		if (existingAttributes == null) {
+			return false;
+		}
+		for (final Map.Entry<String, Object> attribute : attributes.entrySet()) {
+			if (!attribute.getValue().equals(existingAttributes.get(attribute.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the key identifying a finding, from the marker type, rule,
+	 * range and message
+	 * 
+	 * @param markerType
+	 * @param ruleId
+	 * @param startChar
+	 * @param endChar
+	 * @param message
+	 * @return
+	 */
+	private static String getKey(final String markerType, final String ruleId, final int startChar,
+			final int endChar, final String message) {
+		return new StringBuilder().append(markerType).append('\n').append(ruleId).append('\n').append(startChar)
+				.append('\n').append(endChar).append('\n').append(message).toString();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTParser;
+
+/**
+ * Parser configuration, computed from the requirements of the rules to
+ * execute. Starts from the cheapest configuration, and is widened by each of
+ * the rules. Configurations with the same settings are equal.
+ * 
+ * @since 1.2
+ */
+public class ASTParserConfiguration {
+
+	/**
+	 * True if bindings have to be resolved
+	 */
+	private boolean bindings;
+
+	/**
+	 * True if method bodies have to be parsed
+	 */
+	private boolean methodBodies;
+
+	/**
+	 * True if Javadoc comments have to be parsed
+	 */
+	private boolean javadoc;
+
+	/**
+	 * True if statements have to be recovered
+	 */
+	private boolean statementsRecovery;
+
+	/**
+	 * Widens the configuration, so that it meets the requirements of the rule
+	 * 
+	 * @param ruleDescriptor
+	 */
+	public void require(final ASTRuleDescriptor ruleDescriptor) {
+		this.bindings |= ruleDescriptor.requiresBindings();
+		this.methodBodies |= ruleDescriptor.requiresMethodBodies();
+		this.javadoc |= ruleDescriptor.requiresJavadoc();
+		this.statementsRecovery |= ruleDescriptor.requiresStatementsRecovery();
+	}
+
+	/**
+	 * @return true if bindings have to be resolved
+	 */
+	public boolean isResolvingBindings() {
+		return this.bindings;
+	}
+
+	/**
+	 * Applies the configuration to the parser, that will parse compilation
+	 * units from the project provided.
+	 * 
+	 * @param parser
+	 * @param javaProject
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void configure(final ASTParser parser, final IJavaProject javaProject) {
+		parser.setProject(javaProject);
+		parser.setResolveBindings(this.bindings);
+		parser.setBindingsRecovery(false);
+		parser.setStatementsRecovery(this.statementsRecovery);
+		parser.setIgnoreMethodBodies(!this.methodBodies);
+		if (!this.javadoc) {
+			final Map options = javaProject.getOptions(true);
+			options.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.DISABLED);
+			parser.setCompilerOptions(options);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return (this.bindings ? 1 : 0) | (this.methodBodies ? 2 : 0) | (this.javadoc ? 4 : 0)
+				| (this.statementsRecovery ? 8 : 0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (!(obj instanceof ASTParserConfiguration)) {
+			return false;
+		}
+		return this.hashCode() == obj.hashCode();
+	}
+}
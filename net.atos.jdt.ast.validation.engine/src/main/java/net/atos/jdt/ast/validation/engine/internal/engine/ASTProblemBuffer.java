@@ -0,0 +1,514 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
+import net.atos.jdt.ast.validation.engine.internal.ValidationEngineMessages;
+
+/**
+ * Compact storage of the problems raised on a compilation unit. Problems are
+ * recorded as integers in a single array, and their strings (message or
+ * message pattern, arguments, file name, marker type and rule identifier) are
+ * interned in a table. Raising a problem whose strings are already interned
+ * allocates nothing but the occasional growth of the arrays; each new string
+ * costs a table entry. The table is emptied when the buffer is reset, that is
+ * for each visit. Problems are turned into {@link ASTValidationProblem}
+ * instances only when they are requested.
+ * 
+ * A buffer can be limited: problems added over the limit are not stored, but
+ * counted in a single summary problem, raised at the position of the first
+ * problem suppressed.
+ * 
+ * Not thread safe: a buffer is owned by one visit, or by one result.
+ * 
+ * @since 1.2
+ */
+public class ASTProblemBuffer {
+
+	/**
+	 * Number of integers per problem
+	 */
+	private static final int STRIDE = 12;
+
+	/**
+	 * Offsets of the problem fields, in the entries
+	 */
+	private static final int START = 0, END = 1, LINE = 2, FLAGS = 3, MESSAGE = 4, FILE_NAME = 5, MARKER_ID = 6,
+			RULE_ID = 7, ID = 8, ARGUMENTS = 9, ARGUMENTS_COUNT = 10, SUPPRESSED = 11;
+
+	/**
+	 * Flags for the severity
+	 */
+	private static final int WARNING = 1, ERROR = 2;
+
+	/**
+	 * Flags for the summaries of suppressed problems
+	 */
+	private static final int RULE_SUMMARY = 4, REPOSITORY_SUMMARY = 8;
+
+	/**
+	 * Initial number of problems the buffer can hold
+	 */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * Problems, as integers
+	 */
+	private int[] entries = new int[0];
+
+	/**
+	 * Number of problems stored
+	 */
+	private int size;
+
+	/**
+	 * Arguments of the problems, as string indexes
+	 */
+	private int[] arguments = new int[0];
+
+	/**
+	 * Number of arguments stored
+	 */
+	private int argumentsSize;
+
+	/**
+	 * Interned strings, referenced by index from the entries
+	 */
+	private final List<String> strings = new ArrayList<String>();
+
+	/**
+	 * Indexes of the interned strings
+	 */
+	private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+
+	/**
+	 * Index of the file name of the problems added through
+	 * {@link #add(String, boolean, boolean, int, int, int)}
+	 */
+	private int fileNameIndex = -1;
+
+	/**
+	 * Index of the marker type of the problems added through
+	 * {@link #add(String, boolean, boolean, int, int, int)}
+	 */
+	private int markerIdIndex = -1;
+
+	/**
+	 * Index of the rule identifier of the problems added through
+	 * {@link #add(String, boolean, boolean, int, int, int)}
+	 */
+	private int ruleIdIndex = -1;
+
+	/**
+	 * Maximum number of problems added through the add methods, or -1
+	 */
+	private int limit = -1;
+
+	/**
+	 * Offset of the summary of the suppressed problems in the entries, or -1
+	 */
+	private int summaryOffset = -1;
+
+	/**
+	 * Problems materialized from the entries, or null if not requested since
+	 * last modification
+	 */
+	private List<ASTValidationProblem> problems;
+
+	/**
+	 * Empties the buffer, and sets the origin of the next problems added. The
+	 * origin is resolved once, instead of for each problem.
+	 * 
+	 * @param fileName
+	 * @param markerId
+	 * @param ruleId
+	 */
+	public void reset(final String fileName, final String markerId, final String ruleId) {
+		this.clear();
+		this.fileNameIndex = this.intern(fileName);
+		this.markerIdIndex = this.intern(markerId);
+		this.ruleIdIndex = this.intern(ruleId);
+	}
+
+	/**
+	 * Sets the maximum number of problems stored by the add methods. Problems
+	 * over the limit are only counted. Kept when the buffer is reset.
+	 * 
+	 * @param limit
+	 *            maximum number of problems, or negative value for no limit
+	 */
+	public void setLimit(final int limit) {
+		this.limit = limit < 0 ? -1 : limit;
+	}
+
+	/**
+	 * Empties the buffer
+	 */
+	public void clear() {
+		this.size = 0;
+		this.summaryOffset = -1;
+		this.argumentsSize = 0;
+		this.strings.clear();
+		this.stringIndexes.clear();
+		this.fileNameIndex = -1;
+		this.markerIdIndex = -1;
+		this.ruleIdIndex = -1;
+		this.problems = null;
+	}
+
+	/**
+	 * Records a problem, whose origin is the one set by the last reset
+	 * 
+	 * @param message
+	 * @param isWarning
+	 * @param isError
+	 * @param lineNumber
+	 * @param startChar
+	 * @param endChar
+	 */
+	public void add(final String message, final boolean isWarning, final boolean isError, final int lineNumber,
+			final int startChar, final int endChar) {
+		final int flags = (isWarning ? ASTProblemBuffer.WARNING : 0) | (isError ? ASTProblemBuffer.ERROR : 0);
+		if (this.suppress(flags, lineNumber, startChar, endChar)) {
+			return;
+		}
+		this.add(startChar, endChar, lineNumber, flags, this.intern(message), this.fileNameIndex,
+				this.markerIdIndex, this.ruleIdIndex, 0, this.argumentsSize, 0);
+	}
+
+	/**
+	 * Records a problem raised from a message template, whose origin is the
+	 * one set by the last reset. The message is not formatted.
+	 * 
+	 * @param id
+	 * @param messagePattern
+	 * @param arguments
+	 * @param isWarning
+	 * @param isError
+	 * @param lineNumber
+	 * @param startChar
+	 * @param endChar
+	 */
+	public void add(final int id, final String messagePattern, final String[] arguments, final boolean isWarning,
+			final boolean isError, final int lineNumber, final int startChar, final int endChar) {
+		final int flags = (isWarning ? ASTProblemBuffer.WARNING : 0) | (isError ? ASTProblemBuffer.ERROR : 0);
+		if (this.suppress(flags, lineNumber, startChar, endChar)) {
+			return;
+		}
+		final int argumentsOffset = this.argumentsSize;
+		final int argumentsCount = arguments != null ? arguments.length : 0;
+		for (int index = 0; index < argumentsCount; index++) {
+			this.addArgument(this.intern(arguments[index]));
+		}
+		this.add(startChar, endChar, lineNumber, flags, this.intern(messagePattern), this.fileNameIndex,
+				this.markerIdIndex, this.ruleIdIndex, id, argumentsOffset, argumentsCount);
+	}
+
+	/**
+	 * Records a problem already materialized
+	 * 
+	 * @param problem
+	 */
+	public void add(final ASTValidationProblem problem) {
+		final int flags = (problem.isWarning() ? ASTProblemBuffer.WARNING : 0)
+				| (problem.isError() ? ASTProblemBuffer.ERROR : 0);
+		final char[] fileName = problem.getOriginatingFileName();
+		final boolean isTemplate = problem.getID() != 0 && problem.getMessagePattern() != null;
+		final int argumentsOffset = this.argumentsSize;
+		final int argumentsCount = isTemplate ? problem.getArguments().length : 0;
+		for (int index = 0; index < argumentsCount; index++) {
+			this.addArgument(this.intern(problem.getArguments()[index]));
+		}
+		this.add(problem.getSourceStart(), problem.getSourceEnd(), problem.getSourceLineNumber(), flags,
+				this.intern(isTemplate ? problem.getMessagePattern() : problem.getMessage()),
+				this.intern(fileName != null ? new String(fileName) : null), this.intern(problem.getMarkerType()),
+				this.intern(problem.getRuleId()), isTemplate ? problem.getID() : 0, argumentsOffset, argumentsCount);
+	}
+
+	/**
+	 * Records a list of problems already materialized
+	 * 
+	 * @param problems
+	 */
+	public void addAll(final List<ASTValidationProblem> problems) {
+		for (final ASTValidationProblem problem : problems) {
+			this.add(problem);
+		}
+	}
+
+	/**
+	 * Records all the problems of the buffer provided
+	 * 
+	 * @param buffer
+	 */
+	public void addAll(final ASTProblemBuffer buffer) {
+		this.addAll(buffer, buffer.size);
+	}
+
+	/**
+	 * Records the first problems of the buffer provided, up to the maximum
+	 * number provided. Problems found that are not recorded can be counted
+	 * with {@link #getFoundCount(int)} on the buffer provided.
+	 * 
+	 * @param buffer
+	 * @param maxProblems
+	 * @return number of problems recorded, summaries included
+	 */
+	public int addAll(final ASTProblemBuffer buffer, final int maxProblems) {
+		final int count = Math.min(buffer.size, Math.max(0, maxProblems));
+		final int[] translation = new int[buffer.strings.size()];
+		for (int index = 0; index < translation.length; index++) {
+			translation[index] = this.intern(buffer.strings.get(index));
+		}
+		final int argumentsOffset = this.argumentsSize;
+		for (int index = 0; index < buffer.argumentsSize; index++) {
+			this.addArgument(ASTProblemBuffer.translate(translation, buffer.arguments[index]));
+		}
+		for (int index = 0; index < count; index++) {
+			final int offset = index * ASTProblemBuffer.STRIDE;
+			final int[] source = buffer.entries;
+			this.add(source[offset + ASTProblemBuffer.START], source[offset + ASTProblemBuffer.END],
+					source[offset + ASTProblemBuffer.LINE], source[offset + ASTProblemBuffer.FLAGS],
+					ASTProblemBuffer.translate(translation, source[offset + ASTProblemBuffer.MESSAGE]),
+					ASTProblemBuffer.translate(translation, source[offset + ASTProblemBuffer.FILE_NAME]),
+					ASTProblemBuffer.translate(translation, source[offset + ASTProblemBuffer.MARKER_ID]),
+					ASTProblemBuffer.translate(translation, source[offset + ASTProblemBuffer.RULE_ID]),
+					source[offset + ASTProblemBuffer.ID], argumentsOffset + source[offset + ASTProblemBuffer.ARGUMENTS],
+					source[offset + ASTProblemBuffer.ARGUMENTS_COUNT]);
+			this.entries[(this.size - 1) * ASTProblemBuffer.STRIDE + ASTProblemBuffer.SUPPRESSED] = source[offset
+					+ ASTProblemBuffer.SUPPRESSED];
+		}
+		return count;
+	}
+
+	/**
+	 * Records a summary of problems of a repository that have not been
+	 * recorded, at the beginning of the unit
+	 * 
+	 * @param fileName
+	 * @param markerId
+	 * @param suppressed
+	 *            number of problems not recorded
+	 */
+	public void addSummary(final String fileName, final String markerId, final int suppressed) {
+		final int markerIndex = this.intern(markerId);
+		this.add(0, 0, 1, ASTProblemBuffer.WARNING | ASTProblemBuffer.REPOSITORY_SUMMARY, markerIndex,
+				this.intern(fileName), markerIndex, -1, 0, this.argumentsSize, 0);
+		this.entries[(this.size - 1) * ASTProblemBuffer.STRIDE + ASTProblemBuffer.SUPPRESSED] = suppressed;
+	}
+
+	/**
+	 * Returns the number of problems found, stored from the index provided.
+	 * Summaries count for the problems they stand for.
+	 * 
+	 * @param from
+	 *            index of the first problem counted
+	 * @return
+	 */
+	public int getFoundCount(final int from) {
+		int count = 0;
+		for (int index = Math.max(0, from); index < this.size; index++) {
+			final int offset = index * ASTProblemBuffer.STRIDE;
+			final int flags = this.entries[offset + ASTProblemBuffer.FLAGS];
+			if ((flags & (ASTProblemBuffer.RULE_SUMMARY | ASTProblemBuffer.REPOSITORY_SUMMARY)) != 0) {
+				count += this.entries[offset + ASTProblemBuffer.SUPPRESSED];
+			} else {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return number of problems stored
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return true if no problem is stored
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the problems stored, materialized at first call after a
+	 * modification. Problems sharing the same strings share the same
+	 * instances.
+	 * 
+	 * @return
+	 */
+	public List<ASTValidationProblem> getProblems() {
+		if (this.problems == null) {
+			final List<ASTValidationProblem> materialized = new ArrayList<ASTValidationProblem>(this.size);
+			for (int index = 0; index < this.size; index++) {
+				final int offset = index * ASTProblemBuffer.STRIDE;
+				final int flags = this.entries[offset + ASTProblemBuffer.FLAGS];
+				final String message = this.string(offset + ASTProblemBuffer.MESSAGE);
+				final String fileName = this.string(offset + ASTProblemBuffer.FILE_NAME);
+				final String markerId = this.string(offset + ASTProblemBuffer.MARKER_ID);
+				final String ruleId = this.string(offset + ASTProblemBuffer.RULE_ID);
+				final int lineNumber = this.entries[offset + ASTProblemBuffer.LINE];
+				final int startChar = this.entries[offset + ASTProblemBuffer.START];
+				final int endChar = this.entries[offset + ASTProblemBuffer.END];
+				final boolean isWarning = (flags & ASTProblemBuffer.WARNING) != 0;
+				final boolean isError = (flags & ASTProblemBuffer.ERROR) != 0;
+				final int id = this.entries[offset + ASTProblemBuffer.ID];
+				final int suppressed = this.entries[offset + ASTProblemBuffer.SUPPRESSED];
+				if ((flags & ASTProblemBuffer.RULE_SUMMARY) != 0) {
+					final String summary = ValidationEngineMessages.PROBLEMS_SUPPRESSED_BY_RULE.value(suppressed,
+							ruleId);
+					materialized.add(new ASTValidationProblem(summary, isWarning, isError, fileName, markerId,
+							lineNumber, startChar, endChar, ruleId));
+				} else if ((flags & ASTProblemBuffer.REPOSITORY_SUMMARY) != 0) {
+					final String summary = ValidationEngineMessages.PROBLEMS_SUPPRESSED_BY_REPOSITORY.value(suppressed,
+							markerId);
+					materialized.add(new ASTValidationProblem(summary, isWarning, isError, fileName, markerId,
+							lineNumber, startChar, endChar, ruleId));
+				} else if (id != 0) {
+					final String[] problemArguments = new String[this.entries[offset
+							+ ASTProblemBuffer.ARGUMENTS_COUNT]];
+					final int argumentsOffset = this.entries[offset + ASTProblemBuffer.ARGUMENTS];
+					for (int argument = 0; argument < problemArguments.length; argument++) {
+						final int stringIndex = this.arguments[argumentsOffset + argument];
+						problemArguments[argument] = stringIndex >= 0 ? this.strings.get(stringIndex) : null;
+					}
+					materialized.add(new ASTValidationProblem(id, message, problemArguments, isWarning, isError,
+							fileName, markerId, lineNumber, startChar, endChar, ruleId));
+				} else {
+					materialized.add(new ASTValidationProblem(message, isWarning, isError, fileName, markerId,
+							lineNumber, startChar, endChar, ruleId));
+				}
+			}
+			this.problems = materialized;
+		}
+		return this.problems;
+	}
+
+	/**
+	 * Appends an entry, growing the array if needed
+	 */
+	private void add(final int startChar, final int endChar, final int lineNumber, final int flags,
+			final int message, final int fileName, final int markerId, final int ruleId, final int id,
+			final int argumentsOffset, final int argumentsCount) {
+		final int offset = this.size * ASTProblemBuffer.STRIDE;
+		if (offset + ASTProblemBuffer.STRIDE > this.entries.length) {
+			final int capacity = Math.max(ASTProblemBuffer.INITIAL_CAPACITY, this.size * 2);
+			final int[] grown = new int[capacity * ASTProblemBuffer.STRIDE];
+			System.arraycopy(this.entries, 0, grown, 0, offset);
+			this.entries = grown;
+		}
+		this.entries[offset + ASTProblemBuffer.START] = startChar;
+		this.entries[offset + ASTProblemBuffer.END] = endChar;
+		this.entries[offset + ASTProblemBuffer.LINE] = lineNumber;
+		this.entries[offset + ASTProblemBuffer.FLAGS] = flags;
+		this.entries[offset + ASTProblemBuffer.MESSAGE] = message;
+		this.entries[offset + ASTProblemBuffer.FILE_NAME] = fileName;
+		this.entries[offset + ASTProblemBuffer.MARKER_ID] = markerId;
+		this.entries[offset + ASTProblemBuffer.RULE_ID] = ruleId;
+		this.entries[offset + ASTProblemBuffer.ID] = id;
+		this.entries[offset + ASTProblemBuffer.ARGUMENTS] = argumentsOffset;
+		this.entries[offset + ASTProblemBuffer.ARGUMENTS_COUNT] = argumentsCount;
+		this.entries[offset + ASTProblemBuffer.SUPPRESSED] = 0;
+		this.size++;
+		this.problems = null;
+	}
+
+	/**
+	 * Counts the problem in the summary instead of storing it, if the limit
+	 * has been reached. The summary is created with the first problem
+	 * suppressed, and takes the highest severity of the problems it counts.
+	 * 
+	 * @return true if the problem has been suppressed
+	 */
+	private boolean suppress(final int flags, final int lineNumber, final int startChar, final int endChar) {
+		final int stored = this.summaryOffset >= 0 ? this.size - 1 : this.size;
+		if (this.limit < 0 || stored < this.limit) {
+			return false;
+		}
+		if (this.summaryOffset < 0) {
+			this.summaryOffset = this.size * ASTProblemBuffer.STRIDE;
+			this.add(startChar, endChar, lineNumber, ASTProblemBuffer.RULE_SUMMARY, -1, this.fileNameIndex,
+					this.markerIdIndex, this.ruleIdIndex, 0, this.argumentsSize, 0);
+		}
+		this.entries[this.summaryOffset + ASTProblemBuffer.FLAGS] |= flags;
+		this.entries[this.summaryOffset + ASTProblemBuffer.SUPPRESSED]++;
+		this.problems = null;
+		return true;
+	}
+
+	/**
+	 * Appends an argument, growing the array if needed
+	 */
+	private void addArgument(final int argument) {
+		if (this.argumentsSize == this.arguments.length) {
+			final int[] grown = new int[Math.max(ASTProblemBuffer.INITIAL_CAPACITY, this.argumentsSize * 2)];
+			System.arraycopy(this.arguments, 0, grown, 0, this.argumentsSize);
+			this.arguments = grown;
+		}
+		this.arguments[this.argumentsSize++] = argument;
+	}
+
+	/**
+	 * Returns the index of the string in the table, adding it if needed
+	 * 
+	 * @param value
+	 * @return index, or -1 for null
+	 */
+	private int intern(final String value) {
+		if (value == null) {
+			return -1;
+		}
+		final Integer index = this.stringIndexes.get(value);
+		if (index != null) {
+			return index.intValue();
+		}
+		this.strings.add(value);
+		this.stringIndexes.put(value, this.strings.size() - 1);
+		return this.strings.size() - 1;
+	}
+
+	/**
+	 * @param position
+	 *            position of a string index in the entries
+	 * @return interned string, or null
+	 */
+	private String string(final int position) {
+		final int index = this.entries[position];
+		return index >= 0 ? this.strings.get(index) : null;
+	}
+
+	/**
+	 * Translates a string index from another buffer
+	 */
+	private static int translate(final int[] translation, final int index) {
+		return index >= 0 ? translation[index] : -1;
+	}
+
+}
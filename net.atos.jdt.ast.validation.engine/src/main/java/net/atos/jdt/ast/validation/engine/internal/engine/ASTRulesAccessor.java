@@ -0,0 +1,96 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.rules.ASTVisitContext;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Access of the engine to the members of the rules that are not part of the
+ * API: the problems raised, stored in a buffer, and the creation of visit
+ * contexts. Implemented within the rules package, and registered when its
+ * classes are initialized.
+ * 
+ * @since 1.2
+ */
+public abstract class ASTRulesAccessor {
+
+	/**
+	 * Registered accessor
+	 */
+	private static volatile ASTRulesAccessor instance;
+
+	/**
+	 * Registers the accessor. Should only be invoked by the rules package.
+	 * 
+	 * @param accessor
+	 */
+	public static void setInstance(final ASTRulesAccessor accessor) {
+		ASTRulesAccessor.instance = accessor;
+	}
+
+	/**
+	 * Returns the accessor, initializing the rules package if needed
+	 * 
+	 * @return
+	 */
+	public static ASTRulesAccessor getInstance() {
+		if (ASTRulesAccessor.instance == null) {
+			try {
+				Class.forName(ASTVisitContext.class.getName(), true, ASTVisitContext.class.getClassLoader());
+			} catch (final ClassNotFoundException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return ASTRulesAccessor.instance;
+	}
+
+	/**
+	 * Creates the context of the execution of a stateless rule on a
+	 * compilation unit
+	 * 
+	 * @param ruleDescriptor
+	 * @param domCompilationUnit
+	 * @param session
+	 *            immutable snapshot of the session, not copied
+	 * @return
+	 */
+	public abstract ASTVisitContext newVisitContext(ASTRuleDescriptor ruleDescriptor,
+			CompilationUnit domCompilationUnit, Map<String, Object> session);
+
+	/**
+	 * @param rule
+	 * @return problems raised by the last visit of the rule
+	 */
+	public abstract ASTProblemBuffer getProblemBuffer(AbstractASTRule rule);
+
+	/**
+	 * @param context
+	 * @return problems raised so far within the context
+	 */
+	public abstract ASTProblemBuffer getProblemBuffer(ASTVisitContext context);
+}
@@ -0,0 +1,316 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.ASTRulesRepository;
+import net.atos.jdt.ast.validation.engine.internal.Activator;
+import net.atos.jdt.ast.validation.engine.internal.ValidationEngineMessages;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTFlightEvent;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetrics;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTTracer;
+import net.atos.jdt.ast.validation.engine.internal.visitor.ASTMultiplexingVisitor;
+import net.atos.jdt.ast.validation.engine.internal.visitor.ASTVisitTimeoutException;
+import net.atos.jdt.ast.validation.engine.rules.ASTVisitContext;
+import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Runs rules on the AST of a compilation unit, within a single walk of the
+ * tree. Stateful rules (see {@link AbstractASTRule}) are executed through
+ * their instances, while stateless rules are executed through an adapter,
+ * with a context created for the visit.
+ * 
+ * Execution metrics of each rule are recorded, if enabled (see
+ * {@link ASTMetrics}), and emitted as flight recorder events, if a recording
+ * is running (see {@link ASTFlightEvent}).
+ * 
+ * @since 1.2
+ */
+public final class ASTRulesRunner {
+
+	/**
+	 * Private constructor
+	 */
+	private ASTRulesRunner() {
+	}
+
+	/**
+	 * Runs the rules on the AST, and fills the result with the problems
+	 * raised, or with the failures.
+	 * 
+	 * @param result
+	 * @param executionPlan
+	 *            plan the rules belong to, holding the execution settings
+	 * @param ruleDescriptors
+	 * @param domCompilationUnit
+	 * @param session
+	 * @param threadOwned
+	 *            true to use the rule instances owned by the current thread,
+	 *            whatever the preferences
+	 * @param monitor
+	 *            monitor whose cancellation stops the rules, or null
+	 * @param tracer
+	 *            tracer of the rules visits, or null
+	 * @param circuitBreaker
+	 *            breaker whose quarantined rules are skipped
+	 * @throws OperationCanceledException
+	 *             if the monitor has been canceled during the execution
+	 */
+	public static void run(final ASTValidationResult result, final ASTExecutionPlan executionPlan,
+			final ASTRuleDescriptor[] ruleDescriptors, final CompilationUnit domCompilationUnit,
+			final Map<String, Object> session, final boolean threadOwned, final IProgressMonitor monitor,
+			final ASTTracer tracer, final ASTCircuitBreaker circuitBreaker) {
+		final ASTRuleDescriptor[] executedDescriptors = new ASTRuleDescriptor[ruleDescriptors.length];
+		final ASTVisitor[] visitors = new ASTVisitor[ruleDescriptors.length];
+		final AbstractASTRule[] rules = new AbstractASTRule[ruleDescriptors.length];
+		final ASTVisitContext[] contexts = new ASTVisitContext[ruleDescriptors.length];
+		final int maxProblemsPerRule = executionPlan.getMaxProblemsPerRule();
+		final ASTRulesAccessor accessor = ASTRulesAccessor.getInstance();
+		int count = 0;
+		for (final ASTRuleDescriptor ruleDescriptor : ruleDescriptors) {
+			// Rules quarantined after repeated failures are skipped
+			if (!circuitBreaker.allows(ruleDescriptor.getRuleClassName())) {
+				result.addSkippedRule(ruleDescriptor.getRuleClassName());
+				continue;
+			}
+			if (ruleDescriptor.isStateless()) {
+				contexts[count] = accessor.newVisitContext(ruleDescriptor, domCompilationUnit, session);
+				accessor.getProblemBuffer(contexts[count]).setLimit(maxProblemsPerRule);
+				visitors[count] = ruleDescriptor.newStatelessVisitor(contexts[count]);
+			} else {
+				final AbstractASTRule rule = threadOwned ? ruleDescriptor.getPooledRule() : executionPlan
+						.getRule(ruleDescriptor);
+				if (rule == null) {
+					result.addFailure(ruleDescriptor.getRuleClassName(), null);
+					continue;
+				}
+				rule.setSession(session);
+				accessor.getProblemBuffer(rule).setLimit(maxProblemsPerRule);
+				rules[count] = rule;
+				visitors[count] = rule;
+			}
+			executedDescriptors[count] = ruleDescriptor;
+			count++;
+		}
+		final ASTVisitor[] executedVisitors = new ASTVisitor[count];
+		System.arraycopy(visitors, 0, executedVisitors, 0, count);
+		final ASTMetrics metrics = ASTMetrics.getInstance();
+		final boolean metricsEnabled = metrics.isEnabled();
+		final Object[] visitEvents = ASTFlightEvent.isRecording() ? new Object[count] : null;
+		if (visitEvents != null) {
+			for (int index = 0; index < count; index++) {
+				visitEvents[index] = ASTFlightEvent.RULE_VISIT.begin();
+			}
+		}
+		try {
+			final ASTMultiplexingVisitor visitor = new ASTMultiplexingVisitor(executedVisitors);
+			visitor.setBudgets(executionPlan.getRuleTimeBudget(), executionPlan.getUnitTimeBudget());
+			visitor.setTimed(metricsEnabled || (visitEvents != null) || (tracer != null));
+			visitor.setMonitor(monitor);
+			final long start = System.nanoTime();
+			domCompilationUnit.accept(visitor);
+			if (tracer != null) {
+				ASTRulesRunner.traceVisit(tracer, start, result, visitor, executedDescriptors, count);
+			}
+			if (metricsEnabled) {
+				ASTRulesRunner.recordMetrics(metrics, visitor, executedDescriptors, rules, contexts, count);
+			}
+			if (visitEvents != null) {
+				ASTRulesRunner.commitEvents(visitEvents, result, visitor, executedDescriptors, rules, contexts);
+			}
+			final int maxProblemsPerRepository = executionPlan.getMaxProblemsPerRepository();
+			final Map<ASTRulesRepository, int[]> repositoryCounts = new LinkedHashMap<ASTRulesRepository, int[]>();
+			for (int index = 0; index < count; index++) {
+				final Throwable failure = visitor.getFailure(index);
+				if (failure != null) {
+					result.addFailure(executedDescriptors[index].getRuleClassName(), failure);
+					continue;
+				}
+				final ASTProblemBuffer problems = ASTRulesRunner.getProblems(rules, contexts, index);
+				if (problems.isEmpty()) {
+					continue;
+				}
+
+				// Problems over the repository limit are only counted: index 0
+				// holds the number recorded, index 1 the number of problems
+				// found that are suppressed, summaries of the rule included
+				final ASTRulesRepository repository = executedDescriptors[index].getRepository();
+				int[] counts = repositoryCounts.get(repository);
+				if (counts == null) {
+					counts = new int[2];
+					repositoryCounts.put(repository, counts);
+				}
+				final int remaining = maxProblemsPerRepository < 0 ? Integer.MAX_VALUE : maxProblemsPerRepository
+						- counts[0];
+				final int recorded = result.addProblems(problems, remaining);
+				counts[0] += recorded;
+				counts[1] += problems.getFoundCount(recorded);
+			}
+			for (final Map.Entry<ASTRulesRepository, int[]> entry : repositoryCounts.entrySet()) {
+				if (entry.getValue()[1] > 0) {
+					result.addSuppressedProblems(entry.getKey().getMarkerId(), entry.getValue()[1]);
+				}
+			}
+		} finally {
+			for (int index = 0; index < count; index++) {
+				if (rules[index] != null) {
+					rules[index].release();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the problems raised by a rule executed
+	 * 
+	 * @param rules
+	 * @param contexts
+	 * @param index
+	 *            index of the rule
+	 * @return
+	 */
+	private static ASTProblemBuffer getProblems(final AbstractASTRule[] rules, final ASTVisitContext[] contexts,
+			final int index) {
+		final ASTRulesAccessor accessor = ASTRulesAccessor.getInstance();
+		return rules[index] != null ? accessor.getProblemBuffer(rules[index]) : accessor
+				.getProblemBuffer(contexts[index]);
+	}
+
+	/**
+	 * Records the execution metrics of the rules executed by the visitor
+	 * 
+	 * @param metrics
+	 * @param visitor
+	 * @param executedDescriptors
+	 * @param rules
+	 * @param contexts
+	 * @param count
+	 *            number of rules executed
+	 */
+	private static void recordMetrics(final ASTMetrics metrics, final ASTMultiplexingVisitor visitor,
+			final ASTRuleDescriptor[] executedDescriptors, final AbstractASTRule[] rules,
+			final ASTVisitContext[] contexts, final int count) {
+		metrics.recordUnit();
+		for (int index = 0; index < count; index++) {
+			final ASTProblemBuffer problems = ASTRulesRunner.getProblems(rules, contexts, index);
+			// Suppressed problems are counted in a summary, stored as a problem
+			metrics.recordRule(executedDescriptors[index].getRuleClassName(), visitor.getElapsed(index),
+					visitor.getVisitedNodes(index), problems.getFoundCount(0), visitor.getFailure(index) != null);
+		}
+	}
+
+	/**
+	 * Commits the flight recorder events of the rules executed by the visitor
+	 * 
+	 * @param visitEvents
+	 *            events begun before the visit, one per rule executed
+	 * @param result
+	 * @param visitor
+	 * @param executedDescriptors
+	 * @param rules
+	 * @param contexts
+	 */
+	private static void commitEvents(final Object[] visitEvents, final ASTValidationResult result,
+			final ASTMultiplexingVisitor visitor, final ASTRuleDescriptor[] executedDescriptors,
+			final AbstractASTRule[] rules, final ASTVisitContext[] contexts) {
+		final String unit = result.getCompilationUnit().getPath().toString();
+		for (int index = 0; index < visitEvents.length; index++) {
+			if (visitEvents[index] != null) {
+				final ASTProblemBuffer problems = ASTRulesRunner.getProblems(rules, contexts, index);
+				ASTFlightEvent.RULE_VISIT.commit(visitEvents[index], executedDescriptors[index].getRuleClassName(),
+						executedDescriptors[index].getRepository().getMarkerId(), unit,
+						visitor.getVisitedNodes(index), problems.size(), visitor.getFailure(index) != null,
+						visitor.getElapsed(index));
+			}
+		}
+	}
+
+	/**
+	 * Traces the visit of the tree, and the rules executed. As the rules are
+	 * executed within a single walk of the tree, the span of each rule is the
+	 * time spent in the rule during the walk, and the spans of the rules are
+	 * laid one after the other within the span of the walk.
+	 * 
+	 * @param tracer
+	 * @param start
+	 *            start of the walk
+	 * @param result
+	 * @param visitor
+	 * @param executedDescriptors
+	 * @param count
+	 *            number of rules executed
+	 */
+	private static void traceVisit(final ASTTracer tracer, final long start, final ASTValidationResult result,
+			final ASTMultiplexingVisitor visitor, final ASTRuleDescriptor[] executedDescriptors, final int count) {
+		final long end = System.nanoTime();
+		final ICompilationUnit compilationUnit = result.getCompilationUnit();
+		final String project = compilationUnit.getJavaProject().getElementName();
+		final String unit = compilationUnit.getPath().toString();
+		tracer.span(compilationUnit.getElementName(), ASTTracer.VISIT, start, end - start, project, "unit", unit,
+				"rules", String.valueOf(count), "nodes", String.valueOf(visitor.getVisitedNodes()));
+		long ruleStart = start;
+		for (int index = 0; index < count; index++) {
+			final long elapsed = visitor.getElapsed(index);
+			tracer.span(executedDescriptors[index].getRuleClassName(), ASTTracer.VISIT, ruleStart, elapsed,
+					project, "unit", unit, "repository", executedDescriptors[index].getRepository().getMarkerId(),
+					"nodes", String.valueOf(visitor.getVisitedNodes(index)), "failed",
+					String.valueOf(visitor.getFailure(index) != null));
+			ruleStart += elapsed;
+		}
+	}
+
+	/**
+	 * Logs the failure of a rule on a compilation unit. Rules aborted because
+	 * of their time budget are logged as warnings, without stack trace.
+	 * 
+	 * @param ruleId
+	 * @param compilationUnit
+	 * @param failure
+	 *            exception raised by the rule, or null if the rule could not
+	 *            be instantiated
+	 */
+	public static void logFailure(final String ruleId, final ICompilationUnit compilationUnit,
+			final Throwable failure) {
+		final IStatus status;
+		if (failure instanceof ASTVisitTimeoutException) {
+			status = new Status(IStatus.WARNING, Activator.PLUGIN_ID,
+					ValidationEngineMessages.RULE_TIME_BUDGET_EXCEEDED.value(ruleId, compilationUnit.getElementName(),
+							failure.getMessage()));
+		} else {
+			status = new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+					ValidationEngineMessages.EXCEPTION_DURING_RULEEXEC.value(ruleId, compilationUnit.getElementName()),
+					failure);
+		}
+		Activator.getDefault().getLog().log(status);
+	}
+}
@@ -0,0 +1,519 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.ASTRulesPreferences;
+import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
+import net.atos.jdt.ast.validation.engine.internal.Activator;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+
+/**
+ * Cache of the problems raised on compilation units, so that units whose
+ * contents did not change since their last validation are not parsed again.
+ * 
+ * Entries are keyed by the path of the unit, a hash of its source, and a
+ * fingerprint of the rules executed on it, of the session, and of the
+ * preferences that change the problems kept. The cache is bounded, and the
+ * least recently used entries are evicted first. It is cleared when the
+ * preferences that change the problems kept are modified.
+ * 
+ * Units on which at least one rule resolves bindings are not cached, as the
+ * outcome of such rules also depends on the other units. Rules that do not
+ * declare their needs with
+ * {@link net.atos.jdt.ast.validation.engine.rules.ASTRuleRequirements} are
+ * considered as resolving bindings: units they run on are never cached.
+ * 
+ * The cache is saved in the state location of the plugin when the plugin
+ * stops, and loaded again the first time it is used, so that it survives
+ * workspace restarts.
+ * 
+ * @since 1.2
+ */
+public final class ASTValidationCache implements IPropertyChangeListener {
+
+	/**
+	 * Singleton instance
+	 */
+	private static final ASTValidationCache INSTANCE = new ASTValidationCache();
+
+	/**
+	 * Charset used to hash the sources
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Hexadecimal digits
+	 */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Name of the file holding the cache, in the state location
+	 */
+	private static final String FILE_NAME = "validation.cache";
+
+	/**
+	 * Header of the cache file
+	 */
+	private static final int MAGIC = 0x41535456;
+
+	/**
+	 * Version of the cache file format. To be increased whenever the format
+	 * changes, so that previous files are discarded.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Flag for warning problems, in cache file
+	 */
+	private static final byte WARNING = 1;
+
+	/**
+	 * Flag for error problems, in cache file
+	 */
+	private static final byte ERROR = 2;
+
+	/**
+	 * True once the cache file has been loaded
+	 */
+	private boolean loaded;
+
+	/**
+	 * True if the cache has changed since it has been loaded
+	 */
+	private boolean dirty;
+
+	/**
+	 * Problems, by key, in access order
+	 */
+	private final LinkedHashMap<String, List<ASTValidationProblem>> entries =
+			new LinkedHashMap<String, List<ASTValidationProblem>>(16, 0.75f, true);
+
+	/**
+	 * Private constructor
+	 */
+	private ASTValidationCache() {
+	}
+
+	/**
+	 * @return singleton instance
+	 */
+	public static ASTValidationCache getInstance() {
+		return ASTValidationCache.INSTANCE;
+	}
+
+	/**
+	 * Starts listening to the preferences changes
+	 */
+	public void install() {
+		Activator.getDefault().getPreferenceStore().addPropertyChangeListener(this);
+	}
+
+	/**
+	 * Stops listening to the preferences changes
+	 */
+	public void uninstall() {
+		Activator.getDefault().getPreferenceStore().removePropertyChangeListener(this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse
+	 * .jface.util.PropertyChangeEvent)
+	 */
+	@Override
+	public void propertyChange(final PropertyChangeEvent event) {
+		if (ASTRulesPreferences.changesProblems(event.getProperty())) {
+			this.clear();
+		}
+	}
+
+	/**
+	 * Returns the key under which the problems raised on the compilation unit
+	 * are cached, or null if they cannot be cached (cache disabled, rules
+	 * resolving bindings, session values without stable string
+	 * representation, or source not available)
+	 * 
+	 * @param executionPlan
+	 *            plan the rules belong to, holding the cache size and the
+	 *            problem limits
+	 * @param compilationUnit
+	 * @param ruleDescriptors
+	 *            rules executed on the compilation unit
+	 * @param session
+	 *            session sent to the rules
+	 * @return
+	 */
+	public String getKey(final ASTExecutionPlan executionPlan, final ICompilationUnit compilationUnit,
+			final ASTRuleDescriptor[] ruleDescriptors, final Map<String, Object> session) {
+		if (executionPlan.getValidationCacheSize() <= 0) {
+			return null;
+		}
+		for (final ASTRuleDescriptor ruleDescriptor : ruleDescriptors) {
+			if (ruleDescriptor.requiresBindings()) {
+				return null;
+			}
+		}
+		final IResource resource = compilationUnit.getResource();
+		if (resource == null) {
+			return null;
+		}
+		final MessageDigest digest = ASTValidationCache.newDigest();
+		if (digest == null) {
+			return null;
+		}
+		try {
+			digest.update(compilationUnit.getSource().getBytes(ASTValidationCache.UTF8));
+		} catch (final JavaModelException e) {
+			return null;
+		}
+		// Rules are returned in no specific order by the repositories. They
+		// also determine the parser configuration of the unit, that is derived
+		// from its own rules only.
+		final List<String> ruleClassNames = new ArrayList<String>(ruleDescriptors.length);
+		for (final ASTRuleDescriptor ruleDescriptor : ruleDescriptors) {
+			ruleClassNames.add(ruleDescriptor.getRuleClassName());
+		}
+		Collections.sort(ruleClassNames);
+		for (final String ruleClassName : ruleClassNames) {
+			digest.update(ruleClassName.getBytes(ASTValidationCache.UTF8));
+		}
+		// Entries computed by previous versions of the rules are not reused
+		for (final ASTRuleDescriptor ruleDescriptor : ruleDescriptors) {
+			digest.update(ruleDescriptor.getRuleVersion().getBytes(ASTValidationCache.UTF8));
+		}
+		// Problems kept depend on the limits
+		ASTValidationCache.updateInt(digest, executionPlan.getMaxProblemsPerRule());
+		ASTValidationCache.updateInt(digest, executionPlan.getMaxProblemsPerRepository());
+		if (!ASTValidationCache.updateSession(digest, session)) {
+			return null;
+		}
+		final StringBuilder key = new StringBuilder(resource.getFullPath().toString());
+		key.append('#');
+		for (final byte value : digest.digest()) {
+			key.append(ASTValidationCache.HEX_DIGITS[(value >> 4) & 0xF]);
+			key.append(ASTValidationCache.HEX_DIGITS[value & 0xF]);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Updates the digest with an integer
+	 * 
+	 * @param digest
+	 * @param value
+	 */
+	private static void updateInt(final MessageDigest digest, final int value) {
+		digest.update((byte) (value >>> 24));
+		digest.update((byte) (value >>> 16));
+		digest.update((byte) (value >>> 8));
+		digest.update((byte) value);
+	}
+
+	/**
+	 * Digests the session, as its entries sorted by key, each of them as
+	 * the string representations of its key and value, so that the key of an
+	 * entry is the same across restarts.
+	 * 
+	 * @param digest
+	 * @param session
+	 * @return false if a value of the session has no stable string
+	 *         representation, in which case problems cannot be cached
+	 */
+	private static boolean updateSession(final MessageDigest digest, final Map<String, Object> session) {
+		if (session.isEmpty()) {
+			return true;
+		}
+		final List<String> entries = new ArrayList<String>(session.size());
+		for (final Map.Entry<String, Object> entry : session.entrySet()) {
+			if (!ASTValidationCache.hasStableString(entry.getValue())) {
+				return false;
+			}
+			entries.add(entry.getKey() + '\0' + entry.getValue());
+		}
+		Collections.sort(entries);
+		for (final String entry : entries) {
+			digest.update(entry.getBytes(ASTValidationCache.UTF8));
+			digest.update((byte) 0);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the string representation of the value identifies it:
+	 * values overriding toString(), but not arrays and objects whose string
+	 * representation holds their identity hash code.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	private static boolean hasStableString(final Object value) {
+		if ((value == null) || (value instanceof String) || (value instanceof Number) || (value instanceof Boolean)
+				|| (value instanceof Enum<?>)) {
+			return true;
+		}
+		if (value.getClass().isArray()) {
+			return false;
+		}
+		try {
+			return value.getClass().getMethod("toString").getDeclaringClass() != Object.class;
+		} catch (final NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the problems cached under the key, or null if there is none
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public synchronized List<ASTValidationProblem> get(final String key) {
+		this.load();
+		return this.entries.get(key);
+	}
+
+	/**
+	 * Caches the problems under the key. Least recently used entries are
+	 * evicted if the cache exceeds the size provided.
+	 * 
+	 * @param key
+	 * @param problems
+	 * @param size
+	 *            maximum number of entries of the cache
+	 */
+	public synchronized void put(final String key, final List<ASTValidationProblem> problems, final int size) {
+		this.load();
+		this.dirty = true;
+		this.entries.put(key, Collections.unmodifiableList(new ArrayList<ASTValidationProblem>(problems)));
+		final Iterator<String> iterator = this.entries.keySet().iterator();
+		while ((this.entries.size() > size) && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Removes all the entries from the cache
+	 */
+	public synchronized void clear() {
+		this.loaded = true;
+		this.dirty = true;
+		this.entries.clear();
+	}
+
+	/**
+	 * Loads the cache file, the first time the cache is used. The file is
+	 * discarded if it has not been written with the current format. It is
+	 * read as a stream, and not mapped, so that it can be replaced when the
+	 * cache is saved.
+	 */
+	private void load() {
+		if (this.loaded) {
+			return;
+		}
+		this.loaded = true;
+		final File file = ASTValidationCache.getFile();
+		if ((file == null) || !file.isFile()) {
+			return;
+		}
+		try {
+			final DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			try {
+				if ((inputStream.readInt() != ASTValidationCache.MAGIC)
+						|| (inputStream.readInt() != ASTValidationCache.FORMAT_VERSION)) {
+					return;
+				}
+				final int entriesCount = inputStream.readInt();
+				for (int entryIndex = 0; entryIndex < entriesCount; entryIndex++) {
+					final String key = ASTValidationCache.readString(inputStream);
+					final int problemsCount = inputStream.readInt();
+					final List<ASTValidationProblem> problems = new ArrayList<ASTValidationProblem>(problemsCount);
+					for (int problemIndex = 0; problemIndex < problemsCount; problemIndex++) {
+						final int id = inputStream.readInt();
+						final String message = ASTValidationCache.readString(inputStream);
+						final String[] arguments = new String[id != 0 ? inputStream.readInt() : 0];
+						for (int argumentIndex = 0; argumentIndex < arguments.length; argumentIndex++) {
+							arguments[argumentIndex] = ASTValidationCache.readString(inputStream);
+						}
+						final String fileName = ASTValidationCache.readString(inputStream);
+						final String markerId = ASTValidationCache.readString(inputStream);
+						final String ruleId = ASTValidationCache.readString(inputStream);
+						final byte flags = inputStream.readByte();
+						final int lineNumber = inputStream.readInt();
+						final int startChar = inputStream.readInt();
+						final int endChar = inputStream.readInt();
+						final boolean isWarning = (flags & ASTValidationCache.WARNING) != 0;
+						final boolean isError = (flags & ASTValidationCache.ERROR) != 0;
+						final String problemRuleId = ruleId.length() > 0 ? ruleId : null;
+						if (id != 0) {
+							problems.add(new ASTValidationProblem(id, message, arguments, isWarning, isError,
+									fileName, markerId, lineNumber, startChar, endChar, problemRuleId));
+						} else {
+							problems.add(new ASTValidationProblem(message, isWarning, isError, fileName, markerId,
+									lineNumber, startChar, endChar, problemRuleId));
+						}
+					}
+					this.entries.put(key, Collections.unmodifiableList(problems));
+				}
+			} finally {
+				inputStream.close();
+			}
+		} catch (final EOFException e) {
+			// Truncated file. Entries are discarded.
+			this.entries.clear();
+		} catch (final IOException e) {
+			this.entries.clear();
+			Activator.logException(e);
+		}
+	}
+
+	/**
+	 * Saves the cache file, if the cache has changed since it has been
+	 * loaded. Entries are written from the least recently used one, so that
+	 * the access order is kept when loading them back.
+	 */
+	public synchronized void save() {
+		final File file = ASTValidationCache.getFile();
+		if (!this.dirty || (file == null)) {
+			return;
+		}
+		final File temporaryFile = new File(file.getPath() + ".tmp");
+		try {
+			final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temporaryFile)));
+			try {
+				outputStream.writeInt(ASTValidationCache.MAGIC);
+				outputStream.writeInt(ASTValidationCache.FORMAT_VERSION);
+				outputStream.writeInt(this.entries.size());
+				for (final Map.Entry<String, List<ASTValidationProblem>> entry : this.entries.entrySet()) {
+					ASTValidationCache.writeString(outputStream, entry.getKey());
+					outputStream.writeInt(entry.getValue().size());
+					for (final ASTValidationProblem problem : entry.getValue()) {
+						// Problems raised from templates are stored unformatted
+						final boolean isTemplate = problem.getID() != 0 && problem.getMessagePattern() != null;
+						outputStream.writeInt(isTemplate ? problem.getID() : 0);
+						if (isTemplate) {
+							ASTValidationCache.writeString(outputStream, problem.getMessagePattern());
+							outputStream.writeInt(problem.getArguments().length);
+							for (final String argument : problem.getArguments()) {
+								ASTValidationCache.writeString(outputStream, argument);
+							}
+						} else {
+							ASTValidationCache.writeString(outputStream, problem.getMessage());
+						}
+						ASTValidationCache.writeString(outputStream, new String(problem.getOriginatingFileName()));
+						ASTValidationCache.writeString(outputStream, problem.getMarkerType());
+						ASTValidationCache.writeString(outputStream, problem.getRuleId());
+						outputStream.writeByte((problem.isWarning() ? ASTValidationCache.WARNING : 0)
+								| (problem.isError() ? ASTValidationCache.ERROR : 0));
+						outputStream.writeInt(problem.getSourceLineNumber());
+						outputStream.writeInt(problem.getSourceStart());
+						outputStream.writeInt(problem.getSourceEnd());
+					}
+				}
+			} finally {
+				outputStream.close();
+			}
+			if ((file.exists() && !file.delete()) || !temporaryFile.renameTo(file)) {
+				throw new IOException("Could not replace " + file);
+			}
+			this.dirty = false;
+		} catch (final IOException e) {
+			temporaryFile.delete();
+			Activator.logException(e);
+		}
+	}
+
+	/**
+	 * @return file holding the cache, or null if the plugin is not active
+	 */
+	private static File getFile() {
+		final Activator activator = Activator.getDefault();
+		return activator != null ? activator.getStateLocation().append(ASTValidationCache.FILE_NAME).toFile()
+				: null;
+	}
+
+	/**
+	 * Reads a string, written as its UTF-8 bytes length followed by its bytes
+	 * 
+	 * @param inputStream
+	 * @return
+	 * @throws IOException
+	 */
+	private static String readString(final DataInputStream inputStream) throws IOException {
+		final byte[] bytes = new byte[inputStream.readInt()];
+		inputStream.readFully(bytes);
+		return new String(bytes, ASTValidationCache.UTF8);
+	}
+
+	/**
+	 * Writes a string, as its UTF-8 bytes length followed by its bytes
+	 * 
+	 * @param outputStream
+	 * @param value
+	 * @throws IOException
+	 */
+	private static void writeString(final DataOutputStream outputStream, final String value) throws IOException {
+		final byte[] bytes = (value != null ? value : "").getBytes(ASTValidationCache.UTF8);
+		outputStream.writeInt(bytes.length);
+		outputStream.write(bytes);
+	}
+
+	/**
+	 * @return new digest used to hash the sources, or null if not available
+	 */
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (final NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.ICompilationUnit;
+
+/**
+ * Outcome of the validation of one compilation unit. Produced by the
+ * validation, possibly on a worker thread, and turned into markers afterwards,
+ * on the thread that runs the engine.
+ * 
+ * @since 1.2
+ */
+public class ASTValidationResult {
+
+	/**
+	 * Validated compilation unit
+	 */
+	private final ICompilationUnit compilationUnit;
+
+	/**
+	 * Resource holding the markers
+	 */
+	private final IResource resource;
+
+	/**
+	 * Marker types handled by the repositories that validated the unit
+	 */
+	private final Set<String> markerIds = new LinkedHashSet<String>();
+
+	/**
+	 * Problems raised by the rules
+	 */
+	private final ASTProblemBuffer problems = new ASTProblemBuffer();
+
+	/**
+	 * Identifiers of the rules that failed
+	 */
+	private final List<String> failedRules = new ArrayList<String>();
+
+	/**
+	 * Exceptions raised by the rules that failed
+	 */
+	private final List<Throwable> failures = new ArrayList<Throwable>();
+
+	/**
+	 * Identifiers of the rules that have been skipped
+	 */
+	private final List<String> skippedRules = new ArrayList<String>();
+
+	/**
+	 * Key under which the problems are to be cached, or null
+	 */
+	private String cacheKey;
+
+	/**
+	 * Creates new result for compilation unit
+	 * 
+	 * @param compilationUnit
+	 */
+	public ASTValidationResult(final ICompilationUnit compilationUnit) {
+		this.compilationUnit = compilationUnit;
+		this.resource = compilationUnit.getResource();
+	}
+
+	/**
+	 * @return validated compilation unit
+	 */
+	public ICompilationUnit getCompilationUnit() {
+		return this.compilationUnit;
+	}
+
+	/**
+	 * @return resource holding the markers
+	 */
+	public IResource getResource() {
+		return this.resource;
+	}
+
+	/**
+	 * Registers marker type whose previous markers are to be replaced
+	 * 
+	 * @param markerId
+	 */
+	public void addMarkerId(final String markerId) {
+		this.markerIds.add(markerId);
+	}
+
+	/**
+	 * @return marker types whose previous markers are to be replaced
+	 */
+	public Set<String> getMarkerIds() {
+		return this.markerIds;
+	}
+
+	/**
+	 * Adds problems raised by rule
+	 * 
+	 * @param problems
+	 */
+	public void addProblems(final List<ASTValidationProblem> problems) {
+		this.problems.addAll(problems);
+	}
+
+	/**
+	 * Adds problems raised by rule, without materializing them
+	 * 
+	 * @param problems
+	 */
+	public void addProblems(final ASTProblemBuffer problems) {
+		this.problems.addAll(problems);
+	}
+
+	/**
+	 * Adds the first problems raised by rule, up to the maximum number
+	 * provided, without materializing them
+	 * 
+	 * @param problems
+	 * @param maxProblems
+	 * @return number of problems added
+	 */
+	public int addProblems(final ASTProblemBuffer problems, final int maxProblems) {
+		return this.problems.addAll(problems, maxProblems);
+	}
+
+	/**
+	 * Adds a problem summarizing the problems of the marker type provided
+	 * that have not been added
+	 * 
+	 * @param markerId
+	 * @param suppressed
+	 */
+	public void addSuppressedProblems(final String markerId, final int suppressed) {
+		final String fileName = this.resource != null ? this.resource.getName() : "";
+		this.problems.addSummary(fileName, markerId, suppressed);
+	}
+
+	/**
+	 * @return problems raised by the rules, materialized at first call
+	 */
+	public List<ASTValidationProblem> getProblems() {
+		return this.problems.getProblems();
+	}
+
+	/**
+	 * Records a rule failure. Exception may be null if rule could not be
+	 * instantiated.
+	 * 
+	 * @param ruleId
+	 * @param failure
+	 */
+	public void addFailure(final String ruleId, final Throwable failure) {
+		this.failedRules.add(ruleId);
+		this.failures.add(failure);
+	}
+
+	/**
+	 * @return identifiers of the rules that failed
+	 */
+	public List<String> getFailedRules() {
+		return this.failedRules;
+	}
+
+	/**
+	 * @return exceptions raised by the rules that failed, in the same order as
+	 *         the identifiers
+	 */
+	public List<Throwable> getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * Records a rule that has been skipped, e.g. because it has been
+	 * quarantined
+	 * 
+	 * @param ruleId
+	 */
+	public void addSkippedRule(final String ruleId) {
+		this.skippedRules.add(ruleId);
+	}
+
+	/**
+	 * @return identifiers of the rules that have been skipped
+	 */
+	public List<String> getSkippedRules() {
+		return this.skippedRules;
+	}
+
+	/**
+	 * @return true if all the rules have been executed successfully
+	 */
+	public boolean isComplete() {
+		return this.failedRules.isEmpty() && this.skippedRules.isEmpty();
+	}
+
+	/**
+	 * Sets the key under which the problems are to be cached, once the rules
+	 * have been executed
+	 * 
+	 * @param cacheKey
+	 */
+	public void setCacheKey(final String cacheKey) {
+		this.cacheKey = cacheKey;
+	}
+
+	/**
+	 * @return key under which the problems are to be cached, or null
+	 */
+	public String getCacheKey() {
+		return this.cacheKey;
+	}
+}
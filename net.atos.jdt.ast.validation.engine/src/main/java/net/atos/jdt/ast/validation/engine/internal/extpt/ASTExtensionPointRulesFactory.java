@@ -49,6 +49,12 @@ public class ASTExtensionPointRulesFactory extends AbstractASTRuleFactory {
 	 */
 	private final IConfigurationElement element;
 
+	/**
+	 * Instance already created while reading the extension, returned by the
+	 * first call to {@link #create()}, or null
+	 */
+	private Object initialInstance;
+
 	/**
 	 * Creates new factory with Extension point information, so we use extension
 	 * point to create new rules instances. This is better then
@@ -62,6 +68,21 @@ public class ASTExtensionPointRulesFactory extends AbstractASTRuleFactory {
 		this.extensionPointKey = extensionPointKey;
 	}
 
+	/**
+	 * Creates new factory with Extension point information, and an instance
+	 * already created from it, so that it is not created twice.
+	 * 
+	 * @param element
+	 * @param extensionPointKey
+	 * @param initialInstance
+	 * @since 1.2
+	 */
+	public ASTExtensionPointRulesFactory(final IConfigurationElement element, final String extensionPointKey,
+			final Object initialInstance) {
+		this(element, extensionPointKey);
+		this.initialInstance = initialInstance;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -71,8 +92,10 @@ public class ASTExtensionPointRulesFactory extends AbstractASTRuleFactory {
 	public AbstractASTRule create() {
 		try {
 			if ((this.element != null) && (this.extensionPointKey != null)) {
-				final Object createdExecutableExtension = this.element
-						.createExecutableExtension(this.extensionPointKey);
+				Object createdExecutableExtension = this.takeInitialInstance();
+				if (createdExecutableExtension == null) {
+					createdExecutableExtension = this.element.createExecutableExtension(this.extensionPointKey);
+				}
 				if (createdExecutableExtension instanceof AbstractASTRule) {
 					return (AbstractASTRule) createdExecutableExtension;
 				} else {
@@ -90,4 +113,15 @@ public class ASTExtensionPointRulesFactory extends AbstractASTRuleFactory {
 		return null;
 	}
 
+	/**
+	 * Returns the instance created while reading the extension, only once
+	 * 
+	 * @return instance, or null if already returned
+	 */
+	private synchronized Object takeInitialInstance() {
+		final Object instance = this.initialInstance;
+		this.initialInstance = null;
+		return instance;
+	}
+
 }
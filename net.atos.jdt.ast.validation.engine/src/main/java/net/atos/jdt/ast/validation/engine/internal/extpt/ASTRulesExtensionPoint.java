@@ -22,23 +22,31 @@
 package net.atos.jdt.ast.validation.engine.internal.extpt;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
 import net.atos.jdt.ast.validation.engine.ASTRulesRepository;
 import net.atos.jdt.ast.validation.engine.IASTRulesDataSource;
 import net.atos.jdt.ast.validation.engine.internal.Activator;
 import net.atos.jdt.ast.validation.engine.internal.ValidationEngineMessages;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTExecutionPlan;
 import net.atos.jdt.ast.validation.engine.rules.AbstractProjectContext;
+import net.atos.jdt.ast.validation.engine.rules.AbstractStatelessASTRule;
 
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryEventListener;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 
 /**
  * Singleton class in charge of reading Validation rules set through Extension
@@ -89,7 +97,45 @@ public class ASTRulesExtensionPoint implements IASTRulesDataSource {
 	 * @generated Singleton Generator on 2012-12-18 12:15:12 CET
 	 */
 	private ASTRulesExtensionPoint() {
-		this.repositories = new HashSet<ASTRulesRepository>();
+		this.repositories = this.load();
+		// Plans are rebuilt when rules are enabled/disabled, or when the
+		// contributions change
+		Activator.getDefault().getPreferenceStore().addPropertyChangeListener(new IPropertyChangeListener() {
+			@Override
+			public void propertyChange(final PropertyChangeEvent event) {
+				ASTRulesExtensionPoint.this.invalidate();
+			}
+		});
+		Platform.getExtensionRegistry().addListener(new IRegistryEventListener() {
+			@Override
+			public void added(final IExtension[] extensions) {
+				ASTRulesExtensionPoint.this.reload();
+			}
+
+			@Override
+			public void removed(final IExtension[] extensions) {
+				ASTRulesExtensionPoint.this.reload();
+			}
+
+			@Override
+			public void added(final IExtensionPoint[] extensionPoints) {
+				ASTRulesExtensionPoint.this.reload();
+			}
+
+			@Override
+			public void removed(final IExtensionPoint[] extensionPoints) {
+				ASTRulesExtensionPoint.this.reload();
+			}
+		}, Activator.PLUGIN_ID + "." + ASTRulesExtensionPoint.EXTPT_NAME);
+	}
+
+	/**
+	 * Reads the repositories contributed through the extension point
+	 * 
+	 * @return
+	 */
+	private Set<ASTRulesRepository> load() {
+		final Set<ASTRulesRepository> repositories = new HashSet<ASTRulesRepository>();
 		final IExtensionPoint extensionPoint = Platform.getExtensionRegistry().getExtensionPoint(Activator.PLUGIN_ID,
 				ASTRulesExtensionPoint.EXTPT_NAME);
 		final IExtension[] extensions = extensionPoint.getExtensions();
@@ -129,9 +175,17 @@ public class ASTRulesExtensionPoint implements IASTRulesDataSource {
 							final String description = contextElement.getAttribute(ASTRulesExtensionPoint.DESCRIPTION);
 							final boolean mandatory = Boolean.valueOf(contextElement
 									.getAttribute(ASTRulesExtensionPoint.MANDATORY));
-							final ASTExtensionPointRulesFactory factory = new ASTExtensionPointRulesFactory(
-									contextElement, ASTRulesExtensionPoint.IMPLEMENTATION);
-							repository.registerRule(new ASTRuleDescriptor(description, factory, mandatory));
+							// Stateless rules are instantiated once, and shared
+							final Object implementation = contextElement
+									.createExecutableExtension(ASTRulesExtensionPoint.IMPLEMENTATION);
+							if (implementation instanceof AbstractStatelessASTRule) {
+								repository.registerRule(new ASTRuleDescriptor(description,
+										(AbstractStatelessASTRule) implementation, mandatory));
+							} else {
+								final ASTExtensionPointRulesFactory factory = new ASTExtensionPointRulesFactory(
+										contextElement, ASTRulesExtensionPoint.IMPLEMENTATION, implementation);
+								repository.registerRule(new ASTRuleDescriptor(description, factory, mandatory));
+							}
 						} catch (final Exception e) {
 							Activator
 									.getDefault()
@@ -141,16 +195,62 @@ public class ASTRulesExtensionPoint implements IASTRulesDataSource {
 													.getAttribute(ASTRulesExtensionPoint.IMPLEMENTATION)), e));
 						}
 					}
-					this.repositories.add(repository);
+					repositories.add(repository);
 				}
 			}
 		}
+		return repositories;
+	}
+
+	/**
+	 * Reads the repositories again, after the contributions changed
+	 */
+	private void reload() {
+		this.repositories = this.load();
+		this.invalidate();
+	}
+
+	/**
+	 * Discards the execution plans. They will be rebuilt on next request.
+	 */
+	private void invalidate() {
+		this.executionPlans.set(new ConcurrentHashMap<List<String>, ASTExecutionPlan>());
+	}
+
+	/**
+	 * Returns the execution plan for the repositories provided. Plan is
+	 * shared, until preferences or contributions change.
+	 * 
+	 * @param repositories
+	 * @return
+	 */
+	public ASTExecutionPlan getExecutionPlan(final String... repositories) {
+		final ConcurrentHashMap<List<String>, ASTExecutionPlan> executionPlans = this.executionPlans.get();
+		final List<String> key = Arrays.asList(repositories);
+		ASTExecutionPlan executionPlan = executionPlans.get(key);
+		if (executionPlan == null) {
+			executionPlan = ASTExecutionPlan.build(this.getRepositories(repositories));
+			final ASTExecutionPlan existingPlan = executionPlans.putIfAbsent(key, executionPlan);
+			if (existingPlan != null) {
+				executionPlan = existingPlan;
+			}
+		}
+		return executionPlan;
 	}
 
 	/**
 	 * List of resolved repositories
 	 */
-	private Set<ASTRulesRepository> repositories = null;
+	private volatile Set<ASTRulesRepository> repositories = null;
+
+	/**
+	 * Execution plans, by requested repositories. Whole map is replaced when
+	 * plans are invalidated, so that a plan built from outdated data is never
+	 * published.
+	 */
+	private final AtomicReference<ConcurrentHashMap<List<String>, ASTExecutionPlan>> executionPlans =
+			new AtomicReference<ConcurrentHashMap<List<String>, ASTExecutionPlan>>(
+					new ConcurrentHashMap<List<String>, ASTExecutionPlan>());
 
 	/**
 	 * Returns true if ID provided is in array provided too.
@@ -75,6 +75,11 @@ public class RulesExtensionPointPreferencePage extends PreferencePage implements
 
 	private boolean rulesAreSingletons;
 
+	/**
+	 * Pooling button temp state
+	 */
+	private boolean rulesArePooled;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -129,13 +134,26 @@ public class RulesExtensionPointPreferencePage extends PreferencePage implements
 		});
 		//
 		new FormDataBuilder().left().right().top(participantButton).apply(rulesSingletonButton);
+		//
+		final Button rulesPoolButton = new Button(background, SWT.CHECK);
+		rulesPoolButton.setText(RulesPreferencePagesMessages.ENABLE_POOLING.value());
+		rulesPoolButton.setToolTipText(RulesPreferencePagesMessages.ENABLE_POOLING_TOOLTIP.value());
+		this.rulesArePooled = ASTRulesPreferences.areRulesPooled();
+		rulesPoolButton.setSelection(this.rulesArePooled);
+		rulesPoolButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(final SelectionEvent e) {
+				RulesExtensionPointPreferencePage.this.rulesArePooled = ((Button) e.widget).getSelection();
+			}
+		});
+		new FormDataBuilder().left().right().top(rulesSingletonButton).apply(rulesPoolButton);
 
 		final Label comboLabel = new Label(background, SWT.NONE);
 		comboLabel.setText(RulesPreferencePagesMessages.REPOSITORY_LABEL.value());
-		new FormDataBuilder().left().top(rulesSingletonButton, 17).width(100).apply(comboLabel);
+		new FormDataBuilder().left().top(rulesPoolButton, 17).width(100).apply(comboLabel);
 
 		final Combo combo = new Combo(background, SWT.READ_ONLY);
-		new FormDataBuilder().left(comboLabel).top(rulesSingletonButton, 15).right().apply(combo);
+		new FormDataBuilder().left(comboLabel).top(rulesPoolButton, 15).right().apply(combo);
 
 		final ComboViewer comboViewer = new ComboViewer(combo);
 		comboViewer.setContentProvider(new RulesRepositoriesContentProvider());
@@ -184,6 +202,7 @@ public class RulesExtensionPointPreferencePage extends PreferencePage implements
 		}
 
 		ASTRulesPreferences.setUseRulesAsSingletons(this.rulesAreSingletons);
+		ASTRulesPreferences.setUseRulesPool(this.rulesArePooled);
 
 		return super.performOk();
 	}
@@ -25,7 +25,7 @@ import java.text.MessageFormat;
 import java.util.ResourceBundle;
 
 public enum RulesPreferencePagesMessages {
-	PREFERENCE_LABEL, REPOSITORY_LABEL, GROUP_LABEL, ENABLE_CUP, LINK_TO_QUICKSTART, ENABLE_CUP_TOOLTIP, ENABLE_SINGLETONS, ENABLE_SINGLETONS_TOOLTIP;
+	PREFERENCE_LABEL, REPOSITORY_LABEL, GROUP_LABEL, ENABLE_CUP, LINK_TO_QUICKSTART, ENABLE_CUP_TOOLTIP, ENABLE_SINGLETONS, ENABLE_SINGLETONS_TOOLTIP, ENABLE_POOLING, ENABLE_POOLING_TOOLTIP;
 
 	/*
 	 * ResourceBundle instance
@@ -0,0 +1,435 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Java Flight Recorder event of the validation, so that a standard recording
+ * shows where the build and reconcile time goes, without attaching a
+ * profiler.
+ * 
+ * As the plugin runs on Java 6, events cannot extend jdk.jfr.Event: they are
+ * defined at runtime through jdk.jfr.EventFactory, by reflection. On JVMs
+ * without Flight Recorder, events are never emitted.
+ * 
+ * Events are only created while a recording is running, which is tracked
+ * through a recorder listener: when no recording is running, {@link #begin()}
+ * costs a volatile read, and returns null. Typical use:
+ * 
+ * <pre>
+ * final Object event = ASTFlightEvent.PARSE.begin();
+ * ...
+ * if (event != null) {
+ * 	ASTFlightEvent.PARSE.commit(event, unit, project, bindings);
+ * }
+ * </pre>
+ * 
+ * @since 1.2
+ */
+public final class ASTFlightEvent {
+
+	/**
+	 * Prefix of the event names
+	 */
+	private static final String NAME_PREFIX = "net.atos.jdt.ast.validation.";
+
+	/**
+	 * Category of the events
+	 */
+	private static final String CATEGORY = "AST Validation";
+
+	/**
+	 * Recorder state, shared by the events
+	 */
+	private static final Recorder RECORDER = new Recorder();
+
+	/**
+	 * Parsing of a compilation unit
+	 */
+	public static final ASTFlightEvent PARSE = new ASTFlightEvent("Parse", "AST Parse",
+			"Parsing of a compilation unit into an AST", new Field("unit", "Unit", String.class), new Field(
+					"project", "Project", String.class), new Field("bindings", "Bindings", boolean.class));
+
+	/**
+	 * Execution of a rule on a compilation unit. As the rules of a unit are
+	 * executed within a single walk of the tree, the event spans the whole
+	 * walk, while the time spent in the rule itself is a field.
+	 */
+	public static final ASTFlightEvent RULE_VISIT = new ASTFlightEvent("RuleVisit", "AST Rule Visit",
+			"Execution of a rule on the AST of a compilation unit", new Field("rule", "Rule", String.class),
+			new Field("repository", "Repository", String.class), new Field("unit", "Unit", String.class),
+			new Field("nodes", "Nodes Visited", int.class), new Field("problems", "Problems", int.class),
+			new Field("failed", "Failed", boolean.class), new Field("visitTime", "Visit Time", long.class, true));
+
+	/**
+	 * Publication of markers, within a single workspace operation
+	 */
+	public static final ASTFlightEvent MARKERS = new ASTFlightEvent("Markers", "AST Markers Publication",
+			"Publication of the markers matching the problems raised", new Field("resources", "Resources",
+					int.class), new Field("created", "Created", int.class), new Field("updated", "Updated",
+					int.class), new Field("deleted", "Deleted", int.class));
+
+	/**
+	 * Factory of the event, or null if Flight Recorder is not available
+	 */
+	private final Object factory;
+
+	/**
+	 * Creates new event type
+	 * 
+	 * @param name
+	 * @param label
+	 * @param description
+	 * @param fields
+	 */
+	private ASTFlightEvent(final String name, final String label, final String description, final Field... fields) {
+		this.factory = ASTFlightEvent.RECORDER.createFactory(ASTFlightEvent.NAME_PREFIX + name, label,
+				description, fields);
+	}
+
+	/**
+	 * Begins an event, if a recording is running
+	 * 
+	 * @return the event, to commit once the operation is over, or null
+	 */
+	public Object begin() {
+		if (!ASTFlightEvent.RECORDER.recording || (this.factory == null)) {
+			return null;
+		}
+		return ASTFlightEvent.RECORDER.begin(this.factory);
+	}
+
+	/**
+	 * Ends and commits an event
+	 * 
+	 * @param event
+	 *            event returned by {@link #begin()}, or null
+	 * @param values
+	 *            values of the fields, in the order of their declaration
+	 */
+	public void commit(final Object event, final Object... values) {
+		if (event != null) {
+			ASTFlightEvent.RECORDER.commit(event, values);
+		}
+	}
+
+	/**
+	 * @return true if a recording is running
+	 */
+	public static boolean isRecording() {
+		return ASTFlightEvent.RECORDER.recording;
+	}
+
+	/**
+	 * Field of an event
+	 */
+	private static final class Field {
+
+		/**
+		 * Name of the field
+		 */
+		private final String name;
+
+		/**
+		 * Label of the field
+		 */
+		private final String label;
+
+		/**
+		 * Type of the field
+		 */
+		private final Class<?> type;
+
+		/**
+		 * True if the field is a duration, in nanoseconds
+		 */
+		private final boolean timespan;
+
+		/**
+		 * Creates new field
+		 * 
+		 * @param name
+		 * @param label
+		 * @param type
+		 */
+		private Field(final String name, final String label, final Class<?> type) {
+			this(name, label, type, false);
+		}
+
+		/**
+		 * Creates new field
+		 * 
+		 * @param name
+		 * @param label
+		 * @param type
+		 * @param timespan
+		 */
+		private Field(final String name, final String label, final Class<?> type, final boolean timespan) {
+			this.name = name;
+			this.label = label;
+			this.type = type;
+			this.timespan = timespan;
+		}
+	}
+
+	/**
+	 * Access to the Flight Recorder API, by reflection, and listener of the
+	 * recordings state
+	 */
+	private static final class Recorder implements InvocationHandler {
+
+		/**
+		 * True if a recording is running
+		 */
+		private volatile boolean recording;
+
+		/**
+		 * Recordings running
+		 */
+		private final Set<Object> runningRecordings = new HashSet<Object>();
+
+		/**
+		 * True if the Flight Recorder API is available
+		 */
+		private boolean available;
+
+		/**
+		 * jdk.jfr.AnnotationElement class
+		 */
+		private Class<?> annotationElementClass;
+
+		/**
+		 * jdk.jfr.ValueDescriptor class
+		 */
+		private Class<?> valueDescriptorClass;
+
+		/**
+		 * jdk.jfr.EventFactory.create(List, List) method
+		 */
+		private Method createMethod;
+
+		/**
+		 * jdk.jfr.EventFactory.newEvent() method
+		 */
+		private Method newEventMethod;
+
+		/**
+		 * jdk.jfr.Event.begin() method
+		 */
+		private Method beginMethod;
+
+		/**
+		 * jdk.jfr.Event.end() method
+		 */
+		private Method endMethod;
+
+		/**
+		 * jdk.jfr.Event.set(int, Object) method
+		 */
+		private Method setMethod;
+
+		/**
+		 * jdk.jfr.Event.commit() method
+		 */
+		private Method commitMethod;
+
+		/**
+		 * jdk.jfr.Recording.getState() method
+		 */
+		private Method getStateMethod;
+
+		/**
+		 * jdk.jfr.RecordingState.RUNNING value
+		 */
+		private Object runningState;
+
+		/**
+		 * Loads the API, and starts listening to the recordings
+		 */
+		private Recorder() {
+			try {
+				final ClassLoader loader = ClassLoader.getSystemClassLoader();
+				this.annotationElementClass = loader.loadClass("jdk.jfr.AnnotationElement");
+				this.valueDescriptorClass = loader.loadClass("jdk.jfr.ValueDescriptor");
+				final Class<?> factoryClass = loader.loadClass("jdk.jfr.EventFactory");
+				final Class<?> eventClass = loader.loadClass("jdk.jfr.Event");
+				final Class<?> recorderClass = loader.loadClass("jdk.jfr.FlightRecorder");
+				final Class<?> listenerClass = loader.loadClass("jdk.jfr.FlightRecorderListener");
+				this.createMethod = factoryClass.getMethod("create", List.class, List.class);
+				this.newEventMethod = factoryClass.getMethod("newEvent");
+				this.beginMethod = eventClass.getMethod("begin");
+				this.endMethod = eventClass.getMethod("end");
+				this.setMethod = eventClass.getMethod("set", int.class, Object.class);
+				this.commitMethod = eventClass.getMethod("commit");
+				this.getStateMethod = loader.loadClass("jdk.jfr.Recording").getMethod("getState");
+				this.runningState = loader.loadClass("jdk.jfr.RecordingState").getField("RUNNING").get(null);
+				recorderClass.getMethod("addListener", listenerClass).invoke(null,
+						Proxy.newProxyInstance(loader, new Class<?>[] { listenerClass }, this));
+				// Recordings started before the listener has been added
+				if (Boolean.TRUE.equals(recorderClass.getMethod("isInitialized").invoke(null))) {
+					final Object flightRecorder = recorderClass.getMethod("getFlightRecorder").invoke(null);
+					for (final Object recording : (List<?>) recorderClass.getMethod("getRecordings").invoke(
+							flightRecorder)) {
+						this.update(recording);
+					}
+				}
+				this.available = true;
+			} catch (final Exception e) {
+				// Flight Recorder is not available on this JVM: no event is
+				// ever emitted
+				this.available = false;
+			}
+		}
+
+		/**
+		 * Creates the factory of an event type
+		 * 
+		 * @param name
+		 * @param label
+		 * @param description
+		 * @param fields
+		 * @return the factory, or null if Flight Recorder is not available
+		 */
+		private Object createFactory(final String name, final String label, final String description,
+				final Field[] fields) {
+			if (!this.available) {
+				return null;
+			}
+			try {
+				final List<Object> annotations = new ArrayList<Object>();
+				annotations.add(this.newAnnotation("jdk.jfr.Name", name));
+				annotations.add(this.newAnnotation("jdk.jfr.Label", label));
+				annotations.add(this.newAnnotation("jdk.jfr.Description", description));
+				annotations.add(this.newAnnotation("jdk.jfr.Category", new String[] { ASTFlightEvent.CATEGORY }));
+				// Stack traces would only show the reflective calls
+				annotations.add(this.newAnnotation("jdk.jfr.StackTrace", Boolean.FALSE));
+				final List<Object> descriptors = new ArrayList<Object>();
+				for (final Field field : fields) {
+					final List<Object> fieldAnnotations = new ArrayList<Object>();
+					fieldAnnotations.add(this.newAnnotation("jdk.jfr.Label", field.label));
+					if (field.timespan) {
+						fieldAnnotations.add(this.newAnnotation("jdk.jfr.Timespan", "NANOSECONDS"));
+					}
+					descriptors.add(this.valueDescriptorClass.getConstructor(Class.class, String.class, List.class)
+							.newInstance(field.type, field.name, fieldAnnotations));
+				}
+				return this.createMethod.invoke(null, annotations, descriptors);
+			} catch (final Exception e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Creates an annotation element
+		 * 
+		 * @param annotationClassName
+		 * @param value
+		 * @return
+		 * @throws Exception
+		 */
+		private Object newAnnotation(final String annotationClassName, final Object value) throws Exception {
+			final Class<?> annotationClass = ClassLoader.getSystemClassLoader().loadClass(annotationClassName);
+			return this.annotationElementClass.getConstructor(Class.class, Object.class).newInstance(
+					annotationClass, value);
+		}
+
+		/**
+		 * Creates and begins an event
+		 * 
+		 * @param factory
+		 * @return the event, or null
+		 */
+		private Object begin(final Object factory) {
+			try {
+				final Object event = this.newEventMethod.invoke(factory);
+				this.beginMethod.invoke(event);
+				return event;
+			} catch (final Exception e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Ends the event, sets its fields, and commits it
+		 * 
+		 * @param event
+		 * @param values
+		 */
+		private void commit(final Object event, final Object[] values) {
+			try {
+				this.endMethod.invoke(event);
+				for (int index = 0; index < values.length; index++) {
+					this.setMethod.invoke(event, index, values[index]);
+				}
+				this.commitMethod.invoke(event);
+			} catch (final Exception e) {
+				// Event is lost, but the validation goes on
+				return;
+			}
+		}
+
+		/**
+		 * Updates the recording state, from the state of a recording
+		 * 
+		 * @param recording
+		 * @throws Exception
+		 */
+		private void update(final Object recording) throws Exception {
+			final boolean running = this.runningState.equals(this.getStateMethod.invoke(recording));
+			synchronized (this.runningRecordings) {
+				if (running) {
+					this.runningRecordings.add(recording);
+				} else {
+					this.runningRecordings.remove(recording);
+				}
+				this.recording = !this.runningRecordings.isEmpty();
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object,
+		 * java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Exception {
+			if ("recordingStateChanged".equals(method.getName())) {
+				this.update(args[0]);
+			} else if ("equals".equals(method.getName())) {
+				return proxy == args[0];
+			} else if ("hashCode".equals(method.getName())) {
+				return System.identityHashCode(proxy);
+			} else if ("toString".equals(method.getName())) {
+				return ASTFlightEvent.class.getName();
+			}
+			return null;
+		}
+	}
+}
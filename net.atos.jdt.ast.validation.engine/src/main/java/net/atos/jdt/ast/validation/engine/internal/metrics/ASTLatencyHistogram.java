@@ -0,0 +1,138 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, in nanoseconds, used to compute
+ * percentiles. Values are counted in logarithmic buckets, four per power of
+ * two, so that the percentiles are accurate within 25%, whatever the range of
+ * the values, with a fixed memory footprint.
+ * 
+ * @since 1.2
+ */
+public class ASTLatencyHistogram {
+
+	/**
+	 * Number of bits of the sub-buckets, within a power of two
+	 */
+	private static final int SUB_BUCKET_BITS = 2;
+
+	/**
+	 * Number of sub-buckets, within a power of two
+	 */
+	private static final int SUB_BUCKETS = 1 << ASTLatencyHistogram.SUB_BUCKET_BITS;
+
+	/**
+	 * Number of buckets, enough for all the positive long values
+	 */
+	private static final int BUCKETS = ASTLatencyHistogram.SUB_BUCKETS * (64 - ASTLatencyHistogram.SUB_BUCKET_BITS);
+
+	/**
+	 * Number of values counted, by bucket
+	 */
+	private final AtomicLongArray counts = new AtomicLongArray(ASTLatencyHistogram.BUCKETS);
+
+	/**
+	 * Records a value
+	 * 
+	 * @param value
+	 *            duration, in nanoseconds
+	 */
+	public void record(final long value) {
+		this.counts.incrementAndGet(ASTLatencyHistogram.getBucket(Math.max(0, value)));
+	}
+
+	/**
+	 * Returns the value under which the percentage of values provided falls.
+	 * 
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return upper bound of the bucket holding the percentile, in
+	 *         nanoseconds, or 0 if no value has been recorded
+	 */
+	public long getPercentile(final double percentile) {
+		final long[] snapshot = new long[ASTLatencyHistogram.BUCKETS];
+		long total = 0;
+		for (int bucket = 0; bucket < snapshot.length; bucket++) {
+			snapshot[bucket] = this.counts.get(bucket);
+			total += snapshot[bucket];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil((percentile / 100) * total));
+		long cumulated = 0;
+		for (int bucket = 0; bucket < snapshot.length; bucket++) {
+			cumulated += snapshot[bucket];
+			if (cumulated >= rank) {
+				return ASTLatencyHistogram.getUpperBound(bucket);
+			}
+		}
+		return ASTLatencyHistogram.getUpperBound(snapshot.length - 1);
+	}
+
+	/**
+	 * Forgets all the values recorded
+	 */
+	public void reset() {
+		for (int bucket = 0; bucket < ASTLatencyHistogram.BUCKETS; bucket++) {
+			this.counts.set(bucket, 0);
+		}
+	}
+
+	/**
+	 * Returns the bucket of a value. Values lower than the number of
+	 * sub-buckets have their own bucket; others are split by power of two, and
+	 * then by their next most significant bits.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	private static int getBucket(final long value) {
+		if (value < ASTLatencyHistogram.SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - ASTLatencyHistogram.SUB_BUCKET_BITS;
+		final int subBucket = (int) (value >>> shift) & (ASTLatencyHistogram.SUB_BUCKETS - 1);
+		return ASTLatencyHistogram.SUB_BUCKETS + (shift * ASTLatencyHistogram.SUB_BUCKETS) + subBucket;
+	}
+
+	/**
+	 * Returns the highest value of a bucket
+	 * 
+	 * @param bucket
+	 * @return
+	 */
+	private static long getUpperBound(final int bucket) {
+		if (bucket < ASTLatencyHistogram.SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = (bucket - ASTLatencyHistogram.SUB_BUCKETS) / ASTLatencyHistogram.SUB_BUCKETS;
+		final int subBucket = (bucket - ASTLatencyHistogram.SUB_BUCKETS) % ASTLatencyHistogram.SUB_BUCKETS;
+		final long lowerBound = (long) (ASTLatencyHistogram.SUB_BUCKETS + subBucket) << shift;
+		return (lowerBound + (1L << shift)) - 1;
+	}
+
+}
@@ -0,0 +1,430 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.atos.jdt.ast.validation.engine.internal.Activator;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Collects the execution metrics of the validation: invocations, time, nodes
+ * visited, problems and failures of each rule, and parsing and marker
+ * publication time of each repository.
+ * 
+ * The MBean is registered in the platform MBean server when the plugin
+ * starts, but collection is opt-in, as timing each rule on each unit has a
+ * cost: metrics are collected from start with the {@value #METRICS_PROPERTY}
+ * system property set to true, or once enabled through the MBean. They are
+ * kept in memory, by rule class name and by marker type, so that they survive
+ * the reload of the rules, until reset.
+ * 
+ * @since 1.2
+ */
+public final class ASTMetrics implements ASTMetricsMXBean {
+
+	/**
+	 * Name of the MBean
+	 */
+	public static final String OBJECT_NAME = "net.atos.jdt.ast.validation.engine:type=ValidationMetrics";
+
+	/**
+	 * System property enabling the collection of the metrics from start
+	 */
+	public static final String METRICS_PROPERTY = "net.atos.jdt.ast.validation.metrics";
+
+	/**
+	 * Singleton instance
+	 */
+	private static final ASTMetrics INSTANCE = new ASTMetrics();
+
+	/**
+	 * Nanoseconds in a microsecond
+	 */
+	private static final long NANOS_PER_MICRO = 1000L;
+
+	/**
+	 * Metrics of the rules, by rule class name
+	 */
+	private final ConcurrentMap<String, RuleMetrics> rules = new ConcurrentHashMap<String, RuleMetrics>();
+
+	/**
+	 * Metrics of the repositories, by marker type
+	 */
+	private final ConcurrentMap<String, RepositoryMetrics> repositories =
+			new ConcurrentHashMap<String, RepositoryMetrics>();
+
+	/**
+	 * Number of units validated
+	 */
+	private final AtomicLong unitsValidated = new AtomicLong();
+
+	/**
+	 * True if metrics are collected
+	 */
+	private volatile boolean enabled;
+
+	/**
+	 * Private constructor
+	 */
+	private ASTMetrics() {
+	}
+
+	/**
+	 * @return singleton instance
+	 */
+	public static ASTMetrics getInstance() {
+		return ASTMetrics.INSTANCE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#enable()
+	 */
+	@Override
+	public void enable() {
+		this.enabled = true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#disable()
+	 */
+	@Override
+	public void disable() {
+		this.enabled = false;
+	}
+
+	/**
+	 * Registers the MBean in the platform MBean server. Metrics are collected
+	 * from now on only if the {@value #METRICS_PROPERTY} system property is
+	 * set to true.
+	 */
+	public void register() {
+		this.enabled = Boolean.getBoolean(ASTMetrics.METRICS_PROPERTY);
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(ASTMetrics.OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(this, name);
+			}
+		} catch (final JMException e) {
+			Activator.getDefault().getLog().log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, e.getMessage(), e));
+		}
+	}
+
+	/**
+	 * Unregisters the MBean from the platform MBean server, and stops
+	 * collecting the metrics
+	 */
+	public void unregister() {
+		this.enabled = false;
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(ASTMetrics.OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (final JMException e) {
+			Activator.getDefault().getLog().log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, e.getMessage(), e));
+		}
+	}
+
+	/**
+	 * Records the execution of a rule on a compilation unit
+	 * 
+	 * @param ruleClassName
+	 * @param nanos
+	 *            time spent in the rule
+	 * @param nodes
+	 *            number of nodes visited by the rule
+	 * @param problems
+	 *            number of problems raised, including the suppressed ones
+	 * @param failed
+	 *            true if the rule raised an exception or exceeded its budget
+	 */
+	public void recordRule(final String ruleClassName, final long nanos, final int nodes, final int problems,
+			final boolean failed) {
+		RuleMetrics metrics = this.rules.get(ruleClassName);
+		if (metrics == null) {
+			final RuleMetrics created = new RuleMetrics();
+			metrics = this.rules.putIfAbsent(ruleClassName, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		metrics.invocations.incrementAndGet();
+		metrics.nanos.addAndGet(nanos);
+		metrics.histogram.record(nanos);
+		metrics.nodes.addAndGet(nodes);
+		metrics.problems.addAndGet(problems);
+		if (failed) {
+			metrics.failures.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records the validation of a compilation unit
+	 */
+	public void recordUnit() {
+		this.unitsValidated.incrementAndGet();
+	}
+
+	/**
+	 * Records the parsing of compilation units, on behalf of the repositories
+	 * provided
+	 * 
+	 * @param markerTypes
+	 *            marker types of the repositories whose rules needed the
+	 *            units
+	 * @param units
+	 *            number of units parsed
+	 * @param nanos
+	 *            time spent parsing the units
+	 */
+	public void recordParse(final Collection<String> markerTypes, final int units, final long nanos) {
+		for (final String markerType : markerTypes) {
+			final RepositoryMetrics metrics = this.getRepositoryMetrics(markerType);
+			metrics.unitsParsed.addAndGet(units);
+			metrics.parseNanos.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * Records the publication of the markers of a repository
+	 * 
+	 * @param markerType
+	 * @param nanos
+	 *            time spent publishing all the markers of the operation
+	 * @param created
+	 *            number of markers of the type created
+	 * @param updated
+	 *            number of markers of the type updated
+	 * @param deleted
+	 *            number of markers of the type deleted
+	 */
+	public void recordPublication(final String markerType, final long nanos, final int created, final int updated,
+			final int deleted) {
+		final RepositoryMetrics metrics = this.getRepositoryMetrics(markerType);
+		metrics.publications.incrementAndGet();
+		metrics.publicationNanos.addAndGet(nanos);
+		metrics.created.addAndGet(created);
+		metrics.updated.addAndGet(updated);
+		metrics.deleted.addAndGet(deleted);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#
+	 * getRuleStatistics()
+	 */
+	@Override
+	public ASTRuleStatistics[] getRuleStatistics() {
+		final List<ASTRuleStatistics> statistics = new ArrayList<ASTRuleStatistics>(this.rules.size());
+		for (final Map.Entry<String, RuleMetrics> entry : this.rules.entrySet()) {
+			final RuleMetrics metrics = entry.getValue();
+			statistics.add(new ASTRuleStatistics(entry.getKey(), metrics.invocations.get(), ASTMetrics
+					.toMicros(metrics.nanos.get()), ASTMetrics.toMicros(metrics.histogram.getPercentile(50)),
+					ASTMetrics.toMicros(metrics.histogram.getPercentile(90)), ASTMetrics.toMicros(metrics.histogram
+							.getPercentile(99)), metrics.nodes.get(), metrics.problems.get(), metrics.failures.get()));
+		}
+		return statistics.toArray(new ASTRuleStatistics[statistics.size()]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#
+	 * getRepositoryStatistics()
+	 */
+	@Override
+	public ASTRepositoryStatistics[] getRepositoryStatistics() {
+		final List<ASTRepositoryStatistics> statistics = new ArrayList<ASTRepositoryStatistics>(
+				this.repositories.size());
+		for (final Map.Entry<String, RepositoryMetrics> entry : this.repositories.entrySet()) {
+			final RepositoryMetrics metrics = entry.getValue();
+			statistics.add(new ASTRepositoryStatistics(entry.getKey(), metrics.unitsParsed.get(), ASTMetrics
+					.toMicros(metrics.parseNanos.get()), metrics.publications.get(), ASTMetrics
+					.toMicros(metrics.publicationNanos.get()), metrics.created.get(), metrics.updated.get(),
+					metrics.deleted.get()));
+		}
+		return statistics.toArray(new ASTRepositoryStatistics[statistics.size()]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#
+	 * getUnitsValidated()
+	 */
+	@Override
+	public long getUnitsValidated() {
+		return this.unitsValidated.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetricsMXBean#reset()
+	 */
+	@Override
+	public void reset() {
+		this.rules.clear();
+		this.repositories.clear();
+		this.unitsValidated.set(0);
+	}
+
+	/**
+	 * Returns the metrics of the repository, creating them if needed
+	 * 
+	 * @param markerType
+	 * @return
+	 */
+	private RepositoryMetrics getRepositoryMetrics(final String markerType) {
+		RepositoryMetrics metrics = this.repositories.get(markerType);
+		if (metrics == null) {
+			final RepositoryMetrics created = new RepositoryMetrics();
+			metrics = this.repositories.putIfAbsent(markerType, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * Converts nanoseconds to microseconds
+	 * 
+	 * @param nanos
+	 * @return
+	 */
+	private static long toMicros(final long nanos) {
+		return nanos / ASTMetrics.NANOS_PER_MICRO;
+	}
+
+	/**
+	 * Metrics of a rule
+	 */
+	private static final class RuleMetrics {
+
+		/**
+		 * Number of executions
+		 */
+		private final AtomicLong invocations = new AtomicLong();
+
+		/**
+		 * Total time spent, in nanoseconds
+		 */
+		private final AtomicLong nanos = new AtomicLong();
+
+		/**
+		 * Distribution of the time spent by execution
+		 */
+		private final ASTLatencyHistogram histogram = new ASTLatencyHistogram();
+
+		/**
+		 * Number of nodes visited
+		 */
+		private final AtomicLong nodes = new AtomicLong();
+
+		/**
+		 * Number of problems raised
+		 */
+		private final AtomicLong problems = new AtomicLong();
+
+		/**
+		 * Number of failures
+		 */
+		private final AtomicLong failures = new AtomicLong();
+	}
+
+	/**
+	 * Metrics of a repository
+	 */
+	private static final class RepositoryMetrics {
+
+		/**
+		 * Number of units parsed
+		 */
+		private final AtomicLong unitsParsed = new AtomicLong();
+
+		/**
+		 * Time spent parsing, in nanoseconds
+		 */
+		private final AtomicLong parseNanos = new AtomicLong();
+
+		/**
+		 * Number of marker publications
+		 */
+		private final AtomicLong publications = new AtomicLong();
+
+		/**
+		 * Time spent publishing markers, in nanoseconds
+		 */
+		private final AtomicLong publicationNanos = new AtomicLong();
+
+		/**
+		 * Number of markers created
+		 */
+		private final AtomicLong created = new AtomicLong();
+
+		/**
+		 * Number of markers updated
+		 */
+		private final AtomicLong updated = new AtomicLong();
+
+		/**
+		 * Number of markers deleted
+		 */
+		private final AtomicLong deleted = new AtomicLong();
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+/**
+ * Management interface of the validation metrics, registered in the platform
+ * MBean server under {@value ASTMetrics#OBJECT_NAME}, so that they can be
+ * watched from JConsole, or collected from a headless build.
+ * 
+ * @since 1.2
+ */
+public interface ASTMetricsMXBean {
+
+	/**
+	 * @return execution metrics of each rule executed since the last reset
+	 */
+	ASTRuleStatistics[] getRuleStatistics();
+
+	/**
+	 * @return parsing and publication metrics of each repository, since the
+	 *         last reset
+	 */
+	ASTRepositoryStatistics[] getRepositoryStatistics();
+
+	/**
+	 * @return number of compilation units validated since the last reset
+	 */
+	long getUnitsValidated();
+
+	/**
+	 * @return true if metrics are collected
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Starts collecting the metrics
+	 */
+	void enable();
+
+	/**
+	 * Stops collecting the metrics. Metrics collected so far are kept until
+	 * reset.
+	 */
+	void disable();
+
+	/**
+	 * Forgets all the metrics
+	 */
+	void reset();
+
+}
@@ -0,0 +1,161 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the metrics of a rules repository, identified by its marker
+ * type, as exposed through JMX.
+ * 
+ * Parsing and marker publication are shared by all the repositories that
+ * validate the same units: their time is accounted to each of them.
+ * 
+ * @since 1.2
+ */
+public class ASTRepositoryStatistics {
+
+	/**
+	 * Marker type of the repository
+	 */
+	private final String markerType;
+
+	/**
+	 * Number of compilation units parsed for the repository
+	 */
+	private final long unitsParsed;
+
+	/**
+	 * Time spent parsing the units, in microseconds
+	 */
+	private final long parseTimeMicros;
+
+	/**
+	 * Number of marker publications including markers of the repository
+	 */
+	private final long publications;
+
+	/**
+	 * Time spent publishing markers, in microseconds
+	 */
+	private final long publicationTimeMicros;
+
+	/**
+	 * Number of markers created
+	 */
+	private final long markersCreated;
+
+	/**
+	 * Number of markers updated
+	 */
+	private final long markersUpdated;
+
+	/**
+	 * Number of markers deleted
+	 */
+	private final long markersDeleted;
+
+	/**
+	 * Creates new statistics
+	 * 
+	 * @param markerType
+	 * @param unitsParsed
+	 * @param parseTimeMicros
+	 * @param publications
+	 * @param publicationTimeMicros
+	 * @param markersCreated
+	 * @param markersUpdated
+	 * @param markersDeleted
+	 */
+	@ConstructorProperties({ "markerType", "unitsParsed", "parseTimeMicros", "publications",
+			"publicationTimeMicros", "markersCreated", "markersUpdated", "markersDeleted" })
+	public ASTRepositoryStatistics(final String markerType, final long unitsParsed, final long parseTimeMicros,
+			final long publications, final long publicationTimeMicros, final long markersCreated,
+			final long markersUpdated, final long markersDeleted) {
+		this.markerType = markerType;
+		this.unitsParsed = unitsParsed;
+		this.parseTimeMicros = parseTimeMicros;
+		this.publications = publications;
+		this.publicationTimeMicros = publicationTimeMicros;
+		this.markersCreated = markersCreated;
+		this.markersUpdated = markersUpdated;
+		this.markersDeleted = markersDeleted;
+	}
+
+	/**
+	 * @return marker type of the repository
+	 */
+	public String getMarkerType() {
+		return this.markerType;
+	}
+
+	/**
+	 * @return number of compilation units parsed for the repository
+	 */
+	public long getUnitsParsed() {
+		return this.unitsParsed;
+	}
+
+	/**
+	 * @return time spent parsing the units, in microseconds
+	 */
+	public long getParseTimeMicros() {
+		return this.parseTimeMicros;
+	}
+
+	/**
+	 * @return number of marker publications including markers of the
+	 *         repository
+	 */
+	public long getPublications() {
+		return this.publications;
+	}
+
+	/**
+	 * @return time spent publishing markers, in microseconds
+	 */
+	public long getPublicationTimeMicros() {
+		return this.publicationTimeMicros;
+	}
+
+	/**
+	 * @return number of markers created
+	 */
+	public long getMarkersCreated() {
+		return this.markersCreated;
+	}
+
+	/**
+	 * @return number of markers updated
+	 */
+	public long getMarkersUpdated() {
+		return this.markersUpdated;
+	}
+
+	/**
+	 * @return number of markers deleted
+	 */
+	public long getMarkersDeleted() {
+		return this.markersDeleted;
+	}
+
+}
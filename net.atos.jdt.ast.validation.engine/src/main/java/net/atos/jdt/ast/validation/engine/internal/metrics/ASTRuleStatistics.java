@@ -0,0 +1,170 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the execution metrics of a rule, as exposed through JMX
+ * 
+ * @since 1.2
+ */
+public class ASTRuleStatistics {
+
+	/**
+	 * Class name of the rule
+	 */
+	private final String ruleClassName;
+
+	/**
+	 * Number of compilation units the rule has been executed on
+	 */
+	private final long invocations;
+
+	/**
+	 * Total time spent in the rule, in microseconds
+	 */
+	private final long totalTimeMicros;
+
+	/**
+	 * Median time spent on a unit, in microseconds
+	 */
+	private final long p50TimeMicros;
+
+	/**
+	 * 90th percentile of the time spent on a unit, in microseconds
+	 */
+	private final long p90TimeMicros;
+
+	/**
+	 * 99th percentile of the time spent on a unit, in microseconds
+	 */
+	private final long p99TimeMicros;
+
+	/**
+	 * Number of nodes visited by the rule
+	 */
+	private final long nodesVisited;
+
+	/**
+	 * Number of problems raised by the rule
+	 */
+	private final long problemsRaised;
+
+	/**
+	 * Number of failures of the rule
+	 */
+	private final long failures;
+
+	/**
+	 * Creates new statistics
+	 * 
+	 * @param ruleClassName
+	 * @param invocations
+	 * @param totalTimeMicros
+	 * @param p50TimeMicros
+	 * @param p90TimeMicros
+	 * @param p99TimeMicros
+	 * @param nodesVisited
+	 * @param problemsRaised
+	 * @param failures
+	 */
+	@ConstructorProperties({ "ruleClassName", "invocations", "totalTimeMicros", "p50TimeMicros", "p90TimeMicros",
+			"p99TimeMicros", "nodesVisited", "problemsRaised", "failures" })
+	public ASTRuleStatistics(final String ruleClassName, final long invocations, final long totalTimeMicros,
+			final long p50TimeMicros, final long p90TimeMicros, final long p99TimeMicros, final long nodesVisited,
+			final long problemsRaised, final long failures) {
+		this.ruleClassName = ruleClassName;
+		this.invocations = invocations;
+		this.totalTimeMicros = totalTimeMicros;
+		this.p50TimeMicros = p50TimeMicros;
+		this.p90TimeMicros = p90TimeMicros;
+		this.p99TimeMicros = p99TimeMicros;
+		this.nodesVisited = nodesVisited;
+		this.problemsRaised = problemsRaised;
+		this.failures = failures;
+	}
+
+	/**
+	 * @return class name of the rule
+	 */
+	public String getRuleClassName() {
+		return this.ruleClassName;
+	}
+
+	/**
+	 * @return number of compilation units the rule has been executed on
+	 */
+	public long getInvocations() {
+		return this.invocations;
+	}
+
+	/**
+	 * @return total time spent in the rule, in microseconds
+	 */
+	public long getTotalTimeMicros() {
+		return this.totalTimeMicros;
+	}
+
+	/**
+	 * @return median time spent on a unit, in microseconds
+	 */
+	public long getP50TimeMicros() {
+		return this.p50TimeMicros;
+	}
+
+	/**
+	 * @return 90th percentile of the time spent on a unit, in microseconds
+	 */
+	public long getP90TimeMicros() {
+		return this.p90TimeMicros;
+	}
+
+	/**
+	 * @return 99th percentile of the time spent on a unit, in microseconds
+	 */
+	public long getP99TimeMicros() {
+		return this.p99TimeMicros;
+	}
+
+	/**
+	 * @return number of nodes visited by the rule
+	 */
+	public long getNodesVisited() {
+		return this.nodesVisited;
+	}
+
+	/**
+	 * @return number of problems raised by the rule
+	 */
+	public long getProblemsRaised() {
+		return this.problemsRaised;
+	}
+
+	/**
+	 * @return number of failures of the rule
+	 */
+	public long getFailures() {
+		return this.failures;
+	}
+
+}
@@ -0,0 +1,291 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.atos.jdt.ast.validation.engine.internal.Activator;
+
+/**
+ * Writes the timeline of a validation run as a trace-event JSON file, that
+ * can be loaded in chrome://tracing or Perfetto, to see the concurrency, the
+ * gaps and the stragglers of a build.
+ * 
+ * Each span is a complete event, on the thread that performed it, and is
+ * tagged with the project of the unit. Events are streamed to the file as
+ * they are recorded, so that memory does not grow with the run. If the file
+ * cannot be written, the error is logged and tracing stops.
+ * 
+ * Tracing is opt-in: it is enabled for a run from
+ * {@link net.atos.jdt.ast.validation.engine.ASTValidationEngine}, or for all
+ * the runs with the {@value #TRACE_DIRECTORY_PROPERTY} system property, that
+ * names the directory where a trace file is written per run.
+ * 
+ * @since 1.2
+ */
+public class ASTTracer {
+
+	/**
+	 * System property naming the directory where the traces of all the runs
+	 * are written
+	 */
+	public static final String TRACE_DIRECTORY_PROPERTY = "net.atos.jdt.ast.validation.trace";
+
+	/**
+	 * Category of the parsing spans
+	 */
+	public static final String PARSE = "parse";
+
+	/**
+	 * Category of the context evaluation spans
+	 */
+	public static final String CONTEXT = "context";
+
+	/**
+	 * Category of the rule visit spans
+	 */
+	public static final String VISIT = "visit";
+
+	/**
+	 * Category of the marker writing spans
+	 */
+	public static final String MARKERS = "markers";
+
+	/**
+	 * Nanoseconds in a microsecond, the unit of the timestamps
+	 */
+	private static final long NANOS_PER_MICRO = 1000L;
+
+	/**
+	 * Writer of the trace file, or null once closed
+	 */
+	private Writer writer;
+
+	/**
+	 * Origin of the timestamps
+	 */
+	private final long origin = System.nanoTime();
+
+	/**
+	 * Identifiers of the threads whose name has been written
+	 */
+	private final Set<Long> namedThreads = new HashSet<Long>();
+
+	/**
+	 * Number of events written
+	 */
+	private int eventsCount;
+
+	/**
+	 * Creates new tracer, writing to the writer provided
+	 * 
+	 * @param writer
+	 */
+	private ASTTracer(final Writer writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Opens a tracer writing to the file provided
+	 * 
+	 * @param file
+	 * @return the tracer, or null if the file cannot be created
+	 */
+	public static ASTTracer open(final File file) {
+		try {
+			if (file.getParentFile() != null) {
+				file.getParentFile().mkdirs();
+			}
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+			writer.write("[\n");
+			return new ASTTracer(writer);
+		} catch (final IOException e) {
+			Activator.logException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Opens a tracer writing to a new file, in the directory named by the
+	 * {@value #TRACE_DIRECTORY_PROPERTY} system property
+	 * 
+	 * @return the tracer, or null if the property is not set, or if the file
+	 *         cannot be created
+	 */
+	public static ASTTracer openFromSystemProperty() {
+		final String directory = System.getProperty(ASTTracer.TRACE_DIRECTORY_PROPERTY);
+		if ((directory == null) || (directory.length() == 0)) {
+			return null;
+		}
+		return ASTTracer.open(new File(directory, "validation-" + System.currentTimeMillis() + ".json"));
+	}
+
+	/**
+	 * Records a span, on the current thread
+	 * 
+	 * @param name
+	 *            name of the span
+	 * @param category
+	 *            category of the span
+	 * @param start
+	 *            start of the span, from {@link System#nanoTime()}
+	 * @param duration
+	 *            duration of the span, in nanoseconds
+	 * @param project
+	 *            project the span is about, or null
+	 * @param arguments
+	 *            additional arguments, as names and values
+	 */
+	public void span(final String name, final String category, final long start, final long duration,
+			final String project, final String... arguments) {
+		final Thread thread = Thread.currentThread();
+		final StringBuilder builder = new StringBuilder(128);
+		builder.append("{\"name\":");
+		ASTTracer.appendString(builder, name);
+		builder.append(",\"cat\":\"").append(category).append("\",\"ph\":\"X\",\"ts\":");
+		ASTTracer.appendMicros(builder, Math.max(0, start - this.origin));
+		builder.append(",\"dur\":");
+		ASTTracer.appendMicros(builder, duration);
+		builder.append(",\"pid\":1,\"tid\":").append(thread.getId()).append(",\"args\":{");
+		if (project != null) {
+			builder.append("\"project\":");
+			ASTTracer.appendString(builder, project);
+		}
+		for (int index = 0; index < (arguments.length - 1); index += 2) {
+			if ((project != null) || (index > 0)) {
+				builder.append(',');
+			}
+			ASTTracer.appendString(builder, arguments[index]);
+			builder.append(':');
+			ASTTracer.appendString(builder, arguments[index + 1]);
+		}
+		builder.append("}}");
+		this.write(thread, builder);
+	}
+
+	/**
+	 * Closes the trace file
+	 */
+	public synchronized void close() {
+		if (this.writer == null) {
+			return;
+		}
+		try {
+			this.writer.write("\n]\n");
+			this.writer.close();
+		} catch (final IOException e) {
+			Activator.logException(e);
+		} finally {
+			this.writer = null;
+		}
+	}
+
+	/**
+	 * Writes an event, preceded by the name of its thread, the first time
+	 * the thread is met
+	 * 
+	 * @param thread
+	 * @param event
+	 */
+	private synchronized void write(final Thread thread, final CharSequence event) {
+		if (this.writer == null) {
+			return;
+		}
+		try {
+			if (this.namedThreads.add(Long.valueOf(thread.getId()))) {
+				final StringBuilder builder = new StringBuilder(96);
+				builder.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getId())
+						.append(",\"args\":{\"name\":");
+				ASTTracer.appendString(builder, thread.getName());
+				builder.append("}}");
+				this.writeEvent(builder);
+			}
+			this.writeEvent(event);
+		} catch (final IOException e) {
+			Activator.logException(e);
+			try {
+				this.writer.close();
+			} catch (final IOException ignored) {
+				// Already logged
+			}
+			this.writer = null;
+		}
+	}
+
+	/**
+	 * Writes an event, separated from the previous one
+	 * 
+	 * @param event
+	 * @throws IOException
+	 */
+	private void writeEvent(final CharSequence event) throws IOException {
+		if (this.eventsCount++ > 0) {
+			this.writer.write(",\n");
+		}
+		this.writer.append(event);
+	}
+
+	/**
+	 * Appends a duration in nanoseconds, as microseconds
+	 * 
+	 * @param builder
+	 * @param nanos
+	 */
+	private static void appendMicros(final StringBuilder builder, final long nanos) {
+		final long fraction = nanos % ASTTracer.NANOS_PER_MICRO;
+		builder.append(nanos / ASTTracer.NANOS_PER_MICRO).append('.');
+		if (fraction < 100) {
+			builder.append(fraction < 10 ? "00" : "0");
+		}
+		builder.append(fraction);
+	}
+
+	/**
+	 * Appends a string, as a JSON literal
+	 * 
+	 * @param builder
+	 * @param value
+	 */
+	private static void appendString(final StringBuilder builder, final String value) {
+		builder.append('"');
+		if (value != null) {
+			for (int index = 0; index < value.length(); index++) {
+				final char character = value.charAt(index);
+				if ((character == '"') || (character == '\\')) {
+					builder.append('\\').append(character);
+				} else if (character < ' ') {
+					builder.append(String.format("\\u%04x", Integer.valueOf(character)));
+				} else {
+					builder.append(character);
+				}
+			}
+		}
+		builder.append('"');
+	}
+}
@@ -22,20 +22,24 @@
 package net.atos.jdt.ast.validation.engine.internal.participant;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 
-import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
 import net.atos.jdt.ast.validation.engine.ASTRulesPreferences;
-import net.atos.jdt.ast.validation.engine.ASTRulesRepository;
 import net.atos.jdt.ast.validation.engine.ASTValidationEngine;
-import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
 import net.atos.jdt.ast.validation.engine.IASTRulesDataSource;
 import net.atos.jdt.ast.validation.engine.internal.Activator;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTCircuitBreaker;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTExecutionPlan;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTMarkersWriter;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesRunner;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTValidationResult;
 import net.atos.jdt.ast.validation.engine.internal.extpt.ASTRulesExtensionPoint;
-import net.atos.jdt.ast.validation.engine.rules.AbstractASTRule;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTFlightEvent;
+import net.atos.jdt.ast.validation.engine.internal.metrics.ASTMetrics;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -105,6 +109,8 @@ public class ASTValidationParticipant extends CompilationParticipant {
 
 		// At first, let's do some validation.
 		CompilationUnit domCU = null;
+		final Object parseEvent = ASTFlightEvent.PARSE.begin();
+		final long parseStart = System.nanoTime();
 		try {
 			domCU = context.getAST4();
 		} catch (final JavaModelException e) {
@@ -114,6 +120,11 @@ public class ASTValidationParticipant extends CompilationParticipant {
 		if (domCU == null) {
 			return;
 		}
+		final long parseTime = System.nanoTime() - parseStart;
+		if (parseEvent != null) {
+			ASTFlightEvent.PARSE.commit(parseEvent, context.getWorkingCopy().getPath().toString(), context
+					.getWorkingCopy().getJavaProject().getElementName(), domCU.getAST().hasResolvedBindings());
+		}
 
 		final IJavaElement javaElement = domCU.getJavaElement();
 		if (!(javaElement instanceof ICompilationUnit)) {
@@ -124,21 +135,37 @@ public class ASTValidationParticipant extends CompilationParticipant {
 		ICompilationUnit iCompilationUnit = (ICompilationUnit) javaElement;
 
 		if (iCompilationUnit.getResource() != null && iCompilationUnit.getResource().exists()) {
-			for (final ASTRulesRepository repository : this.dataSource.getRepositories()) {
-				try {
-					iCompilationUnit.getResource().deleteMarkers(repository.getMarkerId(), true, IResource.DEPTH_ZERO);
-				} catch (final CoreException e) {
-					Activator.logException(e);
-				}
-				if (repository.isEnabled(iCompilationUnit)) {
-					for (final ASTRuleDescriptor ruleDescriptor : repository.getRules(iCompilationUnit)) {
-						final AbstractASTRule rule = ruleDescriptor.getRule();
-						domCU.accept(rule);
-						for (final ASTValidationProblem problem : rule.getProblems()) {
-							problem.toMarker(iCompilationUnit.getResource());
-						}
-					}
+			final ASTExecutionPlan executionPlan = ASTExecutionPlan.forDataSource(this.dataSource);
+			final ASTValidationResult result = new ASTValidationResult(iCompilationUnit);
+			if (ASTMetrics.getInstance().isEnabled()) {
+				// AST is parsed on behalf of all the repositories
+				ASTMetrics.getInstance().recordParse(Arrays.asList(executionPlan.getMarkerIds()), 1, parseTime);
+			}
+
+			// All the rules are executed within a single walk of the AST. Each
+			// reconcile is a run of the breaker of the reconciles, so that
+			// the rules it quarantines are retried by the next reconciles.
+			final ASTCircuitBreaker circuitBreaker = ASTCircuitBreaker.getReconcileInstance();
+			circuitBreaker.startRun();
+			try {
+				ASTRulesRunner.run(result, executionPlan, executionPlan.getRules(iCompilationUnit), domCU,
+						Collections.<String, Object> emptyMap(), false, null, null, circuitBreaker);
+				for (int index = 0; index < result.getFailedRules().size(); index++) {
+					circuitBreaker.recordFailure(result.getFailedRules().get(index), iCompilationUnit, result
+							.getFailures().get(index));
 				}
+			} finally {
+				circuitBreaker.endRun();
+			}
+
+			// Markers are replaced within a single workspace operation
+			final ASTMarkersWriter markersWriter = new ASTMarkersWriter();
+			markersWriter.add(iCompilationUnit.getResource(), Arrays.asList(executionPlan.getMarkerIds()),
+					result.getProblems());
+			try {
+				markersWriter.write(new NullProgressMonitor());
+			} catch (final CoreException e) {
+				Activator.logException(e);
 			}
 		}
 	}
@@ -0,0 +1,581 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.visitor;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+
+/**
+ * AST Visitor that walks the tree once, on behalf of several visitors.
+ * 
+ * Each node is only forwarded to the visitors that override the matching
+ * visit/endVisit method, with a direct call to the typed method (see
+ * {@link ASTVisitDispatcher}). When a visitor returns false, only this visitor
+ * stops visiting the children of the node; the others are not impacted.
+ * 
+ * Exceptions raised by a visitor are kept, and this visitor is not notified
+ * anymore until the end of the traversal.
+ * 
+ * Time budgets can be set, for each visitor and for the whole traversal. They
+ * are checked cooperatively: the time spent in each visitor is measured
+ * around each call, and a visitor that exceeds its budget is aborted as if it
+ * had raised an {@link ASTVisitTimeoutException}. The budget of the traversal
+ * and the cancellation of the monitor are checked at regular intervals of
+ * nodes.
+ * 
+ * The time spent and the number of nodes visited by each visitor are
+ * available once the traversal is over, for metrics. Time is only measured if
+ * visitors have a budget, or if timing has been requested.
+ * 
+ * @since 1.2
+ */
+public class ASTMultiplexingVisitor extends ASTVisitor {
+
+	/**
+	 * Empty array of visitor indexes
+	 */
+	private static final int[] NONE = new int[0];
+
+	/**
+	 * Mask of the number of nodes between two checks of the traversal budget
+	 * and of the cancellation
+	 */
+	private static final int CHECK_INTERVAL_MASK = 0x3F;
+
+	/**
+	 * Nanoseconds in a millisecond
+	 */
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	/**
+	 * Visitors on behalf of which the tree is visited
+	 */
+	private final ASTVisitor[] visitors;
+
+	/**
+	 * Indexes of the visitors overriding visit(...), by node type
+	 */
+	private final int[][] visitIndexes;
+
+	/**
+	 * Indexes of the visitors overriding endVisit(...), by node type
+	 */
+	private final int[][] endVisitIndexes;
+
+	/**
+	 * Indexes of the visitors overriding preVisit(...) or preVisit2(...)
+	 */
+	private final int[] preVisitIndexes;
+
+	/**
+	 * Indexes of the visitors overriding postVisit(...)
+	 */
+	private final int[] postVisitIndexes;
+
+	/**
+	 * True for the visitors that visit Javadoc subtrees
+	 */
+	private final boolean[] visitingJavadoc;
+
+	/**
+	 * Node from which each visitor has stopped visiting children, or null
+	 */
+	private final ASTNode[] prunedAt;
+
+	/**
+	 * True if visitor has been pruned by preVisit2(...), in which case neither
+	 * visit(...) nor endVisit(...) are called for the node
+	 */
+	private final boolean[] prunedBeforeVisit;
+
+	/**
+	 * Stack of nodes where visitors have been pruned. As the tree is walked
+	 * depth first, pruned visitors are resumed in reverse order.
+	 */
+	private final ASTNode[] pruneStackNodes;
+
+	/**
+	 * Indexes of the visitors matching the nodes in stack
+	 */
+	private final int[] pruneStackIndexes;
+
+	/**
+	 * Size of the prune stack
+	 */
+	private int pruneStackSize;
+
+	/**
+	 * Exceptions raised by the visitors, or null
+	 */
+	private final Throwable[] failures;
+
+	/**
+	 * Number of visitors that raised an exception
+	 */
+	private int failuresCount;
+
+	/**
+	 * Time spent in each visitor, in nanoseconds. Only measured if visitors
+	 * have a budget, or if timing has been requested.
+	 */
+	private final long[] elapsed;
+
+	/**
+	 * True if the time spent in each visitor is measured
+	 */
+	private boolean timed;
+
+	/**
+	 * Number of nodes visited when each visitor has been pruned
+	 */
+	private final int[] prunedFromNode;
+
+	/**
+	 * Number of nodes each visitor skipped, because it was pruned
+	 */
+	private final int[] skippedNodes;
+
+	/**
+	 * Number of nodes visited when each visitor failed
+	 */
+	private final int[] failedAtNode;
+
+	/**
+	 * Time budget of each visitor, in nanoseconds, or 0
+	 */
+	private long visitorBudget;
+
+	/**
+	 * Time at which the traversal budget is exceeded, in nanoseconds, if
+	 * traversal has a budget
+	 */
+	private long deadline;
+
+	/**
+	 * Time budget of the traversal, in milliseconds, or 0
+	 */
+	private long traversalBudget;
+
+	/**
+	 * Monitor whose cancellation stops the traversal, or null
+	 */
+	private IProgressMonitor monitor;
+
+	/**
+	 * Number of nodes visited
+	 */
+	private int visitedNodes;
+
+	/**
+	 * Creates new multiplexing visitor, on behalf of the visitors provided
+	 * 
+	 * @param visitors
+	 */
+	public ASTMultiplexingVisitor(final ASTVisitor... visitors) {
+		// Doc tags are visited, as long as one of the visitors needs them
+		super(true);
+		this.visitors = visitors;
+		final int count = visitors.length;
+		final ASTVisitMethods[] visitMethods = new ASTVisitMethods[count];
+		this.visitingJavadoc = new boolean[count];
+		for (int index = 0; index < count; index++) {
+			visitMethods[index] = ASTVisitMethods.forClass(visitors[index].getClass());
+			this.visitingJavadoc[index] = visitMethods[index].isVisitingJavadoc();
+		}
+		this.visitIndexes = ASTMultiplexingVisitor.indexByType(visitMethods, false);
+		this.endVisitIndexes = ASTMultiplexingVisitor.indexByType(visitMethods, true);
+		this.preVisitIndexes = ASTMultiplexingVisitor.indexGeneric(visitMethods, false);
+		this.postVisitIndexes = ASTMultiplexingVisitor.indexGeneric(visitMethods, true);
+		this.prunedAt = new ASTNode[count];
+		this.prunedBeforeVisit = new boolean[count];
+		this.pruneStackNodes = new ASTNode[count];
+		this.pruneStackIndexes = new int[count];
+		this.failures = new Throwable[count];
+		this.elapsed = new long[count];
+		this.prunedFromNode = new int[count];
+		this.skippedNodes = new int[count];
+		this.failedAtNode = new int[count];
+	}
+
+	/**
+	 * Sets the time budgets. Must be called before the traversal starts.
+	 * 
+	 * @param visitorBudget
+	 *            time each visitor can spend, in milliseconds, or 0 or less
+	 *            for no limit
+	 * @param traversalBudget
+	 *            time the whole traversal can take, in milliseconds, from
+	 *            now, or 0 or less for no limit
+	 */
+	public void setBudgets(final long visitorBudget, final long traversalBudget) {
+		this.visitorBudget = visitorBudget > 0 ? visitorBudget * ASTMultiplexingVisitor.NANOS_PER_MILLI : 0;
+		this.traversalBudget = traversalBudget > 0 ? traversalBudget : 0;
+		this.deadline = System.nanoTime() + (this.traversalBudget * ASTMultiplexingVisitor.NANOS_PER_MILLI);
+		this.timed |= this.visitorBudget > 0;
+	}
+
+	/**
+	 * Requests the time spent in each visitor to be measured, even if
+	 * visitors have no budget. Must be called before the traversal starts.
+	 * 
+	 * @param timed
+	 */
+	public void setTimed(final boolean timed) {
+		this.timed = timed || (this.visitorBudget > 0);
+	}
+
+	/**
+	 * Sets the monitor whose cancellation stops the traversal, by raising an
+	 * {@link OperationCanceledException}
+	 * 
+	 * @param monitor
+	 */
+	public void setMonitor(final IProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Returns the exception raised by the visitor at index provided, or null if
+	 * it has been executed successfully
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public Throwable getFailure(final int index) {
+		return this.failures[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.jdt.core.dom.ASTVisitor#preVisit2(org.eclipse.jdt.core.dom
+	 * .ASTNode)
+	 */
+	@Override
+	public boolean preVisit2(final ASTNode node) {
+		if ((++this.visitedNodes & ASTMultiplexingVisitor.CHECK_INTERVAL_MASK) == 0) {
+			this.checkpoint();
+		}
+		for (final int index : this.preVisitIndexes) {
+			if (this.isActive(index) && !this.preVisit(index, node)) {
+				this.prune(index, node, true);
+			}
+		}
+		final int type = node.getNodeType();
+		if (type < this.visitIndexes.length) {
+			for (final int index : this.visitIndexes[type]) {
+				if (this.isActive(index) && !this.visit(index, node)) {
+					this.prune(index, node, false);
+				}
+			}
+		}
+		if (type == ASTNode.JAVADOC) {
+			for (int index = 0; index < this.visitors.length; index++) {
+				if (!this.visitingJavadoc[index] && this.isActive(index)) {
+					this.prune(index, node, false);
+				}
+			}
+		}
+		// Children are walked only if at least one visitor still needs them
+		return (this.pruneStackSize + this.failuresCount) < this.visitors.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.jdt.core.dom.ASTVisitor#postVisit(org.eclipse.jdt.core.dom
+	 * .ASTNode)
+	 */
+	@Override
+	public void postVisit(final ASTNode node) {
+		final int type = node.getNodeType();
+		if (type < this.endVisitIndexes.length) {
+			for (final int index : this.endVisitIndexes[type]) {
+				if (this.isEndVisitable(index, node)) {
+					this.endVisit(index, node);
+				}
+			}
+		}
+		for (final int index : this.postVisitIndexes) {
+			if ((this.failures[index] == null) && ((this.prunedAt[index] == null) || (this.prunedAt[index] == node))) {
+				this.postVisit(index, node);
+			}
+		}
+		// Visitors pruned on this node are resumed
+		while ((this.pruneStackSize > 0) && (this.pruneStackNodes[this.pruneStackSize - 1] == node)) {
+			this.pruneStackSize--;
+			final int index = this.pruneStackIndexes[this.pruneStackSize];
+			if (this.failures[index] == null) {
+				this.skippedNodes[index] += this.visitedNodes - this.prunedFromNode[index];
+			}
+			this.prunedAt[index] = null;
+			this.pruneStackNodes[this.pruneStackSize] = null;
+		}
+	}
+
+	/**
+	 * @return number of nodes visited
+	 */
+	public int getVisitedNodes() {
+		return this.visitedNodes;
+	}
+
+	/**
+	 * Returns the number of nodes visited by the visitor at index: the nodes
+	 * it has been notified of, until it failed.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public int getVisitedNodes(final int index) {
+		final int lastNode = this.failures[index] != null ? this.failedAtNode[index] : this.visitedNodes;
+		return lastNode - this.skippedNodes[index];
+	}
+
+	/**
+	 * Returns the time spent in the visitor at index, in nanoseconds, if time
+	 * has been measured (see {@link #setTimed(boolean)})
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public long getElapsed(final int index) {
+		return this.elapsed[index];
+	}
+
+	/**
+	 * Stops the traversal if the monitor has been canceled, and aborts all
+	 * the visitors if the traversal has exceeded its budget
+	 */
+	private void checkpoint() {
+		if ((this.monitor != null) && this.monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		if ((this.traversalBudget > 0) && ((System.nanoTime() - this.deadline) > 0)) {
+			for (int index = 0; index < this.visitors.length; index++) {
+				if (this.failures[index] == null) {
+					this.fail(index, new ASTVisitTimeoutException(this.traversalBudget, true));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return start time of a call to a visitor, if time is measured
+	 */
+	private long startTiming() {
+		return this.timed ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Charges the time spent in a call to the visitor at index, if time is
+	 * measured, and aborts the visitor if it has exceeded its budget
+	 * 
+	 * @param index
+	 * @param start
+	 */
+	private void stopTiming(final int index, final long start) {
+		if (this.timed) {
+			this.elapsed[index] += System.nanoTime() - start;
+			if ((this.visitorBudget > 0) && (this.elapsed[index] > this.visitorBudget)
+					&& (this.failures[index] == null)) {
+				this.fail(index, new ASTVisitTimeoutException(this.visitorBudget
+						/ ASTMultiplexingVisitor.NANOS_PER_MILLI, false));
+			}
+		}
+	}
+
+	/**
+	 * @return true if the visitor at index neither failed nor has been pruned
+	 */
+	private boolean isActive(final int index) {
+		return (this.failures[index] == null) && (this.prunedAt[index] == null);
+	}
+
+	/**
+	 * @return true if endVisit(...) should be forwarded to the visitor at
+	 *         index: visit(...) has been called for the node, and the visitor
+	 *         neither failed nor has been pruned by an ancestor
+	 */
+	private boolean isEndVisitable(final int index, final ASTNode node) {
+		if (this.failures[index] != null) {
+			return false;
+		}
+		return (this.prunedAt[index] == null) || ((this.prunedAt[index] == node) && !this.prunedBeforeVisit[index]);
+	}
+
+	/**
+	 * Stops the visit of the children of the node, for the visitor at index
+	 * 
+	 * @param index
+	 * @param node
+	 * @param beforeVisit
+	 */
+	private void prune(final int index, final ASTNode node, final boolean beforeVisit) {
+		if (this.failures[index] != null) {
+			return;
+		}
+		this.prunedAt[index] = node;
+		this.prunedBeforeVisit[index] = beforeVisit;
+		this.prunedFromNode[index] = this.visitedNodes;
+		this.pruneStackNodes[this.pruneStackSize] = node;
+		this.pruneStackIndexes[this.pruneStackSize] = index;
+		this.pruneStackSize++;
+	}
+
+	/**
+	 * Forwards preVisit2(...) to the visitor at index
+	 */
+	private boolean preVisit(final int index, final ASTNode node) {
+		final long start = this.startTiming();
+		try {
+			return this.visitors[index].preVisit2(node);
+		} catch (final RuntimeException e) {
+			this.fail(index, e);
+			return false;
+		} finally {
+			this.stopTiming(index, start);
+		}
+	}
+
+	/**
+	 * Forwards postVisit(...) to the visitor at index
+	 */
+	private void postVisit(final int index, final ASTNode node) {
+		final long start = this.startTiming();
+		try {
+			this.visitors[index].postVisit(node);
+		} catch (final RuntimeException e) {
+			this.fail(index, e);
+		} finally {
+			this.stopTiming(index, start);
+		}
+	}
+
+	/**
+	 * Forwards visit(...) to the visitor at index
+	 */
+	private boolean visit(final int index, final ASTNode node) {
+		final long start = this.startTiming();
+		try {
+			return ASTVisitDispatcher.visit(this.visitors[index], node);
+		} catch (final RuntimeException e) {
+			this.fail(index, e);
+			return false;
+		} finally {
+			this.stopTiming(index, start);
+		}
+	}
+
+	/**
+	 * Forwards endVisit(...) to the visitor at index
+	 */
+	private void endVisit(final int index, final ASTNode node) {
+		final long start = this.startTiming();
+		try {
+			ASTVisitDispatcher.endVisit(this.visitors[index], node);
+		} catch (final RuntimeException e) {
+			this.fail(index, e);
+		} finally {
+			this.stopTiming(index, start);
+		}
+	}
+
+	/**
+	 * Records the failure of the visitor at index. Errors are not recorded but
+	 * propagated.
+	 * 
+	 * @param index
+	 * @param throwable
+	 */
+	private void fail(final int index, final Throwable throwable) {
+		if (throwable instanceof Error) {
+			throw (Error) throwable;
+		}
+		if (this.prunedAt[index] != null) {
+			this.skippedNodes[index] += this.visitedNodes - this.prunedFromNode[index];
+		}
+		this.failures[index] = throwable;
+		this.failedAtNode[index] = this.visitedNodes;
+		this.failuresCount++;
+	}
+
+	/**
+	 * Builds the indexes of the visitors overriding visit or endVisit methods,
+	 * by node type
+	 * 
+	 * @param visitMethods
+	 * @param endVisit
+	 * @return
+	 */
+	private static int[][] indexByType(final ASTVisitMethods[] visitMethods, final boolean endVisit) {
+		final int typesCount = ASTVisitMethods.getNodeTypesCount();
+		final int[] counts = new int[typesCount];
+		for (final ASTVisitMethods methods : visitMethods) {
+			for (final int type : endVisit ? methods.getEndVisitedTypes() : methods.getVisitedTypes()) {
+				counts[type]++;
+			}
+		}
+		final int[][] indexes = new int[typesCount][];
+		for (int type = 0; type < typesCount; type++) {
+			indexes[type] = counts[type] == 0 ? ASTMultiplexingVisitor.NONE : new int[counts[type]];
+			counts[type] = 0;
+		}
+		for (int index = 0; index < visitMethods.length; index++) {
+			final ASTVisitMethods methods = visitMethods[index];
+			for (final int type : endVisit ? methods.getEndVisitedTypes() : methods.getVisitedTypes()) {
+				indexes[type][counts[type]++] = index;
+			}
+		}
+		return indexes;
+	}
+
+	/**
+	 * Builds the indexes of the visitors that override preVisit or postVisit
+	 * methods
+	 * 
+	 * @param visitMethods
+	 * @param postVisit
+	 * @return
+	 */
+	private static int[] indexGeneric(final ASTVisitMethods[] visitMethods, final boolean postVisit) {
+		int count = 0;
+		for (final ASTVisitMethods methods : visitMethods) {
+			count += (postVisit ? methods.isPostVisiting() : methods.isPreVisiting()) ? 1 : 0;
+		}
+		if (count == 0) {
+			return ASTMultiplexingVisitor.NONE;
+		}
+		final int[] indexes = new int[count];
+		count = 0;
+		for (int index = 0; index < visitMethods.length; index++) {
+			if (postVisit ? visitMethods[index].isPostVisiting() : visitMethods[index].isPreVisiting()) {
+				indexes[count++] = index;
+			}
+		}
+		return indexes;
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.visitor;
+
+import net.atos.jdt.ast.validation.engine.rules.ASTVisitContext;
+import net.atos.jdt.ast.validation.engine.rules.AbstractStatelessASTRule;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Javadoc;
+
+/**
+ * Adapts a stateless rule to the AST Visitor, for the visit of one
+ * compilation unit. Only the nodes of the types declared by the rule are
+ * forwarded to it.
+ * 
+ * @since 1.2
+ */
+public class ASTStatelessRuleVisitor extends ASTVisitor {
+
+	/**
+	 * Adapted rule
+	 */
+	private final AbstractStatelessASTRule rule;
+
+	/**
+	 * Context of the visit
+	 */
+	private final ASTVisitContext context;
+
+	/**
+	 * Visited node types flags, indexed by node type
+	 */
+	private final boolean[] nodeTypes;
+
+	/**
+	 * Creates new adapter
+	 * 
+	 * @param rule
+	 * @param context
+	 * @param nodeTypes
+	 *            visited node types flags, indexed by node type (see
+	 *            {@link #toFlags(int[])})
+	 */
+	protected ASTStatelessRuleVisitor(final AbstractStatelessASTRule rule, final ASTVisitContext context,
+			final boolean[] nodeTypes) {
+		this.rule = rule;
+		this.context = context;
+		this.nodeTypes = nodeTypes;
+	}
+
+	/**
+	 * Creates the adapter for the rule. If the rule visits Javadoc nodes, the
+	 * returned adapter walks the Javadoc subtrees.
+	 * 
+	 * @param rule
+	 * @param context
+	 * @param nodeTypes
+	 *            visited node types flags, indexed by node type (see
+	 *            {@link #toFlags(int[])})
+	 * @return
+	 */
+	public static ASTStatelessRuleVisitor create(final AbstractStatelessASTRule rule, final ASTVisitContext context,
+			final boolean[] nodeTypes) {
+		if (ASTStatelessRuleVisitor.isVisitingJavadoc(nodeTypes)) {
+			return new JavadocVisitor(rule, context, nodeTypes);
+		}
+		return new ASTStatelessRuleVisitor(rule, context, nodeTypes);
+	}
+
+	/**
+	 * Converts the node types declared by a rule into flags indexed by node
+	 * type
+	 * 
+	 * @param nodeTypes
+	 * @return
+	 */
+	public static boolean[] toFlags(final int[] nodeTypes) {
+		final boolean[] flags = new boolean[ASTVisitMethods.getNodeTypesCount()];
+		if (nodeTypes != null) {
+			for (final int nodeType : nodeTypes) {
+				if ((nodeType > 0) && (nodeType < flags.length)) {
+					flags[nodeType] = true;
+				}
+			}
+		}
+		return flags;
+	}
+
+	/**
+	 * @return context of the visit
+	 */
+	public ASTVisitContext getContext() {
+		return this.context;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.jdt.core.dom.ASTVisitor#preVisit2(org.eclipse.jdt.core.dom
+	 * .ASTNode)
+	 */
+	@Override
+	public boolean preVisit2(final ASTNode node) {
+		if (this.isVisited(node)) {
+			return this.rule.visit(node, this.context);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.jdt.core.dom.ASTVisitor#postVisit(org.eclipse.jdt.core.dom
+	 * .ASTNode)
+	 */
+	@Override
+	public void postVisit(final ASTNode node) {
+		if (this.isVisited(node)) {
+			this.rule.endVisit(node, this.context);
+		}
+	}
+
+	/**
+	 * @return true if the node is of one of the types declared by the rule
+	 */
+	private boolean isVisited(final ASTNode node) {
+		final int type = node.getNodeType();
+		return (type < this.nodeTypes.length) && this.nodeTypes[type];
+	}
+
+	/**
+	 * @return true if one of the node types belongs to Javadoc subtrees
+	 */
+	private static boolean isVisitingJavadoc(final boolean[] nodeTypes) {
+		final int[] javadocTypes = { ASTNode.JAVADOC, ASTNode.TAG_ELEMENT, ASTNode.TEXT_ELEMENT, ASTNode.MEMBER_REF,
+				ASTNode.METHOD_REF, ASTNode.METHOD_REF_PARAMETER };
+		for (final int javadocType : javadocTypes) {
+			if ((javadocType < nodeTypes.length) && nodeTypes[javadocType]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adapter for the rules that visit Javadoc subtrees. Overriding
+	 * visit(Javadoc) is what makes the multiplexing visitor walk these
+	 * subtrees.
+	 */
+	private static final class JavadocVisitor extends ASTStatelessRuleVisitor {
+
+		/**
+		 * Creates new adapter
+		 * 
+		 * @param rule
+		 * @param context
+		 * @param nodeTypes
+		 */
+		private JavadocVisitor(final AbstractStatelessASTRule rule, final ASTVisitContext context,
+				final boolean[] nodeTypes) {
+			super(rule, context, nodeTypes);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom
+		 * .Javadoc)
+		 */
+		@Override
+		public boolean visit(final Javadoc node) {
+			// Rule already notified by preVisit2
+			return true;
+		}
+	}
+}
@@ -0,0 +1,609 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.visitor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AnnotationTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnnotationTypeMemberDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.ArrayAccess;
+import org.eclipse.jdt.core.dom.ArrayCreation;
+import org.eclipse.jdt.core.dom.ArrayInitializer;
+import org.eclipse.jdt.core.dom.ArrayType;
+import org.eclipse.jdt.core.dom.AssertStatement;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BlockComment;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.BreakStatement;
+import org.eclipse.jdt.core.dom.CastExpression;
+import org.eclipse.jdt.core.dom.CatchClause;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ConditionalExpression;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.ContinueStatement;
+import org.eclipse.jdt.core.dom.DoStatement;
+import org.eclipse.jdt.core.dom.EmptyStatement;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
+import org.eclipse.jdt.core.dom.ExpressionStatement;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.ForStatement;
+import org.eclipse.jdt.core.dom.IfStatement;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.InstanceofExpression;
+import org.eclipse.jdt.core.dom.Javadoc;
+import org.eclipse.jdt.core.dom.LabeledStatement;
+import org.eclipse.jdt.core.dom.LineComment;
+import org.eclipse.jdt.core.dom.MarkerAnnotation;
+import org.eclipse.jdt.core.dom.MemberRef;
+import org.eclipse.jdt.core.dom.MemberValuePair;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.MethodRef;
+import org.eclipse.jdt.core.dom.MethodRefParameter;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.NormalAnnotation;
+import org.eclipse.jdt.core.dom.NullLiteral;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.PackageDeclaration;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.ParenthesizedExpression;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.QualifiedType;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleMemberAnnotation;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SuperFieldAccess;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.eclipse.jdt.core.dom.SwitchCase;
+import org.eclipse.jdt.core.dom.SwitchStatement;
+import org.eclipse.jdt.core.dom.SynchronizedStatement;
+import org.eclipse.jdt.core.dom.TagElement;
+import org.eclipse.jdt.core.dom.TextElement;
+import org.eclipse.jdt.core.dom.ThisExpression;
+import org.eclipse.jdt.core.dom.ThrowStatement;
+import org.eclipse.jdt.core.dom.TryStatement;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+import org.eclipse.jdt.core.dom.TypeLiteral;
+import org.eclipse.jdt.core.dom.TypeParameter;
+import org.eclipse.jdt.core.dom.UnionType;
+import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.eclipse.jdt.core.dom.WhileStatement;
+import org.eclipse.jdt.core.dom.WildcardType;
+
+/**
+ * Forwards a node to the typed visit(...) or endVisit(...) method of a
+ * visitor, with a direct call, selected by node type.
+ * 
+ * Node types are the ones known by the JDT version the engine is built
+ * against. Node types added by a more recent JDT version are forwarded
+ * through reflection.
+ * 
+ * @since 1.2
+ */
+final class ASTVisitDispatcher {
+
+	/**
+	 * Private constructor
+	 */
+	private ASTVisitDispatcher() {
+	}
+
+	/**
+	 * Calls the visit(...) method of the visitor matching the type of the
+	 * node
+	 * 
+	 * @param visitor
+	 * @param node
+	 * @return the result of the visit method
+	 */
+	static boolean visit(final ASTVisitor visitor, final ASTNode node) {
+		switch (node.getNodeType()) {
+		case ASTNode.ANONYMOUS_CLASS_DECLARATION:
+			return visitor.visit((AnonymousClassDeclaration) node);
+		case ASTNode.ARRAY_ACCESS:
+			return visitor.visit((ArrayAccess) node);
+		case ASTNode.ARRAY_CREATION:
+			return visitor.visit((ArrayCreation) node);
+		case ASTNode.ARRAY_INITIALIZER:
+			return visitor.visit((ArrayInitializer) node);
+		case ASTNode.ARRAY_TYPE:
+			return visitor.visit((ArrayType) node);
+		case ASTNode.ASSERT_STATEMENT:
+			return visitor.visit((AssertStatement) node);
+		case ASTNode.ASSIGNMENT:
+			return visitor.visit((Assignment) node);
+		case ASTNode.BLOCK:
+			return visitor.visit((Block) node);
+		case ASTNode.BOOLEAN_LITERAL:
+			return visitor.visit((BooleanLiteral) node);
+		case ASTNode.BREAK_STATEMENT:
+			return visitor.visit((BreakStatement) node);
+		case ASTNode.CAST_EXPRESSION:
+			return visitor.visit((CastExpression) node);
+		case ASTNode.CATCH_CLAUSE:
+			return visitor.visit((CatchClause) node);
+		case ASTNode.CHARACTER_LITERAL:
+			return visitor.visit((CharacterLiteral) node);
+		case ASTNode.CLASS_INSTANCE_CREATION:
+			return visitor.visit((ClassInstanceCreation) node);
+		case ASTNode.COMPILATION_UNIT:
+			return visitor.visit((CompilationUnit) node);
+		case ASTNode.CONDITIONAL_EXPRESSION:
+			return visitor.visit((ConditionalExpression) node);
+		case ASTNode.CONSTRUCTOR_INVOCATION:
+			return visitor.visit((ConstructorInvocation) node);
+		case ASTNode.CONTINUE_STATEMENT:
+			return visitor.visit((ContinueStatement) node);
+		case ASTNode.DO_STATEMENT:
+			return visitor.visit((DoStatement) node);
+		case ASTNode.EMPTY_STATEMENT:
+			return visitor.visit((EmptyStatement) node);
+		case ASTNode.EXPRESSION_STATEMENT:
+			return visitor.visit((ExpressionStatement) node);
+		case ASTNode.FIELD_ACCESS:
+			return visitor.visit((FieldAccess) node);
+		case ASTNode.FIELD_DECLARATION:
+			return visitor.visit((FieldDeclaration) node);
+		case ASTNode.FOR_STATEMENT:
+			return visitor.visit((ForStatement) node);
+		case ASTNode.IF_STATEMENT:
+			return visitor.visit((IfStatement) node);
+		case ASTNode.IMPORT_DECLARATION:
+			return visitor.visit((ImportDeclaration) node);
+		case ASTNode.INFIX_EXPRESSION:
+			return visitor.visit((InfixExpression) node);
+		case ASTNode.INITIALIZER:
+			return visitor.visit((Initializer) node);
+		case ASTNode.JAVADOC:
+			return visitor.visit((Javadoc) node);
+		case ASTNode.LABELED_STATEMENT:
+			return visitor.visit((LabeledStatement) node);
+		case ASTNode.METHOD_DECLARATION:
+			return visitor.visit((MethodDeclaration) node);
+		case ASTNode.METHOD_INVOCATION:
+			return visitor.visit((MethodInvocation) node);
+		case ASTNode.NULL_LITERAL:
+			return visitor.visit((NullLiteral) node);
+		case ASTNode.NUMBER_LITERAL:
+			return visitor.visit((NumberLiteral) node);
+		case ASTNode.PACKAGE_DECLARATION:
+			return visitor.visit((PackageDeclaration) node);
+		case ASTNode.PARENTHESIZED_EXPRESSION:
+			return visitor.visit((ParenthesizedExpression) node);
+		case ASTNode.POSTFIX_EXPRESSION:
+			return visitor.visit((PostfixExpression) node);
+		case ASTNode.PREFIX_EXPRESSION:
+			return visitor.visit((PrefixExpression) node);
+		case ASTNode.PRIMITIVE_TYPE:
+			return visitor.visit((PrimitiveType) node);
+		case ASTNode.QUALIFIED_NAME:
+			return visitor.visit((QualifiedName) node);
+		case ASTNode.RETURN_STATEMENT:
+			return visitor.visit((ReturnStatement) node);
+		case ASTNode.SIMPLE_NAME:
+			return visitor.visit((SimpleName) node);
+		case ASTNode.SIMPLE_TYPE:
+			return visitor.visit((SimpleType) node);
+		case ASTNode.SINGLE_VARIABLE_DECLARATION:
+			return visitor.visit((SingleVariableDeclaration) node);
+		case ASTNode.STRING_LITERAL:
+			return visitor.visit((StringLiteral) node);
+		case ASTNode.SUPER_CONSTRUCTOR_INVOCATION:
+			return visitor.visit((SuperConstructorInvocation) node);
+		case ASTNode.SUPER_FIELD_ACCESS:
+			return visitor.visit((SuperFieldAccess) node);
+		case ASTNode.SUPER_METHOD_INVOCATION:
+			return visitor.visit((SuperMethodInvocation) node);
+		case ASTNode.SWITCH_CASE:
+			return visitor.visit((SwitchCase) node);
+		case ASTNode.SWITCH_STATEMENT:
+			return visitor.visit((SwitchStatement) node);
+		case ASTNode.SYNCHRONIZED_STATEMENT:
+			return visitor.visit((SynchronizedStatement) node);
+		case ASTNode.THIS_EXPRESSION:
+			return visitor.visit((ThisExpression) node);
+		case ASTNode.THROW_STATEMENT:
+			return visitor.visit((ThrowStatement) node);
+		case ASTNode.TRY_STATEMENT:
+			return visitor.visit((TryStatement) node);
+		case ASTNode.TYPE_DECLARATION:
+			return visitor.visit((TypeDeclaration) node);
+		case ASTNode.TYPE_DECLARATION_STATEMENT:
+			return visitor.visit((TypeDeclarationStatement) node);
+		case ASTNode.TYPE_LITERAL:
+			return visitor.visit((TypeLiteral) node);
+		case ASTNode.VARIABLE_DECLARATION_EXPRESSION:
+			return visitor.visit((VariableDeclarationExpression) node);
+		case ASTNode.VARIABLE_DECLARATION_FRAGMENT:
+			return visitor.visit((VariableDeclarationFragment) node);
+		case ASTNode.VARIABLE_DECLARATION_STATEMENT:
+			return visitor.visit((VariableDeclarationStatement) node);
+		case ASTNode.WHILE_STATEMENT:
+			return visitor.visit((WhileStatement) node);
+		case ASTNode.INSTANCEOF_EXPRESSION:
+			return visitor.visit((InstanceofExpression) node);
+		case ASTNode.LINE_COMMENT:
+			return visitor.visit((LineComment) node);
+		case ASTNode.BLOCK_COMMENT:
+			return visitor.visit((BlockComment) node);
+		case ASTNode.TAG_ELEMENT:
+			return visitor.visit((TagElement) node);
+		case ASTNode.TEXT_ELEMENT:
+			return visitor.visit((TextElement) node);
+		case ASTNode.MEMBER_REF:
+			return visitor.visit((MemberRef) node);
+		case ASTNode.METHOD_REF:
+			return visitor.visit((MethodRef) node);
+		case ASTNode.METHOD_REF_PARAMETER:
+			return visitor.visit((MethodRefParameter) node);
+		case ASTNode.ENHANCED_FOR_STATEMENT:
+			return visitor.visit((EnhancedForStatement) node);
+		case ASTNode.ENUM_DECLARATION:
+			return visitor.visit((EnumDeclaration) node);
+		case ASTNode.ENUM_CONSTANT_DECLARATION:
+			return visitor.visit((EnumConstantDeclaration) node);
+		case ASTNode.TYPE_PARAMETER:
+			return visitor.visit((TypeParameter) node);
+		case ASTNode.PARAMETERIZED_TYPE:
+			return visitor.visit((ParameterizedType) node);
+		case ASTNode.QUALIFIED_TYPE:
+			return visitor.visit((QualifiedType) node);
+		case ASTNode.WILDCARD_TYPE:
+			return visitor.visit((WildcardType) node);
+		case ASTNode.NORMAL_ANNOTATION:
+			return visitor.visit((NormalAnnotation) node);
+		case ASTNode.MARKER_ANNOTATION:
+			return visitor.visit((MarkerAnnotation) node);
+		case ASTNode.SINGLE_MEMBER_ANNOTATION:
+			return visitor.visit((SingleMemberAnnotation) node);
+		case ASTNode.MEMBER_VALUE_PAIR:
+			return visitor.visit((MemberValuePair) node);
+		case ASTNode.ANNOTATION_TYPE_DECLARATION:
+			return visitor.visit((AnnotationTypeDeclaration) node);
+		case ASTNode.ANNOTATION_TYPE_MEMBER_DECLARATION:
+			return visitor.visit((AnnotationTypeMemberDeclaration) node);
+		case ASTNode.MODIFIER:
+			return visitor.visit((Modifier) node);
+		case ASTNode.UNION_TYPE:
+			return visitor.visit((UnionType) node);
+		default:
+			return Boolean.TRUE.equals(ASTVisitDispatcher.invoke(visitor,
+					ASTVisitMethods.getVisitMethod(node.getNodeType()), node));
+		}
+	}
+
+	/**
+	 * Calls the endVisit(...) method of the visitor matching the type of the
+	 * node
+	 * 
+	 * @param visitor
+	 * @param node
+	 */
+	static void endVisit(final ASTVisitor visitor, final ASTNode node) {
+		switch (node.getNodeType()) {
+		case ASTNode.ANONYMOUS_CLASS_DECLARATION:
+			visitor.endVisit((AnonymousClassDeclaration) node);
+			break;
+		case ASTNode.ARRAY_ACCESS:
+			visitor.endVisit((ArrayAccess) node);
+			break;
+		case ASTNode.ARRAY_CREATION:
+			visitor.endVisit((ArrayCreation) node);
+			break;
+		case ASTNode.ARRAY_INITIALIZER:
+			visitor.endVisit((ArrayInitializer) node);
+			break;
+		case ASTNode.ARRAY_TYPE:
+			visitor.endVisit((ArrayType) node);
+			break;
+		case ASTNode.ASSERT_STATEMENT:
+			visitor.endVisit((AssertStatement) node);
+			break;
+		case ASTNode.ASSIGNMENT:
+			visitor.endVisit((Assignment) node);
+			break;
+		case ASTNode.BLOCK:
+			visitor.endVisit((Block) node);
+			break;
+		case ASTNode.BOOLEAN_LITERAL:
+			visitor.endVisit((BooleanLiteral) node);
+			break;
+		case ASTNode.BREAK_STATEMENT:
+			visitor.endVisit((BreakStatement) node);
+			break;
+		case ASTNode.CAST_EXPRESSION:
+			visitor.endVisit((CastExpression) node);
+			break;
+		case ASTNode.CATCH_CLAUSE:
+			visitor.endVisit((CatchClause) node);
+			break;
+		case ASTNode.CHARACTER_LITERAL:
+			visitor.endVisit((CharacterLiteral) node);
+			break;
+		case ASTNode.CLASS_INSTANCE_CREATION:
+			visitor.endVisit((ClassInstanceCreation) node);
+			break;
+		case ASTNode.COMPILATION_UNIT:
+			visitor.endVisit((CompilationUnit) node);
+			break;
+		case ASTNode.CONDITIONAL_EXPRESSION:
+			visitor.endVisit((ConditionalExpression) node);
+			break;
+		case ASTNode.CONSTRUCTOR_INVOCATION:
+			visitor.endVisit((ConstructorInvocation) node);
+			break;
+		case ASTNode.CONTINUE_STATEMENT:
+			visitor.endVisit((ContinueStatement) node);
+			break;
+		case ASTNode.DO_STATEMENT:
+			visitor.endVisit((DoStatement) node);
+			break;
+		case ASTNode.EMPTY_STATEMENT:
+			visitor.endVisit((EmptyStatement) node);
+			break;
+		case ASTNode.EXPRESSION_STATEMENT:
+			visitor.endVisit((ExpressionStatement) node);
+			break;
+		case ASTNode.FIELD_ACCESS:
+			visitor.endVisit((FieldAccess) node);
+			break;
+		case ASTNode.FIELD_DECLARATION:
+			visitor.endVisit((FieldDeclaration) node);
+			break;
+		case ASTNode.FOR_STATEMENT:
+			visitor.endVisit((ForStatement) node);
+			break;
+		case ASTNode.IF_STATEMENT:
+			visitor.endVisit((IfStatement) node);
+			break;
+		case ASTNode.IMPORT_DECLARATION:
+			visitor.endVisit((ImportDeclaration) node);
+			break;
+		case ASTNode.INFIX_EXPRESSION:
+			visitor.endVisit((InfixExpression) node);
+			break;
+		case ASTNode.INITIALIZER:
+			visitor.endVisit((Initializer) node);
+			break;
+		case ASTNode.JAVADOC:
+			visitor.endVisit((Javadoc) node);
+			break;
+		case ASTNode.LABELED_STATEMENT:
+			visitor.endVisit((LabeledStatement) node);
+			break;
+		case ASTNode.METHOD_DECLARATION:
+			visitor.endVisit((MethodDeclaration) node);
+			break;
+		case ASTNode.METHOD_INVOCATION:
+			visitor.endVisit((MethodInvocation) node);
+			break;
+		case ASTNode.NULL_LITERAL:
+			visitor.endVisit((NullLiteral) node);
+			break;
+		case ASTNode.NUMBER_LITERAL:
+			visitor.endVisit((NumberLiteral) node);
+			break;
+		case ASTNode.PACKAGE_DECLARATION:
+			visitor.endVisit((PackageDeclaration) node);
+			break;
+		case ASTNode.PARENTHESIZED_EXPRESSION:
+			visitor.endVisit((ParenthesizedExpression) node);
+			break;
+		case ASTNode.POSTFIX_EXPRESSION:
+			visitor.endVisit((PostfixExpression) node);
+			break;
+		case ASTNode.PREFIX_EXPRESSION:
+			visitor.endVisit((PrefixExpression) node);
+			break;
+		case ASTNode.PRIMITIVE_TYPE:
+			visitor.endVisit((PrimitiveType) node);
+			break;
+		case ASTNode.QUALIFIED_NAME:
+			visitor.endVisit((QualifiedName) node);
+			break;
+		case ASTNode.RETURN_STATEMENT:
+			visitor.endVisit((ReturnStatement) node);
+			break;
+		case ASTNode.SIMPLE_NAME:
+			visitor.endVisit((SimpleName) node);
+			break;
+		case ASTNode.SIMPLE_TYPE:
+			visitor.endVisit((SimpleType) node);
+			break;
+		case ASTNode.SINGLE_VARIABLE_DECLARATION:
+			visitor.endVisit((SingleVariableDeclaration) node);
+			break;
+		case ASTNode.STRING_LITERAL:
+			visitor.endVisit((StringLiteral) node);
+			break;
+		case ASTNode.SUPER_CONSTRUCTOR_INVOCATION:
+			visitor.endVisit((SuperConstructorInvocation) node);
+			break;
+		case ASTNode.SUPER_FIELD_ACCESS:
+			visitor.endVisit((SuperFieldAccess) node);
+			break;
+		case ASTNode.SUPER_METHOD_INVOCATION:
+			visitor.endVisit((SuperMethodInvocation) node);
+			break;
+		case ASTNode.SWITCH_CASE:
+			visitor.endVisit((SwitchCase) node);
+			break;
+		case ASTNode.SWITCH_STATEMENT:
+			visitor.endVisit((SwitchStatement) node);
+			break;
+		case ASTNode.SYNCHRONIZED_STATEMENT:
+			visitor.endVisit((SynchronizedStatement) node);
+			break;
+		case ASTNode.THIS_EXPRESSION:
+			visitor.endVisit((ThisExpression) node);
+			break;
+		case ASTNode.THROW_STATEMENT:
+			visitor.endVisit((ThrowStatement) node);
+			break;
+		case ASTNode.TRY_STATEMENT:
+			visitor.endVisit((TryStatement) node);
+			break;
+		case ASTNode.TYPE_DECLARATION:
+			visitor.endVisit((TypeDeclaration) node);
+			break;
+		case ASTNode.TYPE_DECLARATION_STATEMENT:
+			visitor.endVisit((TypeDeclarationStatement) node);
+			break;
+		case ASTNode.TYPE_LITERAL:
+			visitor.endVisit((TypeLiteral) node);
+			break;
+		case ASTNode.VARIABLE_DECLARATION_EXPRESSION:
+			visitor.endVisit((VariableDeclarationExpression) node);
+			break;
+		case ASTNode.VARIABLE_DECLARATION_FRAGMENT:
+			visitor.endVisit((VariableDeclarationFragment) node);
+			break;
+		case ASTNode.VARIABLE_DECLARATION_STATEMENT:
+			visitor.endVisit((VariableDeclarationStatement) node);
+			break;
+		case ASTNode.WHILE_STATEMENT:
+			visitor.endVisit((WhileStatement) node);
+			break;
+		case ASTNode.INSTANCEOF_EXPRESSION:
+			visitor.endVisit((InstanceofExpression) node);
+			break;
+		case ASTNode.LINE_COMMENT:
+			visitor.endVisit((LineComment) node);
+			break;
+		case ASTNode.BLOCK_COMMENT:
+			visitor.endVisit((BlockComment) node);
+			break;
+		case ASTNode.TAG_ELEMENT:
+			visitor.endVisit((TagElement) node);
+			break;
+		case ASTNode.TEXT_ELEMENT:
+			visitor.endVisit((TextElement) node);
+			break;
+		case ASTNode.MEMBER_REF:
+			visitor.endVisit((MemberRef) node);
+			break;
+		case ASTNode.METHOD_REF:
+			visitor.endVisit((MethodRef) node);
+			break;
+		case ASTNode.METHOD_REF_PARAMETER:
+			visitor.endVisit((MethodRefParameter) node);
+			break;
+		case ASTNode.ENHANCED_FOR_STATEMENT:
+			visitor.endVisit((EnhancedForStatement) node);
+			break;
+		case ASTNode.ENUM_DECLARATION:
+			visitor.endVisit((EnumDeclaration) node);
+			break;
+		case ASTNode.ENUM_CONSTANT_DECLARATION:
+			visitor.endVisit((EnumConstantDeclaration) node);
+			break;
+		case ASTNode.TYPE_PARAMETER:
+			visitor.endVisit((TypeParameter) node);
+			break;
+		case ASTNode.PARAMETERIZED_TYPE:
+			visitor.endVisit((ParameterizedType) node);
+			break;
+		case ASTNode.QUALIFIED_TYPE:
+			visitor.endVisit((QualifiedType) node);
+			break;
+		case ASTNode.WILDCARD_TYPE:
+			visitor.endVisit((WildcardType) node);
+			break;
+		case ASTNode.NORMAL_ANNOTATION:
+			visitor.endVisit((NormalAnnotation) node);
+			break;
+		case ASTNode.MARKER_ANNOTATION:
+			visitor.endVisit((MarkerAnnotation) node);
+			break;
+		case ASTNode.SINGLE_MEMBER_ANNOTATION:
+			visitor.endVisit((SingleMemberAnnotation) node);
+			break;
+		case ASTNode.MEMBER_VALUE_PAIR:
+			visitor.endVisit((MemberValuePair) node);
+			break;
+		case ASTNode.ANNOTATION_TYPE_DECLARATION:
+			visitor.endVisit((AnnotationTypeDeclaration) node);
+			break;
+		case ASTNode.ANNOTATION_TYPE_MEMBER_DECLARATION:
+			visitor.endVisit((AnnotationTypeMemberDeclaration) node);
+			break;
+		case ASTNode.MODIFIER:
+			visitor.endVisit((Modifier) node);
+			break;
+		case ASTNode.UNION_TYPE:
+			visitor.endVisit((UnionType) node);
+			break;
+		default:
+			ASTVisitDispatcher.invoke(visitor, ASTVisitMethods.getEndVisitMethod(node.getNodeType()), node);
+			break;
+		}
+	}
+
+	/**
+	 * Invokes a visit method through reflection, propagating the exceptions
+	 * raised by the visitor
+	 * 
+	 * @param visitor
+	 * @param method
+	 * @param node
+	 * @return
+	 */
+	private static Object invoke(final ASTVisitor visitor, final Method method, final ASTNode node) {
+		if (method == null) {
+			return null;
+		}
+		try {
+			return method.invoke(visitor, node);
+		} catch (final InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (final IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
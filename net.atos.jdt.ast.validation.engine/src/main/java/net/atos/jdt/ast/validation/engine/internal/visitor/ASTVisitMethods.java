@@ -0,0 +1,263 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.visitor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+
+/**
+ * Describes which visit methods of the AST Visitor a visitor class overrides.
+ * Classes are introspected only once, and the result is shared by all the
+ * instances of the class.
+ * 
+ * @since 1.2
+ */
+public final class ASTVisitMethods {
+
+	/**
+	 * Node classes, indexed by node type
+	 */
+	private static final Class<?>[] NODE_CLASSES;
+
+	/**
+	 * ASTVisitor.visit(...) methods, indexed by node type
+	 */
+	private static final Method[] VISIT_METHODS;
+
+	/**
+	 * ASTVisitor.endVisit(...) methods, indexed by node type
+	 */
+	private static final Method[] END_VISIT_METHODS;
+
+	/**
+	 * Node types, by node class
+	 */
+	private static final Map<Class<?>, Integer> NODE_TYPES = new HashMap<Class<?>, Integer>();
+
+	/**
+	 * Already introspected classes
+	 */
+	private static final Map<Class<?>, ASTVisitMethods> CACHE = new ConcurrentHashMap<Class<?>, ASTVisitMethods>();
+
+	static {
+		// Node types are contiguous, starting from 1. We stop on the first
+		// one that is unknown by the current JDT version.
+		final List<Class<?>> nodeClasses = new ArrayList<Class<?>>();
+		nodeClasses.add(null);
+		boolean hasNext = true;
+		while (hasNext) {
+			try {
+				nodeClasses.add(ASTNode.nodeClassForType(nodeClasses.size()));
+			} catch (final IllegalArgumentException e) {
+				hasNext = false;
+			}
+		}
+		NODE_CLASSES = nodeClasses.toArray(new Class<?>[nodeClasses.size()]);
+		VISIT_METHODS = new Method[ASTVisitMethods.NODE_CLASSES.length];
+		END_VISIT_METHODS = new Method[ASTVisitMethods.NODE_CLASSES.length];
+		for (int type = 1; type < ASTVisitMethods.NODE_CLASSES.length; type++) {
+			final Class<?> nodeClass = ASTVisitMethods.NODE_CLASSES[type];
+			ASTVisitMethods.NODE_TYPES.put(nodeClass, type);
+			try {
+				ASTVisitMethods.VISIT_METHODS[type] = ASTVisitor.class.getMethod("visit", nodeClass);
+				ASTVisitMethods.END_VISIT_METHODS[type] = ASTVisitor.class.getMethod("endVisit", nodeClass);
+			} catch (final NoSuchMethodException e) {
+				// Node type that cannot be visited. Will never be dispatched.
+			}
+		}
+	}
+
+	/**
+	 * Node types for which visit(...) is overridden
+	 */
+	private final int[] visitedTypes;
+
+	/**
+	 * Node types for which endVisit(...) is overridden
+	 */
+	private final int[] endVisitedTypes;
+
+	/**
+	 * True if preVisit(ASTNode) or preVisit2(ASTNode) is overridden
+	 */
+	private final boolean preVisiting;
+
+	/**
+	 * True if postVisit(ASTNode) is overridden
+	 */
+	private final boolean postVisiting;
+
+	/**
+	 * Introspects the visitor class
+	 * 
+	 * @param visitorClass
+	 */
+	private ASTVisitMethods(final Class<?> visitorClass) {
+		final boolean[] visited = new boolean[ASTVisitMethods.NODE_CLASSES.length];
+		final boolean[] endVisited = new boolean[ASTVisitMethods.NODE_CLASSES.length];
+		boolean preVisiting = false;
+		boolean postVisiting = false;
+		for (Class<?> current = visitorClass; (current != null) && (current != ASTVisitor.class); current = current
+				.getSuperclass()) {
+			for (final Method method : current.getDeclaredMethods()) {
+				if (method.isBridge() || Modifier.isStatic(method.getModifiers())
+						|| (method.getParameterTypes().length != 1)) {
+					continue;
+				}
+				final String name = method.getName();
+				final Class<?> parameterType = method.getParameterTypes()[0];
+				if (parameterType == ASTNode.class) {
+					preVisiting |= "preVisit".equals(name) || "preVisit2".equals(name);
+					postVisiting |= "postVisit".equals(name);
+				} else {
+					final Integer type = ASTVisitMethods.NODE_TYPES.get(parameterType);
+					if (type != null) {
+						visited[type] |= "visit".equals(name);
+						endVisited[type] |= "endVisit".equals(name);
+					}
+				}
+			}
+		}
+		this.visitedTypes = ASTVisitMethods.toTypes(visited);
+		this.endVisitedTypes = ASTVisitMethods.toTypes(endVisited);
+		this.preVisiting = preVisiting;
+		this.postVisiting = postVisiting;
+	}
+
+	/**
+	 * Returns the visit methods of the visitor class provided. Introspection
+	 * only happens the first time a class is requested.
+	 * 
+	 * @param visitorClass
+	 * @return
+	 */
+	public static ASTVisitMethods forClass(final Class<? extends ASTVisitor> visitorClass) {
+		ASTVisitMethods visitMethods = ASTVisitMethods.CACHE.get(visitorClass);
+		if (visitMethods == null) {
+			visitMethods = new ASTVisitMethods(visitorClass);
+			ASTVisitMethods.CACHE.put(visitorClass, visitMethods);
+		}
+		return visitMethods;
+	}
+
+	/**
+	 * Returns the number of node types known by the running JDT version, plus
+	 * one (node types start from 1)
+	 * 
+	 * @return
+	 */
+	static int getNodeTypesCount() {
+		return ASTVisitMethods.NODE_CLASSES.length;
+	}
+
+	/**
+	 * @return ASTVisitor.visit(...) method for node type, or null. Only used
+	 *         for the node types {@link ASTVisitDispatcher} does not know.
+	 */
+	static Method getVisitMethod(final int type) {
+		return ASTVisitMethods.VISIT_METHODS[type];
+	}
+
+	/**
+	 * @return ASTVisitor.endVisit(...) method for node type, or null. Only
+	 *         used for the node types {@link ASTVisitDispatcher} does not
+	 *         know.
+	 */
+	static Method getEndVisitMethod(final int type) {
+		return ASTVisitMethods.END_VISIT_METHODS[type];
+	}
+
+	/**
+	 * @return node types for which visit(...) is overridden
+	 */
+	int[] getVisitedTypes() {
+		return this.visitedTypes;
+	}
+
+	/**
+	 * @return node types for which endVisit(...) is overridden
+	 */
+	int[] getEndVisitedTypes() {
+		return this.endVisitedTypes;
+	}
+
+	/**
+	 * @return true if visitor overrides preVisit(ASTNode) or
+	 *         preVisit2(ASTNode), and then needs to be notified for all the
+	 *         nodes
+	 */
+	boolean isPreVisiting() {
+		return this.preVisiting;
+	}
+
+	/**
+	 * @return true if visitor overrides postVisit(ASTNode), and then needs to
+	 *         be notified for all the nodes
+	 */
+	boolean isPostVisiting() {
+		return this.postVisiting;
+	}
+
+	/**
+	 * Returns true if visit(Javadoc) is overridden. Otherwise, as visitors are
+	 * created without doc tags visit, Javadoc subtrees are skipped.
+	 * 
+	 * @return
+	 */
+	boolean isVisitingJavadoc() {
+		for (final int type : this.visitedTypes) {
+			if (type == ASTNode.JAVADOC) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Converts flags indexed by node type, to array of node types
+	 * 
+	 * @param flags
+	 * @return
+	 */
+	private static int[] toTypes(final boolean[] flags) {
+		int count = 0;
+		for (final boolean flag : flags) {
+			count += flag ? 1 : 0;
+		}
+		final int[] types = new int[count];
+		int index = 0;
+		for (int type = 0; type < flags.length; type++) {
+			if (flags[type]) {
+				types[index++] = type;
+			}
+		}
+		return types;
+	}
+}
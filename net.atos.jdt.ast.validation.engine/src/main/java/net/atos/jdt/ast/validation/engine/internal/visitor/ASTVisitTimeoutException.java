@@ -0,0 +1,79 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.internal.visitor;
+
+/**
+ * Failure recorded for a visitor that exceeded its time budget, or whose
+ * compilation unit exceeded its time budget, and whose visit has therefore
+ * been aborted.
+ * 
+ * @since 1.2
+ */
+public class ASTVisitTimeoutException extends RuntimeException {
+
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = 7906411538104829523L;
+
+	/**
+	 * Budget exceeded, in milliseconds
+	 */
+	private final long budget;
+
+	/**
+	 * True if the budget exceeded is the one of the compilation unit, false
+	 * if it is the one of the visitor
+	 */
+	private final boolean unitBudget;
+
+	/**
+	 * Creates new exception
+	 * 
+	 * @param budget
+	 *            budget exceeded, in milliseconds
+	 * @param unitBudget
+	 *            true if the budget exceeded is the one of the compilation
+	 *            unit
+	 */
+	public ASTVisitTimeoutException(final long budget, final boolean unitBudget) {
+		super((unitBudget ? "Unit" : "Rule") + " time budget of " + budget + " ms exceeded");
+		this.budget = budget;
+		this.unitBudget = unitBudget;
+	}
+
+	/**
+	 * @return budget exceeded, in milliseconds
+	 */
+	public long getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * @return true if the budget exceeded is the one of the compilation unit,
+	 *         false if it is the one of the visitor
+	 */
+	public boolean isUnitBudget() {
+		return this.unitBudget;
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.rules;
+
+import java.text.MessageFormat;
+
+/**
+ * Template of the message of the problems raised by a rule, identified by a
+ * stable numeric identifier. Templates are meant to be declared once, as
+ * constants of the rule, and used to raise problems with arguments only:
+ * 
+ * <pre>
+ * private static final ASTMessageTemplate TOO_LONG = new ASTMessageTemplate(1, &quot;Method {0} has {1} lines&quot;);
+ * ...
+ * this.addWarningMarker(node, TOO_LONG, name, String.valueOf(lines));
+ * </pre>
+ * 
+ * The message is then only formatted when it is displayed, written in a
+ * marker or in a report. Patterns follow the {@link MessageFormat} syntax.
+ * 
+ * @since 1.2
+ */
+public final class ASTMessageTemplate {
+
+	/**
+	 * Identifier of the template. Stable across versions of the rule.
+	 */
+	private final int id;
+
+	/**
+	 * Pattern of the message
+	 */
+	private final String pattern;
+
+	/**
+	 * Creates new message template
+	 * 
+	 * @param id
+	 *            identifier, unique within the rule and stable across its
+	 *            versions. Must be positive.
+	 * @param pattern
+	 *            pattern of the message, with {@link MessageFormat} syntax
+	 */
+	public ASTMessageTemplate(final int id, final String pattern) {
+		if (id <= 0) {
+			throw new IllegalArgumentException("Message template identifier must be positive: " + id);
+		}
+		this.id = id;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * @return identifier of the template
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * @return pattern of the message
+	 */
+	public String getPattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * Formats the message, with the arguments provided
+	 * 
+	 * @param arguments
+	 * @return
+	 */
+	public String format(final String... arguments) {
+		return ASTMessageTemplate.format(this.pattern, arguments);
+	}
+
+	/**
+	 * Formats the pattern, with the arguments provided
+	 * 
+	 * @param pattern
+	 * @param arguments
+	 * @return
+	 */
+	public static String format(final String pattern, final String[] arguments) {
+		if (pattern == null) {
+			return null;
+		}
+		return MessageFormat.format(pattern, (Object[]) arguments);
+	}
+
+}
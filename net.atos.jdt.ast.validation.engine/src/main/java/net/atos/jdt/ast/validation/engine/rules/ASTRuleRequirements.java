@@ -0,0 +1,72 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.rules;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares what a rule needs from the AST it visits. The engine parses each
+ * compilation unit with the cheapest configuration that still meets the needs
+ * of all the rules to execute on it.
+ * 
+ * Rules that are not annotated are considered as needing everything
+ * (bindings, method bodies, Javadoc and statements recovery). As the outcome
+ * of rules resolving bindings depends on the other units, the problems they
+ * raise are not kept in the validation cache: rules have to be annotated for
+ * the units they run on to be cached.
+ * 
+ * @since 1.2
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ASTRuleRequirements {
+
+	/**
+	 * @return true if the rule resolves bindings (resolveBinding(),
+	 *         resolveTypeBinding()...)
+	 */
+	boolean bindings() default false;
+
+	/**
+	 * @return true if the rule visits statements within the method bodies
+	 */
+	boolean methodBodies() default true;
+
+	/**
+	 * @return true if the rule needs the Javadoc comments to be parsed into
+	 *         tag elements
+	 */
+	boolean javadoc() default false;
+
+	/**
+	 * @return true if the rule needs statements to be recovered when the
+	 *         source contains syntax errors
+	 */
+	boolean statementsRecovery() default false;
+}
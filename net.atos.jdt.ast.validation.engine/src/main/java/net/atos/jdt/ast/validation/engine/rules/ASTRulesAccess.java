@@ -0,0 +1,71 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.rules;
+
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTProblemBuffer;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesAccessor;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Implementation of the engine accessor to the rules, that reaches their
+ * package private members
+ * 
+ * @since 1.2
+ */
+final class ASTRulesAccess extends ASTRulesAccessor {
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesAccessor#newVisitContext(ASTRuleDescriptor,
+	 *      CompilationUnit, Map)
+	 */
+	@Override
+	public ASTVisitContext newVisitContext(final ASTRuleDescriptor ruleDescriptor,
+			final CompilationUnit domCompilationUnit, final Map<String, Object> session) {
+		return new ASTVisitContext(ruleDescriptor, domCompilationUnit, session);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesAccessor#getProblemBuffer(AbstractASTRule)
+	 */
+	@Override
+	public ASTProblemBuffer getProblemBuffer(final AbstractASTRule rule) {
+		return rule.getProblemBuffer();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesAccessor#getProblemBuffer(ASTVisitContext)
+	 */
+	@Override
+	public ASTProblemBuffer getProblemBuffer(final ASTVisitContext context) {
+		return context.getProblemBuffer();
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.rules;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
+import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTProblemBuffer;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTRulesAccessor;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * State of the visit of one compilation unit by one stateless rule: the
+ * visited unit, its AST, the session, and the problems raised so far.
+ * 
+ * Created by the engine for each execution of a rule, and passed to all the
+ * visit methods of the rule, so that the rule itself does not hold any state.
+ * 
+ * @see AbstractStatelessASTRule
+ * @since 1.2
+ */
+public class ASTVisitContext {
+
+	/**
+	 * Java Compilation Unit processed, or null
+	 */
+	private final ICompilationUnit compilationUnit;
+
+	/**
+	 * DOM Compilation Unit processed
+	 */
+	private final CompilationUnit domCompilationUnit;
+
+	/**
+	 * Session containing properties from caller, shared by reference
+	 */
+	private final Map<String, Object> session;
+
+	/**
+	 * Data local to the visit, created lazily
+	 */
+	private Map<String, Object> visitData;
+
+	/**
+	 * Problems raised during visit. Stored compactly, and materialized only
+	 * when requested.
+	 */
+	private final ASTProblemBuffer problems = new ASTProblemBuffer();
+
+	static {
+		// Engine creates the contexts, and reads their problems, through the
+		// accessor
+		ASTRulesAccessor.setInstance(new ASTRulesAccess());
+	}
+
+	/**
+	 * Creates new context, for the execution of rule on compilation unit
+	 * 
+	 * @param ruleDescriptor
+	 * @param domCompilationUnit
+	 * @param session
+	 *            immutable snapshot of the session, not copied
+	 */
+	ASTVisitContext(final ASTRuleDescriptor ruleDescriptor, final CompilationUnit domCompilationUnit,
+			final Map<String, Object> session) {
+		this.domCompilationUnit = domCompilationUnit;
+		final IJavaElement javaElement = domCompilationUnit.getJavaElement();
+		this.compilationUnit = javaElement instanceof ICompilationUnit ? (ICompilationUnit) javaElement : null;
+		this.session = session;
+		final IResource resource = this.compilationUnit != null ? this.compilationUnit.getResource() : null;
+		final String fileName = resource != null ? resource.getName() : "";
+		this.problems.reset(fileName, ruleDescriptor.getRepository().getMarkerId(), ruleDescriptor.getRuleClassName());
+	}
+
+	/**
+	 * @return Java Compilation Unit processed, or null if the AST has not been
+	 *         created from a compilation unit
+	 */
+	public ICompilationUnit getCompilationUnit() {
+		return this.compilationUnit;
+	}
+
+	/**
+	 * @return DOM Compilation Unit processed
+	 */
+	public CompilationUnit getDomCompilationUnit() {
+		return this.domCompilationUnit;
+	}
+
+	/**
+	 * @return session sent by the caller of the validation. Unmodifiable.
+	 */
+	public Map<String, Object> getSession() {
+		return this.session;
+	}
+
+	/**
+	 * Returns a map in which the rule can store data for this visit. The map
+	 * is created at first call.
+	 * 
+	 * @return
+	 */
+	public Map<String, Object> getVisitData() {
+		if (this.visitData == null) {
+			this.visitData = new HashMap<String, Object>();
+		}
+		return this.visitData;
+	}
+
+	/**
+	 * @return problems raised so far
+	 */
+	public List<ASTValidationProblem> getProblems() {
+		return this.problems.getProblems();
+	}
+
+	/**
+	 * Returns the problems raised so far, without materializing them
+	 * 
+	 * @return
+	 */
+	ASTProblemBuffer getProblemBuffer() {
+		return this.problems;
+	}
+
+	/**
+	 * Creates an Error marker for the AST node provided, with message
+	 * 
+	 * @param node
+	 * @param message
+	 */
+	public void addErrorMarker(final ASTNode node, final String message) {
+		this.addMarker(node, message, false, true);
+	}
+
+	/**
+	 * Creates a Warning marker for the AST node provided, with message
+	 * 
+	 * @param node
+	 * @param message
+	 */
+	public void addWarningMarker(final ASTNode node, final String message) {
+		this.addMarker(node, message, true, false);
+	}
+
+	/**
+	 * Creates an Info marker for the AST node provided, with message
+	 * 
+	 * @param node
+	 * @param message
+	 */
+	public void addInfoMarker(final ASTNode node, final String message) {
+		this.addMarker(node, message, false, false);
+	}
+
+	/**
+	 * Creates and stores a Problem in the list of problems
+	 * 
+	 * @param node
+	 * @param message
+	 * @param isWarning
+	 * @param isError
+	 */
+	public void addMarker(final ASTNode node, final String message, final boolean isWarning, final boolean isError) {
+		final int startChar = node.getStartPosition();
+		final int endChar = node.getStartPosition() + node.getLength();
+		final int lineNumber = this.domCompilationUnit.getLineNumber(startChar);
+		this.problems.add(message, isWarning, isError, lineNumber, startChar, endChar);
+	}
+
+	/**
+	 * Creates an Error marker for the AST node provided, with the message
+	 * template and its arguments. The message is only formatted when needed.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param arguments
+	 * @since 1.2
+	 */
+	public void addErrorMarker(final ASTNode node, final ASTMessageTemplate template, final String... arguments) {
+		this.addMarker(node, template, false, true, arguments);
+	}
+
+	/**
+	 * Creates a Warning marker for the AST node provided, with the message
+	 * template and its arguments. The message is only formatted when needed.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param arguments
+	 * @since 1.2
+	 */
+	public void addWarningMarker(final ASTNode node, final ASTMessageTemplate template, final String... arguments) {
+		this.addMarker(node, template, true, false, arguments);
+	}
+
+	/**
+	 * Creates an Info marker for the AST node provided, with the message
+	 * template and its arguments. The message is only formatted when needed.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param arguments
+	 * @since 1.2
+	 */
+	public void addInfoMarker(final ASTNode node, final ASTMessageTemplate template, final String... arguments) {
+		this.addMarker(node, template, false, false, arguments);
+	}
+
+	/**
+	 * Creates and stores a Problem raised from a message template. Only the
+	 * identifier and the arguments are recorded.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param isWarning
+	 * @param isError
+	 * @param arguments
+	 * @since 1.2
+	 */
+	public void addMarker(final ASTNode node, final ASTMessageTemplate template, final boolean isWarning,
+			final boolean isError, final String... arguments) {
+		final int startChar = node.getStartPosition();
+		final int endChar = node.getStartPosition() + node.getLength();
+		final int lineNumber = this.domCompilationUnit.getLineNumber(startChar);
+		this.problems.add(template.getId(), template.getPattern(), arguments, isWarning, isError, lineNumber,
+				startChar, endChar);
+	}
+}
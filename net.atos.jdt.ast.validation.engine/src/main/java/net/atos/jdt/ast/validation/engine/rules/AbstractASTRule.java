@@ -21,7 +21,6 @@
  */
 package net.atos.jdt.ast.validation.engine.rules;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +28,8 @@ import java.util.Map;
 import net.atos.jdt.ast.validation.engine.ASTRuleDescriptor;
 import net.atos.jdt.ast.validation.engine.ASTValidationProblem;
 import net.atos.jdt.ast.validation.engine.internal.Activator;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTCopyOnWriteMap;
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTProblemBuffer;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -58,6 +59,14 @@ public abstract class AbstractASTRule extends ASTVisitor {
 	 */
 	public static final String RULE_ID_KEY = Activator.PLUGIN_ID + ".ruleId";
 
+	/**
+	 * Key used for identifing the message template of the problem that raised
+	 * the marker
+	 * 
+	 * @since 1.2
+	 */
+	public static final String MESSAGE_ID_KEY = Activator.PLUGIN_ID + ".messageId";
+
 	/**
 	 * Java Compilation Unit processed
 	 */
@@ -74,14 +83,21 @@ public abstract class AbstractASTRule extends ASTVisitor {
 	private ASTRuleDescriptor ruleDescriptor;
 
 	/**
-	 * Problems raised during visit.
+	 * Problems raised during visit. Stored compactly, and materialized only
+	 * when requested.
 	 */
-	private final List<ASTValidationProblem> problems = new ArrayList<ASTValidationProblem>();
+	private final ASTProblemBuffer problems = new ASTProblemBuffer();
 
 	/**
-	 * Session containing properties from caller
+	 * Session containing properties from caller. Reads through the snapshot
+	 * shared by all the rules of the run, and copies it only if modified.
 	 */
-	private final Map<String, Object> session = new HashMap<String, Object>();
+	private final ASTCopyOnWriteMap<String, Object> session = new ASTCopyOnWriteMap<String, Object>();
+
+	/**
+	 * Data local to the current visit, created lazily
+	 */
+	private Map<String, Object> visitData;
 
 	/**
 	 * Sets the rule repository. should not be invoked by clients
@@ -100,15 +116,39 @@ public abstract class AbstractASTRule extends ASTVisitor {
 	 */
 	@Override
 	public final boolean visit(final CompilationUnit node) {
-		this.problems.clear();
+		this.visitData = null;
 		this.domCompilationUnit = node;
 		final IJavaElement javaElement = node.getJavaElement();
 		if (javaElement instanceof ICompilationUnit) {
 			this.compilationUnit = (ICompilationUnit) javaElement;
 		}
+
+		// The origin of the problems is resolved once per visit
+		final IResource resource = this.compilationUnit != null ? this.compilationUnit.getResource() : null;
+		final String fileName = resource != null ? resource.getName() : "";
+		if (this.ruleDescriptor != null) {
+			this.problems.reset(fileName, this.ruleDescriptor.getRepository().getMarkerId(),
+					this.ruleDescriptor.getRuleClassName());
+		} else {
+			this.problems.reset(fileName, null, null);
+		}
 		return this.visit2(node);
 	}
 
+	/**
+	 * Releases the references held on the last visited compilation units, so
+	 * that the AST can be garbage collected as soon as the rule has been
+	 * executed, and resets the problems and the session, so that the instance
+	 * can be reused for another unit. Should not be invoked by clients
+	 */
+	public final void release() {
+		this.compilationUnit = null;
+		this.domCompilationUnit = null;
+		this.problems.clear();
+		this.session.clear();
+		this.visitData = null;
+	}
+
 	/**
 	 * This method should be used to override the visit(CompilationUnit) method.
 	 * Can we overriden by clients
@@ -176,13 +216,69 @@ public abstract class AbstractASTRule extends ASTVisitor {
 	 * @param isError
 	 */
 	protected void addMarker(final ASTNode node, final String message, final boolean isWarning, final boolean isError) {
-		final IResource resource = this.compilationUnit.getResource();
-		final String markerId = this.ruleDescriptor.getRepository().getMarkerId();
 		final int lineNumber = this.getLineNumber(node);
 		final int startChar = node.getStartPosition();
 		final int endChar = node.getStartPosition() + node.getLength();
-		this.problems.add(new ASTValidationProblem(message, isWarning, isError, resource.getName(), markerId,
-				lineNumber, startChar, endChar));
+		this.problems.add(message, isWarning, isError, lineNumber, startChar, endChar);
+	}
+
+	/**
+	 * Creates an Error marker for the AST node provided, with the message
+	 * template and its arguments. The message is only formatted when needed.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param arguments
+	 * @since 1.2
+	 */
+	protected void addErrorMarker(final ASTNode node, final ASTMessageTemplate template, final String... arguments) {
+		this.addMarker(node, template, false, true, arguments);
+	}
+
+	/**
+	 * Creates a Warning marker for the AST node provided, with the message
+	 * template and its arguments. The message is only formatted when needed.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param arguments
+	 * @since 1.2
+	 */
+	protected void addWarningMarker(final ASTNode node, final ASTMessageTemplate template, final String... arguments) {
+		this.addMarker(node, template, true, false, arguments);
+	}
+
+	/**
+	 * Creates an Info marker for the AST node provided, with the message
+	 * template and its arguments. The message is only formatted when needed.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param arguments
+	 * @since 1.2
+	 */
+	protected void addInfoMarker(final ASTNode node, final ASTMessageTemplate template, final String... arguments) {
+		this.addMarker(node, template, false, false, arguments);
+	}
+
+	/**
+	 * Creates and stores a Problem raised from a message template. Only the
+	 * identifier and the arguments are recorded.
+	 * 
+	 * @param node
+	 * @param template
+	 * @param isWarning
+	 * @param isError
+	 * @param arguments
+	 * @since 1.2
+	 */
+	protected void addMarker(final ASTNode node, final ASTMessageTemplate template, final boolean isWarning,
+			final boolean isError, final String... arguments) {
+		final int startChar = node.getStartPosition();
+		final int endChar = node.getStartPosition() + node.getLength();
+		final int lineNumber = this.domCompilationUnit.getLineNumber(startChar);
+		this.problems.add(template.getId(), template.getPattern(), arguments, isWarning, isError, lineNumber,
+				startChar, endChar);
 	}
 
 	/**
@@ -200,17 +296,28 @@ public abstract class AbstractASTRule extends ASTVisitor {
 	 * @return list of problems raised by the last visit of this iterator
 	 */
 	public List<ASTValidationProblem> getProblems() {
+		return this.problems.getProblems();
+	}
+
+	/**
+	 * Returns the problems raised by the last visit, without materializing
+	 * them
+	 * 
+	 * @return
+	 */
+	final ASTProblemBuffer getProblemBuffer() {
 		return this.problems;
 	}
 
 	/**
-	 * Sets the current execution session
+	 * Sets the current execution session. The map is not copied: it is
+	 * expected to be an immutable snapshot, that may be shared by several
+	 * rules and threads.
 	 * 
 	 * @param session
 	 */
 	public void setSession(final Map<String, Object> session) {
-		this.session.clear();
-		this.session.putAll(session);
+		this.session.reset(session);
 	}
 
 	/**
@@ -222,4 +329,19 @@ public abstract class AbstractASTRule extends ASTVisitor {
 		return this.session;
 	}
 
+	/**
+	 * Returns a map in which the rule can store data for the current visit.
+	 * The map is created at first call, and dropped when a new compilation
+	 * unit is visited.
+	 * 
+	 * @return
+	 * @since 1.2
+	 */
+	protected Map<String, Object> getVisitData() {
+		if (this.visitData == null) {
+			this.visitData = new HashMap<String, Object>();
+		}
+		return this.visitData;
+	}
+
 }
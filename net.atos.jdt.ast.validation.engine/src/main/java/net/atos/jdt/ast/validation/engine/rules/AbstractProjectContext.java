@@ -21,18 +21,50 @@
  */
 package net.atos.jdt.ast.validation.engine.rules;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.atos.jdt.ast.validation.engine.internal.engine.ASTContextsInvalidator;
+
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
 
 /**
  * Class used as context for rules. Aim is to allow the user to provide custom
  * implementation to filter the execution of rules, according to project
  * properties.
  * 
+ * Filtering that only depends on the project or on the package can be
+ * implemented in {@link #validateProject(IJavaProject)} and
+ * {@link #validatePackage(IPackageFragment)}, whose results are cached until
+ * the classpath or the resources of the project change.
+ * 
  * @author mvanbesien
  * @since 1.0
  */
 public abstract class AbstractProjectContext {
 
+	/**
+	 * Results of {@link #validateProject(IJavaProject)}, by project
+	 */
+	private final Map<IJavaProject, Boolean> projectResults = new ConcurrentHashMap<IJavaProject, Boolean>();
+
+	/**
+	 * Results of {@link #validatePackage(IPackageFragment)}, by package
+	 */
+	private final Map<IPackageFragment, Boolean> packageResults = new ConcurrentHashMap<IPackageFragment, Boolean>();
+
+	/**
+	 * Creates new context, whose cached results are invalidated on workspace
+	 * changes
+	 */
+	public AbstractProjectContext() {
+		ASTContextsInvalidator.register(this);
+	}
+
 	/**
 	 * Returns true if matching rule should be executed within this project.
 	 * 
@@ -41,4 +73,89 @@ public abstract class AbstractProjectContext {
 	 */
 	public abstract boolean validate(ICompilationUnit compilationUnit);
 
+	/**
+	 * Returns true if matching rule may be executed within this project. Result
+	 * is cached per project. Default implementation accepts all projects.
+	 * 
+	 * @param javaProject
+	 * @return
+	 * @since 1.2
+	 */
+	public boolean validateProject(final IJavaProject javaProject) {
+		return true;
+	}
+
+	/**
+	 * Returns true if matching rule may be executed within this package. Result
+	 * is cached per package. Default implementation accepts all packages.
+	 * 
+	 * @param packageFragment
+	 * @return
+	 * @since 1.2
+	 */
+	public boolean validatePackage(final IPackageFragment packageFragment) {
+		return true;
+	}
+
+	/**
+	 * Returns true if matching rule should be executed on the compilation
+	 * unit: its project and its package are accepted (cached results), and the
+	 * unit itself is accepted.
+	 * 
+	 * @param compilationUnit
+	 * @return
+	 * @since 1.2
+	 */
+	public final boolean accept(final ICompilationUnit compilationUnit) {
+		final IJavaProject javaProject = compilationUnit.getJavaProject();
+		if (javaProject != null) {
+			Boolean result = this.projectResults.get(javaProject);
+			if (result == null) {
+				result = Boolean.valueOf(this.validateProject(javaProject));
+				this.projectResults.put(javaProject, result);
+			}
+			if (!result.booleanValue()) {
+				return false;
+			}
+		}
+		final IJavaElement parent = compilationUnit.getParent();
+		if (parent instanceof IPackageFragment) {
+			Boolean result = this.packageResults.get(parent);
+			if (result == null) {
+				result = Boolean.valueOf(this.validatePackage((IPackageFragment) parent));
+				this.packageResults.put((IPackageFragment) parent, result);
+			}
+			if (!result.booleanValue()) {
+				return false;
+			}
+		}
+		return this.validate(compilationUnit);
+	}
+
+	/**
+	 * Discards the cached results for the project and its packages
+	 * 
+	 * @param javaProject
+	 * @since 1.2
+	 */
+	public final void invalidate(final IJavaProject javaProject) {
+		this.projectResults.remove(javaProject);
+		final Iterator<IPackageFragment> iterator = this.packageResults.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (javaProject.equals(iterator.next().getJavaProject())) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discards all the cached results
+	 * 
+	 * @since 1.2
+	 */
+	public final void invalidate() {
+		this.projectResults.clear();
+		this.packageResults.clear();
+	}
+
 }
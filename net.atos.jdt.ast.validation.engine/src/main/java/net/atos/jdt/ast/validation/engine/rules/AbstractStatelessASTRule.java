@@ -0,0 +1,71 @@
+/*
+ *     Eclipse AST Validation, lite framework to validate java code
+ *     
+ *     Copyright (C) 2013 Atos Worldline or third-party contributors as
+ *     indicated by the @author tags or express copyright attribution
+ *     statements applied by the authors.
+ *     
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *     
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *     Lesser General Public License for more details.
+ *     
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package net.atos.jdt.ast.validation.engine.rules;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+
+/**
+ * Abstract Stateless AST Rule. Alternative to {@link AbstractASTRule}, for
+ * rules that do not hold any state in their fields: everything related to the
+ * visited compilation unit is held by the {@link ASTVisitContext} passed to
+ * the visit methods.
+ * 
+ * As a consequence, a single instance of the rule is created, and shared by
+ * all the validations, including the concurrent ones, without any locking.
+ * 
+ * The rule declares the types of the nodes it visits (see
+ * {@link ASTNode#getNodeType()}), and is only notified for these nodes.
+ * 
+ * @since 1.2
+ */
+public abstract class AbstractStatelessASTRule {
+
+	/**
+	 * Returns the types of the nodes to visit, as ASTNode constants (e.g.
+	 * ASTNode.METHOD_DECLARATION). Called once, when the rule is loaded.
+	 * 
+	 * @return
+	 */
+	public abstract int[] getNodeTypes();
+
+	/**
+	 * Visits a node of one of the declared types. Children of the node are not
+	 * visited if false is returned.
+	 * 
+	 * @param node
+	 * @param context
+	 * @return
+	 */
+	public boolean visit(final ASTNode node, final ASTVisitContext context) {
+		return true;
+	}
+
+	/**
+	 * Ends the visit of a node of one of the declared types. Called even if
+	 * visit returned false.
+	 * 
+	 * @param node
+	 * @param context
+	 */
+	public void endVisit(final ASTNode node, final ASTVisitContext context) {
+	}
+}